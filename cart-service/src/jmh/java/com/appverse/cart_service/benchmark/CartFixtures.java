@@ -0,0 +1,61 @@
+package com.appverse.cart_service.benchmark;
+
+import com.appverse.cart_service.model.Cart;
+import com.appverse.cart_service.model.CartItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Detached carts shaped like the ones CartServiceImpl works on, for the benchmarks in this package.
+ */
+final class CartFixtures {
+
+    private CartFixtures() {
+    }
+
+    static String applicationId(int index) {
+        return "app-" + UUID.nameUUIDFromBytes(("benchmark-app-" + index).getBytes());
+    }
+
+    static Cart cartWithItems(int itemCount) {
+        Instant now = Instant.parse("2024-05-01T12:00:00Z");
+        Cart cart = Cart.builder()
+                .id(UUID.randomUUID())
+                .userId("f3b1c2de-benchmark-user")
+                .createdAt(now)
+                .updatedAt(now)
+                .version(1L)
+                .build();
+        for (int i = 0; i < itemCount; i++) {
+            cart.addItem(CartItem.builder()
+                    .id(UUID.randomUUID())
+                    .applicationId(applicationId(i))
+                    .applicationName("Benchmark Application " + i)
+                    .quantity(1 + (i % 3))
+                    .unitPrice(new BigDecimal("4.99").add(BigDecimal.valueOf(i, 2)))
+                    .currency("USD")
+                    .isFree(i % 10 == 0)
+                    .thumbnailUrl("https://cdn.appverse.example/thumbnails/" + i + ".png")
+                    .addedAt(now.plusSeconds(i))
+                    .version(0L)
+                    .build());
+        }
+        return cart;
+    }
+
+    /**
+     * Same Jackson setup Spring Boot applies to the cart-service ObjectMapper (JSR-310 module, ISO-8601 instants).
+     */
+    static ObjectMapper objectMapper() {
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.appverse.cart_service.benchmark;
+
+import com.appverse.cart_service.model.Cart;
+import com.appverse.cart_service.model.CartItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding a line by applicationId: the linear {@code stream().filter(...).findFirst()} scan CartServiceImpl
+ * used to do, versus {@link Cart#findItem(String)}, for a hit at the end of the list and for a miss.
+ * The indexed variants measure steady state; the index build itself is paid once per loaded cart.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CartItemLookupBenchmark {
+
+    @Param({"1", "10", "50", "100", "500"})
+    private int itemCount;
+
+    private Cart cart;
+    private String lastApplicationId;
+    private String missingApplicationId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cart = CartFixtures.cartWithItems(itemCount);
+        lastApplicationId = CartFixtures.applicationId(itemCount - 1);
+        missingApplicationId = CartFixtures.applicationId(itemCount + 1);
+    }
+
+    @Benchmark
+    public Optional<CartItem> streamLookupHit() {
+        return findByStream(lastApplicationId);
+    }
+
+    @Benchmark
+    public Optional<CartItem> streamLookupMiss() {
+        return findByStream(missingApplicationId);
+    }
+
+    @Benchmark
+    public Optional<CartItem> indexedLookupHit() {
+        return cart.findItem(lastApplicationId);
+    }
+
+    @Benchmark
+    public Optional<CartItem> indexedLookupMiss() {
+        return cart.findItem(missingApplicationId);
+    }
+
+    private Optional<CartItem> findByStream(String applicationId) {
+        return cart.getItems().stream()
+                .filter(item -> item.getApplicationId().equals(applicationId))
+                .findFirst();
+    }
+}
@@ -0,0 +1,55 @@
+package com.appverse.cart_service.benchmark;
+
+import com.appverse.cart_service.dto.CartResponse;
+import com.appverse.cart_service.mapper.CartMapper;
+import com.appverse.cart_service.mapper.CartMapperImpl;
+import com.appverse.cart_service.model.Cart;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response path of every cart endpoint: MapStruct {@link CartMapper} (entity to DTO), Jackson encoding of
+ * {@link CartResponse}, and both together. Run with {@code -prof gc} (the profile default) to get bytes allocated
+ * per operation next to the timings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CartResponseBenchmark {
+
+    @Param({"1", "10", "50", "100", "500"})
+    private int itemCount;
+
+    private final CartMapper cartMapper = new CartMapperImpl();
+    private final ObjectMapper objectMapper = CartFixtures.objectMapper();
+
+    private Cart cart;
+    private CartResponse cartResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cart = CartFixtures.cartWithItems(itemCount);
+        cartResponse = cartMapper.toCartResponse(cart);
+    }
+
+    @Benchmark
+    public CartResponse mapToResponse() {
+        return cartMapper.toCartResponse(cart);
+    }
+
+    @Benchmark
+    public byte[] encodeResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cartResponse);
+    }
+
+    @Benchmark
+    public byte[] mapAndEncode() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cartMapper.toCartResponse(cart));
+    }
+}
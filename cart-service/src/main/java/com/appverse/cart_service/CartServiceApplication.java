@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients // ****** ADD THIS ANNOTATION ******
 @EnableJpaAuditing // Keep this if you were using it for JPA Auditing
+@EnableScheduling // Background jobs (cart event coalescing flush, etc.)
 public class CartServiceApplication {
 
 	public static void main(String[] args) {
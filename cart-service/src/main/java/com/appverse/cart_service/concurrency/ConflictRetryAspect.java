@@ -0,0 +1,59 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.concurrency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded retry for {@link RetryOnConflict} methods. Ordered ahead of the transaction interceptor so each
+ * attempt runs in its own transaction.
+ * <p>
+ * Retries on {@link ConcurrencyFailureException} (optimistic lock / version mismatch, deadlocks) and on
+ * {@link DataIntegrityViolationException}, which is how two concurrent first-time inserts of the same cart or
+ * cart line surface (uk_cart_user_id, uk_cart_item_cart_application). On the next attempt the row exists and
+ * the operation takes the update path.
+ */
+@Aspect
+@Component
+// Just ahead of the transaction interceptor (LOWEST_PRECEDENCE). Not HIGHEST_PRECEDENCE: that would sort before
+// ExposeInvocationInterceptor, and binding the @RetryOnConflict argument needs it to have run.
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@Slf4j
+public class ConflictRetryAspect {
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retryOnConflict(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Retrying inside a caller's transaction would reuse a poisoned persistence context.
+            return joinPoint.proceed();
+        }
+
+        int maxAttempts = Math.max(1, retryOnConflict.maxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("{} still conflicting after {} attempts: {}",
+                            joinPoint.getSignature().toShortString(), attempt, e.getMessage());
+                    throw e;
+                }
+                long backoffMs = retryOnConflict.backoffMs() * attempt
+                        + ThreadLocalRandom.current().nextLong(retryOnConflict.backoffMs() + 1);
+                log.debug("Conflict in {} (attempt {}/{}), retrying in {} ms: {}",
+                        joinPoint.getSignature().toShortString(), attempt, maxAttempts, backoffMs, e.getMessage());
+                Thread.sleep(backoffMs);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.appverse.cart_service.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs the annotated (transactional) method when it fails with an optimistic-locking or
+ * concurrent-insert conflict. The retry wraps the transaction, so every attempt starts from fresh state.
+ * Has no effect when the method is called inside an already active transaction.
+ * <p>
+ * Every attempt runs the whole method again, so non-transactional side effects must be deferred to commit
+ * (as {@code CartEventPublisher.publish} does) or they repeat once per attempt.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    /** Total attempts, including the first one. */
+    int maxAttempts() default 4;
+
+    /** Base backoff between attempts; the actual delay grows linearly with the attempt number plus jitter. */
+    long backoffMs() default 10;
+}
@@ -52,6 +52,9 @@ public class SecurityConfig {
                     .requestMatchers(PUBLIC_ACTUATOR_PATHS).permitAll()
                     // ^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^
 
+                    // Guest carts are identified by an opaque token header instead of a JWT
+                    .requestMatchers("/api/v1/carts/guest", "/api/v1/carts/guest/**").permitAll()
+
                     // Secure your cart service API endpoints
                     .requestMatchers("/api/v1/carts/**").authenticated()
 
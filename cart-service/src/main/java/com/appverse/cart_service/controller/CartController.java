@@ -1,19 +1,36 @@
 package com.appverse.cart_service.controller;
 
 import com.appverse.cart_service.dto.AddItemToCartRequest;
+import com.appverse.cart_service.dto.CartApplicationStatsResponse;
 import com.appverse.cart_service.dto.CartResponse;
+import com.appverse.cart_service.dto.CheckoutSnapshotResponse;
 import com.appverse.cart_service.dto.UpdateCartItemQuantityRequest;
+import com.appverse.cart_service.exception.BadRequestException;
+import com.appverse.cart_service.idempotency.IdempotencyStore;
+import com.appverse.cart_service.service.CartAnalyticsService;
 import com.appverse.cart_service.service.CartService;
+import com.appverse.cart_service.service.GuestCartTokens;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 // Assuming CartService is in com.appverse.cart_service.service
 
@@ -23,7 +40,14 @@ import org.springframework.web.bind.annotation.*;
 public class CartController {
 
     private static final Logger log = LoggerFactory.getLogger(CartController.class);
+    private static final String GUEST_TOKEN_HEADER = "X-Guest-Cart-Token";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key"; // Optional on every mutation; retries with the same key replay the first response
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
     private final CartService cartService;
+    private final IdempotencyStore idempotencyStore;
+    private final CartAnalyticsService cartAnalyticsService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Retrieves the cart for the currently authenticated user.
@@ -45,11 +69,13 @@ public class CartController {
     // @PreAuthorize("isAuthenticated()")
     public ResponseEntity<CartResponse> addItemToMyCart(
             @Valid @RequestBody AddItemToCartRequest addItemRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
         log.info("Request to add item (Application ID: {}, Quantity: {}) to cart for user ID: {}",
                 addItemRequest.applicationId(), addItemRequest.quantity(), userId);
-        CartResponse updatedCart = cartService.addItemToCart(userId, addItemRequest);
+        CartResponse updatedCart = idempotencyStore.execute(userId, "addItem", idempotencyKey, addItemRequest,
+                () -> cartService.addItemToCart(userId, addItemRequest));
         return ResponseEntity.ok(updatedCart);
     }
 
@@ -62,11 +88,14 @@ public class CartController {
     public ResponseEntity<CartResponse> updateMyCartItemQuantity(
             @PathVariable String applicationId,
             @Valid @RequestBody UpdateCartItemQuantityRequest updateQuantityRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
         log.info("Request to update quantity of item (Application ID: {}) to {} for user ID: {}",
                 applicationId, updateQuantityRequest.newQuantity(), userId);
-        CartResponse updatedCart = cartService.updateCartItemQuantity(userId, applicationId, updateQuantityRequest);
+        CartResponse updatedCart = idempotencyStore.execute(userId, "updateItem", idempotencyKey,
+                List.of(applicationId, updateQuantityRequest),
+                () -> cartService.updateCartItemQuantity(userId, applicationId, updateQuantityRequest));
         return ResponseEntity.ok(updatedCart);
     }
 
@@ -77,10 +106,12 @@ public class CartController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<CartResponse> removeItemFromMyCart(
             @PathVariable String applicationId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
         log.info("Request to remove item (Application ID: {}) from cart for user ID: {}", applicationId, userId);
-        CartResponse updatedCart = cartService.removeItemFromCart(userId, applicationId);
+        CartResponse updatedCart = idempotencyStore.execute(userId, "removeItem", idempotencyKey, applicationId,
+                () -> cartService.removeItemFromCart(userId, applicationId));
         return ResponseEntity.ok(updatedCart);
     }
 
@@ -89,13 +120,120 @@ public class CartController {
      */
     @DeleteMapping("/mine")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<CartResponse> clearMyCart(@AuthenticationPrincipal Jwt jwt) {
+    public ResponseEntity<CartResponse> clearMyCart(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
         log.info("Request to clear cart for user ID: {}", userId);
-        CartResponse clearedCart = cartService.clearCart(userId);
+        CartResponse clearedCart = idempotencyStore.execute(userId, "clear", idempotencyKey, null,
+                () -> cartService.clearCart(userId));
         return ResponseEntity.ok(clearedCart);
     }
 
+    /**
+     * Freezes the authenticated user's cart into a short-lived, priced checkout snapshot.
+     * The returned checkoutId is passed to order-service, which creates the order from the snapshot in one call.
+     */
+    @PostMapping("/mine/checkout")
+    public ResponseEntity<CheckoutSnapshotResponse> checkoutMyCart(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        log.info("Request to check out cart for user ID: {}", userId);
+        CheckoutSnapshotResponse snapshot = idempotencyStore.execute(userId, "checkout", idempotencyKey, null,
+                () -> cartService.checkout(userId));
+        return ResponseEntity.ok(snapshot);
+    }
+
+    /**
+     * Returns a checkout snapshot owned by the caller. order-service calls this with the user's forwarded JWT.
+     */
+    @GetMapping("/checkouts/{checkoutId}")
+    public ResponseEntity<CheckoutSnapshotResponse> getCheckoutSnapshot(
+            @PathVariable String checkoutId,
+            @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        log.info("Request to get checkout snapshot {} for user ID: {}", checkoutId, userId);
+        CheckoutSnapshotResponse snapshot = cartService.getCheckoutSnapshot(checkoutId, userId);
+        return ResponseEntity.ok(snapshot);
+    }
+
+    /**
+     * Folds the guest cart identified by the X-Guest-Cart-Token header into the authenticated user's cart.
+     * Intended to be called once right after login; the guest cart is deleted afterwards.
+     */
+    @PostMapping("/mine/merge")
+    public ResponseEntity<CartResponse> mergeGuestCartIntoMyCart(
+            @RequestHeader(GUEST_TOKEN_HEADER) String guestToken,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        log.info("Request to merge guest cart into cart for user ID: {}", userId);
+        CartResponse mergedCart = idempotencyStore.execute(userId, "mergeGuestCart", idempotencyKey, guestToken,
+                () -> cartService.mergeGuestCart(guestToken, userId));
+        return ResponseEntity.ok(mergedCart);
+    }
+
+    // --- Guest Endpoints (no authentication; the opaque token in X-Guest-Cart-Token identifies the cart) ---
+
+    /**
+     * Issues a new guest cart token and returns an empty cart. Nothing is stored: the cart row is created by the
+     * first item added, so anonymous callers cannot create rows without adding a real application.
+     */
+    @PostMapping("/guest")
+    public ResponseEntity<CartResponse> createGuestCart() {
+        String guestToken = GuestCartTokens.newToken();
+        log.info("Issued new guest cart token.");
+        CartResponse cartResponse = cartService.getCartByUserId(GuestCartTokens.ownerIdFor(guestToken));
+        return ResponseEntity.ok().header(GUEST_TOKEN_HEADER, guestToken).body(cartResponse);
+    }
+
+    /**
+     * Returns the guest cart, or an empty one (null cartId) if nothing has been added yet. Never creates a cart.
+     */
+    @GetMapping("/guest")
+    public ResponseEntity<CartResponse> getGuestCart(@RequestHeader(GUEST_TOKEN_HEADER) String guestToken) {
+        CartResponse cartResponse = cartService.getCartByUserId(GuestCartTokens.ownerIdFor(guestToken));
+        return ResponseEntity.ok(cartResponse);
+    }
+
+    @PostMapping("/guest/items")
+    public ResponseEntity<CartResponse> addItemToGuestCart(
+            @RequestHeader(GUEST_TOKEN_HEADER) String guestToken,
+            @Valid @RequestBody AddItemToCartRequest addItemRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        log.info("Request to add item (Application ID: {}, Quantity: {}) to guest cart",
+                addItemRequest.applicationId(), addItemRequest.quantity());
+        String ownerId = GuestCartTokens.ownerIdFor(guestToken);
+        CartResponse updatedCart = idempotencyStore.execute(ownerId, "addItem", idempotencyKey, addItemRequest,
+                () -> cartService.addItemToCart(ownerId, addItemRequest));
+        return ResponseEntity.ok(updatedCart);
+    }
+
+    @PutMapping("/guest/items/{applicationId}")
+    public ResponseEntity<CartResponse> updateGuestCartItemQuantity(
+            @RequestHeader(GUEST_TOKEN_HEADER) String guestToken,
+            @PathVariable String applicationId,
+            @Valid @RequestBody UpdateCartItemQuantityRequest updateQuantityRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        String ownerId = GuestCartTokens.ownerIdFor(guestToken);
+        CartResponse updatedCart = idempotencyStore.execute(ownerId, "updateItem", idempotencyKey,
+                List.of(applicationId, updateQuantityRequest),
+                () -> cartService.updateCartItemQuantity(ownerId, applicationId, updateQuantityRequest));
+        return ResponseEntity.ok(updatedCart);
+    }
+
+    @DeleteMapping("/guest/items/{applicationId}")
+    public ResponseEntity<CartResponse> removeItemFromGuestCart(
+            @RequestHeader(GUEST_TOKEN_HEADER) String guestToken,
+            @PathVariable String applicationId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        String ownerId = GuestCartTokens.ownerIdFor(guestToken);
+        CartResponse updatedCart = idempotencyStore.execute(ownerId, "removeItem", idempotencyKey, applicationId,
+                () -> cartService.removeItemFromCart(ownerId, applicationId));
+        return ResponseEntity.ok(updatedCart);
+    }
+
     // --- Admin Endpoints (Example - secure these appropriately) ---
     // These would typically require an ADMIN role.
 
@@ -109,4 +247,66 @@ public class CartController {
         CartResponse cartResponse = cartService.getOrCreateCartByUserId(userId); // or a method that doesn't auto-create
         return ResponseEntity.ok(cartResponse);
     }
-}
\ No newline at end of file
+
+    /**
+     * Admin report of what is sitting in carts: one row per (applicationId, currency) with cart count, total quantity
+     * and pending revenue. Aggregated in SQL and streamed page by page as CSV (default) or NDJSON, so the export never
+     * holds more than one keyset page in memory. Pass the last row's applicationId/currency as
+     * afterApplicationId/afterCurrency to resume an interrupted export.
+     */
+    @GetMapping("/admin/analytics/applications")
+    @PreAuthorize("hasRole('ADMIN') or hasAuthority('SCOPE_read:carts:all')")
+    public ResponseEntity<StreamingResponseBody> streamApplicationAnalytics(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String afterApplicationId,
+            @RequestParam(required = false) String afterCurrency) {
+        boolean ndjson = switch (format.toLowerCase()) {
+            case "csv" -> false;
+            case "ndjson" -> true;
+            default -> throw new BadRequestException("Unsupported analytics format: " + format + ". Use csv or ndjson.");
+        };
+        log.info("Admin request to export cart analytics as {} (after: {}, {})", format, afterApplicationId, afterCurrency);
+
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            if (!ndjson) {
+                writer.write("application_id,application_name,currency,cart_count,total_quantity,pending_revenue\n");
+            }
+            try {
+                cartAnalyticsService.streamApplicationStats(afterApplicationId, afterCurrency, page -> {
+                    try {
+                        for (CartApplicationStatsResponse row : page) {
+                            writer.write(ndjson ? objectMapper.writeValueAsString(row) : toCsvRow(row));
+                            writer.write('\n');
+                        }
+                        writer.flush(); // Push each page to the client instead of buffering the whole report
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); // Client went away; stop querying
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? APPLICATION_NDJSON : TEXT_CSV)
+                .header("Content-Disposition", "attachment; filename=cart-analytics." + (ndjson ? "ndjson" : "csv"))
+                .body(body);
+    }
+
+    private static String toCsvRow(CartApplicationStatsResponse row) {
+        return csvField(row.applicationId()) + ',' + csvField(row.applicationName()) + ',' + csvField(row.currency()) + ','
+                + row.cartCount() + ',' + row.totalQuantity() + ',' + row.pendingRevenue().toPlainString();
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,15 @@
+package com.appverse.cart_service.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of the cart analytics report: how much of one application (in one currency) is sitting in carts.
+ */
+public record CartApplicationStatsResponse(
+    String applicationId,
+    String applicationName,
+    String currency,
+    long cartCount,
+    long totalQuantity,
+    BigDecimal pendingRevenue // Sum of quantity * unitPrice over non-free lines
+) {}
@@ -0,0 +1,13 @@
+package com.appverse.cart_service.dto;
+
+import java.math.BigDecimal;
+
+public record CheckoutSnapshotItemResponse(
+    String applicationId,
+    String applicationName,
+    int quantity,
+    BigDecimal unitPrice,
+    BigDecimal totalPrice,
+    String currency,
+    boolean isFree
+) {}
@@ -0,0 +1,17 @@
+package com.appverse.cart_service.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record CheckoutSnapshotResponse(
+    UUID checkoutId,
+    UUID cartId,
+    String userId,
+    List<CheckoutSnapshotItemResponse> items,
+    BigDecimal totalAmount,
+    String currency,
+    Instant createdAt,
+    Instant expiresAt
+) {}
@@ -0,0 +1,70 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.event;
+
+import com.appverse.cart_service.service.CartRepricingService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Consumes application events published by app-service and reprices cart lines when an application's price changes.
+ * <p>
+ * app-service publishes several payload types on the same topic, keyed by application ID. Only
+ * ApplicationPriceChanged (newPrice/newCurrency) and ApplicationUpdated (price/currency/isFree) carry prices;
+ * everything else is ignored.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ApplicationPriceEventListener {
+
+    private final CartRepricingService cartRepricingService;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+            topics = "application-events",
+            groupId = "cart-service-repricing",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void handleApplicationEvent(String messageJson) {
+        try {
+            JsonNode event = objectMapper.readTree(messageJson);
+            String applicationId = event.path("id").asText(null);
+            if (applicationId == null) {
+                return;
+            }
+
+            if (event.hasNonNull("newPrice") || event.hasNonNull("newCurrency")) {
+                // ApplicationPriceChangedPayload
+                cartRepricingService.repriceApplication(applicationId,
+                        decimalOrNull(event.get("newPrice")),
+                        event.path("newCurrency").asText(null),
+                        false);
+            } else if (event.has("price") && event.has("currency") && event.has("monetizationType")) {
+                // ApplicationUpdatedPayload ("isFree" may be serialized as "free" by Jackson)
+                boolean isFree = event.path("isFree").asBoolean(event.path("free").asBoolean(false));
+                cartRepricingService.repriceApplication(applicationId,
+                        decimalOrNull(event.get("price")),
+                        event.path("currency").asText(null),
+                        isFree);
+            } else {
+                log.trace("Ignoring application event without price fields for AppID {}", applicationId);
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Failed to deserialize application event JSON: {}", messageJson, e);
+        } catch (Exception e) {
+            log.error("Unexpected error while repricing carts for application event: {}", messageJson, e);
+        }
+    }
+
+    private static BigDecimal decimalOrNull(JsonNode node) {
+        return (node == null || node.isNull()) ? null : node.decimalValue();
+    }
+}
@@ -0,0 +1,237 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.event;
+
+import com.appverse.cart_service.event.payload.*;
+import com.appverse.cart_service.model.Cart;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes cart events to the cart-events topic, coalescing bursts of item-level events per cart.
+ * <p>
+ * Events are buffered per cart ID and flushed every {@code appverse.cart.events.coalesce-window-ms}.
+ * In {@link Mode#SNAPSHOT} mode (the default) a single {@link CartSnapshotPayload} with the final cart contents
+ * replaces the whole window. In {@link Mode#COMPACTED} mode the buffered sequence is folded to at most one event
+ * per application (plus a leading CartCleared if the cart was cleared in the window).
+ * <p>
+ * Everything is keyed by cart ID, so a cart's events stay in order. Only SNAPSHOT mode leaves the topic safe to
+ * log-compact: the latest record of a cart is then its full contents (or CartAbandoned once the sweeper deleted it).
+ * COMPACTED and NONE publish per-item deltas, and compaction would keep only a cart's last delta. Events published
+ * inside a transaction only enter the buffer once it commits.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CartEventPublisher {
+
+    public static final String CART_EVENTS_TOPIC = "cart-events";
+
+    public enum Mode {
+        NONE,      // Publish every event immediately (no coalescing)
+        COMPACTED, // Publish the compacted per-item event sequence
+        SNAPSHOT   // Publish a single CartSnapshot event per cart per window
+    }
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${appverse.cart.events.coalesce-mode:SNAPSHOT}")
+    private Mode mode;
+
+    @Value("${appverse.cart.events.coalesce-window-ms:500}")
+    private long coalesceWindowMs;
+
+    private final Map<String, PendingCartEvents> pendingByCartId = new ConcurrentHashMap<>();
+
+    private record QueuedEvent(String cartId, String userId, Object payload, List<CartSnapshotItemPayload> snapshotItems) {}
+
+    /**
+     * Queues a cart event for publishing. Must be called with the cart state after the mutation,
+     * so that snapshot mode captures the final items.
+     * <p>
+     * Inside a transaction the event is held until the transaction commits and dropped if it rolls back,
+     * so a failed or retried attempt never publishes anything.
+     */
+    public void publish(Cart cart, Object payload) {
+        // Captured now, while the cart's items are still loaded
+        List<CartSnapshotItemPayload> snapshotItems = mode == Mode.SNAPSHOT ? toSnapshotItems(cart) : null;
+        QueuedEvent event = new QueuedEvent(cart.getId().toString(), cart.getUserId(), payload, snapshotItems);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(event);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    log.debug("Dropped {} for Cart ID: {} (transaction rolled back)",
+                            payload.getClass().getSimpleName(), event.cartId());
+                }
+            }
+        });
+    }
+
+    private void enqueue(QueuedEvent event) {
+        if (mode == Mode.NONE || coalesceWindowMs <= 0) {
+            send(event.cartId(), event.payload());
+            return;
+        }
+        pendingByCartId.compute(event.cartId(), (id, pending) -> {
+            PendingCartEvents buffer = pending != null ? pending : new PendingCartEvents(event.userId());
+            buffer.eventCount++;
+            if (mode == Mode.SNAPSHOT) {
+                buffer.snapshotItems = event.snapshotItems();
+            } else {
+                buffer.fold(event.payload());
+            }
+            return buffer;
+        });
+        log.debug("Buffered {} for Cart ID: {} (mode {})", event.payload().getClass().getSimpleName(), event.cartId(), mode);
+    }
+
+    @Scheduled(fixedDelayString = "${appverse.cart.events.coalesce-window-ms:500}")
+    public void flush() {
+        for (String cartId : pendingByCartId.keySet()) {
+            PendingCartEvents pending = pendingByCartId.remove(cartId);
+            if (pending == null) {
+                continue;
+            }
+            if (mode == Mode.SNAPSHOT) {
+                send(cartId, new CartSnapshotPayload(cartId, pending.userId, pending.snapshotItems,
+                        pending.eventCount, Instant.now()));
+            } else {
+                List<Object> events = pending.compacted();
+                events.forEach(event -> send(cartId, event));
+                log.debug("Flushed {} compacted events (from {}) for Cart ID: {}", events.size(), pending.eventCount, cartId);
+            }
+        }
+    }
+
+    /**
+     * Sends an event straight away, bypassing the coalescing buffer. Used for bulk, non-interactive
+     * producers (e.g. the abandoned-cart sweeper) that need to know when the broker has acknowledged.
+     */
+    public CompletableFuture<SendResult<String, Object>> publishNow(String cartId, Object payload) {
+        return send(cartId, payload);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing {} buffered cart event windows before shutdown.", pendingByCartId.size());
+        flush();
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(String cartId, Object payload) {
+        String eventType = payload.getClass().getSimpleName();
+        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(CART_EVENTS_TOPIC, cartId, payload); // Key by cart ID
+        future.whenComplete((result, ex) -> {
+            if (ex == null) {
+                log.info("Published {} for Cart ID: {} (offset {}, partition {})", eventType, cartId,
+                        result.getRecordMetadata().offset(), result.getRecordMetadata().partition());
+            } else {
+                log.error("Failed to publish {} for Cart ID: {}: {}", eventType, cartId, ex.getMessage(), ex);
+            }
+        });
+        return future;
+    }
+
+    private static List<CartSnapshotItemPayload> toSnapshotItems(Cart cart) {
+        return cart.getItems().stream()
+                .map(item -> new CartSnapshotItemPayload(
+                        item.getId() != null ? item.getId().toString() : null,
+                        item.getApplicationId(),
+                        item.getApplicationName(),
+                        item.getQuantity(),
+                        item.getUnitPrice(),
+                        item.getCurrency()))
+                .toList();
+    }
+
+    /**
+     * Events buffered for one cart within the current window. Only mutated inside ConcurrentHashMap.compute.
+     */
+    private static final class PendingCartEvents {
+        private final String userId;
+        private int eventCount;
+        private CartClearedPayload clearEvent;
+        // Keyed by applicationId for item events; other events get a key of their own so they are never merged
+        private final Map<Object, Object> latestByKey = new LinkedHashMap<>();
+        private List<CartSnapshotItemPayload> snapshotItems = List.of();
+
+        private PendingCartEvents(String userId) {
+            this.userId = userId;
+        }
+
+        private void fold(Object payload) {
+            if (payload instanceof CartClearedPayload cleared) {
+                // A clear supersedes every item event that came before it in the window
+                latestByKey.clear();
+                clearEvent = cleared;
+            } else if (payload instanceof CartItemAddedPayload added) {
+                latestByKey.merge(added.applicationId(), added, PendingCartEvents::mergeItemEvents);
+            } else if (payload instanceof CartItemQuantityUpdatedPayload updated) {
+                latestByKey.merge(updated.applicationId(), updated, PendingCartEvents::mergeItemEvents);
+            } else if (payload instanceof CartItemRemovedPayload removed) {
+                latestByKey.put(removed.applicationId(), removed);
+            } else {
+                // Not an item event (e.g. CartMerged): pass it through unmerged, in order
+                latestByKey.put(new Object(), payload);
+            }
+        }
+
+        private static Object mergeItemEvents(Object previous, Object latest) {
+            if (previous instanceof CartItemAddedPayload p && latest instanceof CartItemAddedPayload l) {
+                return new CartItemAddedPayload(l.cartId(), l.userId(), l.cartItemId(), l.applicationId(),
+                        l.applicationName(), p.quantityAdded() + l.quantityAdded(), l.newTotalQuantity(),
+                        l.unitPrice(), l.currency(), l.eventTimestamp());
+            }
+            if (previous instanceof CartItemAddedPayload p && latest instanceof CartItemQuantityUpdatedPayload l) {
+                int quantityBefore = p.newTotalQuantity() - p.quantityAdded(); // 0 if the add created the line
+                int netAdded = l.newQuantity() - quantityBefore;
+                if (netAdded > 0) {
+                    // Still an add for consumers that never saw the item, carrying the final quantity
+                    return new CartItemAddedPayload(p.cartId(), p.userId(), p.cartItemId(), p.applicationId(),
+                            p.applicationName(), netAdded, l.newQuantity(), p.unitPrice(), p.currency(), l.eventTimestamp());
+                }
+                // Lowered to or below where the window started: an update of the line that already existed
+                return new CartItemQuantityUpdatedPayload(l.cartId(), l.userId(), l.cartItemId(), l.applicationId(),
+                        quantityBefore, l.newQuantity(), l.eventTimestamp());
+            }
+            if (previous instanceof CartItemQuantityUpdatedPayload p && latest instanceof CartItemQuantityUpdatedPayload l) {
+                return new CartItemQuantityUpdatedPayload(l.cartId(), l.userId(), l.cartItemId(), l.applicationId(),
+                        p.oldQuantity(), l.newQuantity(), l.eventTimestamp());
+            }
+            return latest; // Otherwise the most recent event carries the final state for the item
+        }
+
+        private List<Object> compacted() {
+            List<Object> events = new ArrayList<>(latestByKey.size() + 1);
+            if (clearEvent != null) {
+                events.add(clearEvent);
+            }
+            events.addAll(latestByKey.values());
+            return events;
+        }
+    }
+}
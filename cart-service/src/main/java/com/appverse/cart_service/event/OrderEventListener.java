@@ -0,0 +1,61 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.event;
+
+import com.appverse.cart_service.service.CartService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Clears checked-out lines from the cart once order-service confirms payment for an order that was
+ * created from a checkout snapshot (OrderPaymentSucceeded events carrying a checkoutId).
+ * <p>
+ * order-service's outbox relay names each record's type in the {@code eventType} header; every other type is
+ * skipped without parsing the payload.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderEventListener {
+
+    private static final String ORDER_PAYMENT_SUCCEEDED = "OrderPaymentSucceeded";
+
+    private final CartService cartService;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+            topics = "order-events",
+            groupId = "cart-service-checkout",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void handleOrderEvent(@Payload String messageJson,
+                                 @Header(name = "eventType", required = false) byte[] eventType) {
+        // Written by the relay as raw UTF-8 bytes, which the header mapper passes through unconverted
+        if (eventType == null || !ORDER_PAYMENT_SUCCEEDED.equals(new String(eventType, StandardCharsets.UTF_8))) {
+            return;
+        }
+        try {
+            JsonNode event = objectMapper.readTree(messageJson);
+            String checkoutId = event.path("checkoutId").asText(null);
+            if (checkoutId == null) {
+                return; // The order was not created from a checkout
+            }
+            log.info("Order {} confirmed for checkout {}. Clearing checked-out cart lines.",
+                    event.path("orderId").asText(), checkoutId);
+            cartService.completeCheckout(checkoutId);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to deserialize order event JSON: {}", messageJson, e);
+        } catch (Exception e) {
+            log.error("Unexpected error while completing checkout for order event: {}", messageJson, e);
+        }
+    }
+}
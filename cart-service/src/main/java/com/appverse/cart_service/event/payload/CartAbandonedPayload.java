@@ -0,0 +1,13 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.event.payload;
+
+import java.time.Instant;
+import java.util.List;
+
+public record CartAbandonedPayload(
+    String cartId,
+    String userId,
+    List<String> applicationIds, // Applications that were sitting in the cart
+    Instant lastActivityAt,      // carts.updated_at when the cart was swept
+    Instant eventTimestamp
+) {}
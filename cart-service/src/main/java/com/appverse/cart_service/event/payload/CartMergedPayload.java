@@ -0,0 +1,13 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.event.payload;
+
+import java.time.Instant;
+import java.util.List;
+
+public record CartMergedPayload(
+    String cartId,                   // The user's cart that received the items
+    String userId,
+    String guestCartId,              // The guest cart that was folded in and deleted
+    List<String> mergedApplicationIds,
+    Instant eventTimestamp
+) {}
@@ -0,0 +1,13 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.event.payload;
+
+import java.math.BigDecimal;
+
+public record CartSnapshotItemPayload(
+    String cartItemId,
+    String applicationId,
+    String applicationName,
+    int quantity,
+    BigDecimal unitPrice,
+    String currency
+) {}
@@ -0,0 +1,13 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.event.payload;
+
+import java.time.Instant;
+import java.util.List;
+
+public record CartSnapshotPayload(
+    String cartId,
+    String userId,
+    List<CartSnapshotItemPayload> items, // Full item list as of the last mutation in the window
+    int coalescedEventCount,             // How many item-level events this snapshot replaces
+    Instant eventTimestamp
+) {}
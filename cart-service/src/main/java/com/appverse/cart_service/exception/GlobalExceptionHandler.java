@@ -3,6 +3,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -37,6 +38,11 @@ public class GlobalExceptionHandler {
         return buildResponseEntity("A resource with the same key already exists.", HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<?> handleConcurrencyFailure(ConcurrencyFailureException ex) {
+        return buildResponseEntity("The cart was modified concurrently. Please retry.", HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleGeneralException(Exception ex) {
         return buildResponseEntity("An unexpected error occurred.", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -0,0 +1,170 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.idempotency;
+
+import com.appverse.cart_service.exception.BadRequestException;
+import com.appverse.cart_service.exception.DuplicateResourceException;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-evicted store of recent Idempotency-Key results for cart mutations.
+ * <p>
+ * The first request with a key runs the mutation; a retry with the same key (and the same request) gets the
+ * stored response without touching MySQL or Kafka. A retry that arrives while the first attempt is still running
+ * waits for its result instead of running concurrently, for at most {@code await-timeout} and with at most
+ * {@code max-waiters} retries waiting per key; beyond either limit the retry gets a 409 and can try again later.
+ * Failed attempts are not stored, so they can be retried.
+ * Keys are scoped per owner and operation, so one user's key can never replay another user's response.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    private record Entry(Object requestFingerprint, CompletableFuture<Object> result, long expiresAtNanos,
+                         AtomicInteger waiters) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>(); // TTL is uniform, so this is also expiry order
+    private final AtomicInteger insertionOrderSize = new AtomicInteger(); // ConcurrentLinkedQueue.size() is O(n)
+
+    @Value("${appverse.cart.idempotency.ttl:PT10M}")
+    private Duration ttl;
+
+    @Value("${appverse.cart.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${appverse.cart.idempotency.await-timeout:PT10S}")
+    private Duration awaitTimeout;
+
+    @Value("${appverse.cart.idempotency.max-waiters:8}")
+    private int maxWaiters;
+
+    /**
+     * Runs {@code operation} once per (owner, operation, key). Without a key the operation simply runs.
+     *
+     * @param ownerId            The cart owner (user ID or guest owner ID).
+     * @param operation          A stable name for the mutation, e.g. "addItem".
+     * @param idempotencyKey     The client-supplied Idempotency-Key header value (nullable).
+     * @param requestFingerprint The request payload; a reused key with a different payload is rejected.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String ownerId, String operation, String idempotencyKey, Object requestFingerprint, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > 255) {
+            throw new BadRequestException("Idempotency-Key must be at most 255 characters.");
+        }
+        evictExpired();
+
+        String storeKey = ownerId + '|' + operation + '|' + idempotencyKey;
+        Entry candidate = new Entry(requestFingerprint, new CompletableFuture<>(), System.nanoTime() + ttl.toNanos(),
+                new AtomicInteger());
+        Entry existing = entries.putIfAbsent(storeKey, candidate);
+
+        if (existing != null && existing.expiresAtNanos() - System.nanoTime() > 0) {
+            if (!Objects.equals(existing.requestFingerprint(), requestFingerprint)) {
+                throw new BadRequestException("Idempotency-Key was already used for a different request.");
+            }
+            log.info("Replaying stored result for {} with Idempotency-Key {} (owner {}).", operation, idempotencyKey, ownerId);
+            return (T) awaitResult(existing);
+        }
+        if (existing != null) {
+            // Expired but not yet evicted: take it over
+            if (!entries.replace(storeKey, existing, candidate)) {
+                return execute(ownerId, operation, idempotencyKey, requestFingerprint, action);
+            }
+        }
+        insertionOrder.add(storeKey);
+        insertionOrderSize.incrementAndGet();
+
+        try {
+            T result = action.get();
+            candidate.result().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            entries.remove(storeKey, candidate); // Do not remember failures; the client may retry
+            candidate.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Object awaitResult(Entry entry) {
+        CompletableFuture<Object> result = entry.result();
+        if (result.isDone()) {
+            return join(result);
+        }
+        if (entry.waiters().incrementAndGet() > maxWaiters) {
+            entry.waiters().decrementAndGet();
+            throw new DuplicateResourceException("A request with this Idempotency-Key is still in progress. Please retry later.");
+        }
+        try {
+            return result.get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DuplicateResourceException("A request with this Idempotency-Key is still in progress. Please retry later.");
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an in-flight idempotent request.", e);
+        } finally {
+            entry.waiters().decrementAndGet();
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Drops entries from the head of the insertion queue while they are expired or the store (or the queue itself,
+     * which also holds keys of failed attempts) is over capacity.
+     * Under capacity pressure the oldest keys are forgotten early, which only costs deduplication, never correctness.
+     */
+    private void evictExpired() {
+        long now = System.nanoTime();
+        String head;
+        while ((head = insertionOrder.peek()) != null) {
+            Entry entry = entries.get(head);
+            boolean expired = entry == null || entry.expiresAtNanos() - now <= 0;
+            if (!expired && entries.size() <= maxEntries && insertionOrderSize.get() <= maxEntries) {
+                return;
+            }
+            String evicted = insertionOrder.poll();
+            if (evicted == null) {
+                return;
+            }
+            insertionOrderSize.decrementAndGet();
+            Entry evictedEntry = entries.get(evicted);
+            if (evictedEntry != null) {
+                entries.remove(evicted, evictedEntry);
+            }
+        }
+    }
+}
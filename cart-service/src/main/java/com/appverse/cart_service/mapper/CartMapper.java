@@ -2,8 +2,12 @@ package com.appverse.cart_service.mapper;
 
 import com.appverse.cart_service.dto.CartItemResponse;
 import com.appverse.cart_service.dto.CartResponse;
+import com.appverse.cart_service.dto.CheckoutSnapshotItemResponse;
+import com.appverse.cart_service.dto.CheckoutSnapshotResponse;
 import com.appverse.cart_service.model.Cart;
 import com.appverse.cart_service.model.CartItem;
+import com.appverse.cart_service.model.CheckoutSnapshot;
+import com.appverse.cart_service.model.CheckoutSnapshotItem;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -18,4 +22,8 @@ public interface CartMapper {
 
     CartItemResponse toCartItemResponse(CartItem cartItem);
     List<CartItemResponse> toCartItemResponseList(List<CartItem> cartItems);
+
+    @Mapping(source = "id", target = "checkoutId")
+    CheckoutSnapshotResponse toCheckoutSnapshotResponse(CheckoutSnapshot snapshot);
+    CheckoutSnapshotItemResponse toCheckoutSnapshotItemResponse(CheckoutSnapshotItem item);
 }
\ No newline at end of file
@@ -2,22 +2,32 @@ package com.appverse.cart_service.model;
 
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.data.annotation.CreatedDate; // For JPA Auditing
 import org.springframework.data.annotation.LastModifiedDate; // For JPA Auditing
 import org.springframework.data.jpa.domain.support.AuditingEntityListener; // For JPA Auditing
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Entity
 @Table(name = "carts", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"user_id"}, name = "uk_cart_user_id") // Enforce one active cart per user
+}, indexes = {
+    @Index(name = "idx_cart_updated_at_id", columnList = "updated_at, id") // Keyset scans by the abandoned-cart sweeper
 })
 @Data
 @NoArgsConstructor
@@ -44,6 +54,15 @@ public class Cart {
     @Builder.Default // Initialize the list
     private List<CartItem> items = new ArrayList<>();
 
+    // Lazily built applicationId -> line index over 'items' (one line per app, see uk_cart_item_cart_application).
+    // Not persisted; kept in sync by addItem/removeItem/clearItems and dropped whenever the list is replaced.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Map<String, CartItem> itemIndex;
+
     @CreatedDate // Handled by JPA Auditing
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
@@ -52,6 +71,10 @@ public class Cart {
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
 
+    @Version // Optimistic locking for structural changes (adding/removing lines, clearing)
+    @Column(name = "version")
+    private Long version;
+
     // Optional: Cart Status
     // @Enumerated(EnumType.STRING)
     // @Column(name = "cart_status", length = 20)
@@ -61,10 +84,56 @@ public class Cart {
     public void addItem(CartItem item) {
         items.add(item);
         item.setCart(this);
+        if (itemIndex != null) {
+            itemIndex.put(item.getApplicationId(), item);
+        }
     }
 
     public void removeItem(CartItem item) {
         items.remove(item);
         item.setCart(null);
+        if (itemIndex != null) {
+            itemIndex.remove(item.getApplicationId(), item);
+        }
+    }
+
+    public void clearItems() {
+        items.clear(); // orphanRemoval deletes the rows
+        itemIndex = null;
+    }
+
+    public void setItems(List<CartItem> items) {
+        this.items = items;
+        this.itemIndex = null;
+    }
+
+    /**
+     * Drops the index so the next findItem rebuilds it from 'items'. Needed after saving a cart with new lines:
+     * the merge replaces those lines in 'items' with managed copies (which carry the generated IDs), leaving the
+     * index pointing at the transient originals.
+     */
+    public void resetItemIndex() {
+        itemIndex = null;
+    }
+
+    /**
+     * Finds the line for an application in O(1). The index is built on first use from the (lazily loaded) items,
+     * so mutate items through addItem/removeItem/clearItems rather than through getItems().
+     */
+    public Optional<CartItem> findItem(String applicationId) {
+        if (itemIndex == null) {
+            Map<String, CartItem> index = new HashMap<>(Math.max(16, items.size() * 4 / 3 + 1));
+            for (CartItem item : items) {
+                index.putIfAbsent(item.getApplicationId(), item);
+            }
+            itemIndex = index;
+        }
+        return Optional.ofNullable(itemIndex.get(applicationId));
+    }
+
+    // Item changes live on the inverse side of the relationship and do not dirty the cart row by themselves,
+    // so mutations call this to keep updated_at (used for abandoned-cart detection) accurate.
+    public void touch() {
+        this.updatedAt = Instant.now();
     }
 }
\ No newline at end of file
@@ -12,7 +12,11 @@ import java.time.Instant;
 import java.util.UUID; // For a potential CartItem specific ID
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"cart_id", "application_id"}, name = "uk_cart_item_cart_application") // One line per app per cart
+}, indexes = {
+    @Index(name = "idx_cart_item_application_id", columnList = "application_id") // applicationId -> carts, used by repricing
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -55,6 +59,10 @@ public class CartItem {
     @Column(name = "added_at", nullable = false)
     private Instant addedAt;
 
+    @Version // Optimistic locking: absolute quantity updates fail instead of overwriting a concurrent change
+    @Column(name = "version")
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         if (addedAt == null) {
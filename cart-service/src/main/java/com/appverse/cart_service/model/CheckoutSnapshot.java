@@ -0,0 +1,72 @@
+package com.appverse.cart_service.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable, priced copy of a cart taken at checkout. order-service creates the order from this snapshot
+ * in a single call instead of re-pricing every item through app-service. Expires after a short TTL and is consumed
+ * by the first order confirmed from it.
+ */
+@Entity
+@Immutable
+@Table(name = "cart_checkout_snapshots", indexes = {
+    @Index(name = "idx_checkout_snapshot_expires_at", columnList = "expires_at")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckoutSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "cart_id", nullable = false)
+    private UUID cartId;
+
+    @Column(name = "user_id", nullable = false, length = 255)
+    private String userId;
+
+    @JdbcTypeCode(SqlTypes.JSON) // Items are only ever read back as a whole, so one JSON column avoids a child table
+    @Column(name = "items", nullable = false)
+    private List<CheckoutSnapshotItem> items;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal totalAmount;
+
+    @Column(nullable = false, length = 10)
+    private String currency;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false, updatable = false)
+    private Instant expiresAt;
+
+    // Set once by CheckoutSnapshotRepository.markConsumed (the entity is immutable); a consumed snapshot is never
+    // served or completed again
+    @Column(name = "consumed_at")
+    private Instant consumedAt;
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    public boolean isConsumed() {
+        return consumedAt != null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.appverse.cart_service.model;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * One priced line of a {@link CheckoutSnapshot}. Stored as part of the snapshot's JSON items column.
+ */
+public record CheckoutSnapshotItem(
+    String applicationId,
+    String applicationName,
+    int quantity,
+    BigDecimal unitPrice,
+    BigDecimal totalPrice,
+    String currency,
+    boolean isFree,
+    UUID cartItemId // The cart line this was taken from; only that line is removed when the checkout completes
+) {}
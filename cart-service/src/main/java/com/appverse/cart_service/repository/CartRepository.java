@@ -2,9 +2,19 @@ package com.appverse.cart_service.repository;
 
 
 import com.appverse.cart_service.model.Cart;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -20,4 +30,162 @@ public interface CartRepository extends JpaRepository<Cart, UUID> {
      */
     Optional<Cart> findByUserId(String userId);
 
-}
\ No newline at end of file
+    // --- Abandoned-cart sweeping (keyset paged on (updated_at, id)) ---
+
+    interface IdleCartView {
+        UUID getId();
+        String getUserId();
+        Instant getUpdatedAt();
+    }
+
+    interface CartApplicationView {
+        UUID getCartId();
+        String getApplicationId();
+    }
+
+    /**
+     * Returns the next page of carts idle since before {@code cutoff}, strictly after the keyset position
+     * ({@code afterUpdatedAt}, {@code afterId}). Served by idx_cart_updated_at_id; the page size comes from {@code pageable}.
+     */
+    @Query("select c.id as id, c.userId as userId, c.updatedAt as updatedAt from Cart c " +
+           "where c.updatedAt < :cutoff " +
+           "and (c.updatedAt > :afterUpdatedAt or (c.updatedAt = :afterUpdatedAt and c.id > :afterId)) " +
+           "order by c.updatedAt asc, c.id asc")
+    List<IdleCartView> findIdleCartsAfter(@Param("cutoff") Instant cutoff,
+                                          @Param("afterUpdatedAt") Instant afterUpdatedAt,
+                                          @Param("afterId") UUID afterId,
+                                          Pageable pageable);
+
+    long countByUpdatedAtBefore(Instant cutoff);
+
+    /**
+     * Locks the carts of {@code cartIds} that are still idle since before {@code cutoff} and returns their IDs.
+     * A concurrent mutation of a locked cart waits for the sweep's commit and then finds the cart gone.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c.id from Cart c where c.id in :cartIds and c.updatedAt < :cutoff")
+    List<UUID> lockIdleCarts(@Param("cartIds") Collection<UUID> cartIds, @Param("cutoff") Instant cutoff);
+
+    @Query("select ci.cart.id as cartId, ci.applicationId as applicationId from CartItem ci where ci.cart.id in :cartIds")
+    List<CartApplicationView> findApplicationIdsByCartIds(@Param("cartIds") Collection<UUID> cartIds);
+
+    /**
+     * Deletes the items of the given carts, skipping any cart that has been touched since {@code cutoff}.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from CartItem ci where ci.cart.id in " +
+           "(select c.id from Cart c where c.id in :cartIds and c.updatedAt < :cutoff)")
+    int deleteItemsOfIdleCarts(@Param("cartIds") Collection<UUID> cartIds, @Param("cutoff") Instant cutoff);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from Cart c where c.id in :cartIds and c.updatedAt < :cutoff")
+    int deleteIdleCarts(@Param("cartIds") Collection<UUID> cartIds, @Param("cutoff") Instant cutoff);
+
+    // --- Repricing ---
+
+    /**
+     * Set-based repricing of every cart line for one application. Rows already at the target price are not touched.
+     *
+     * @return the number of cart_items rows updated.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update CartItem ci set ci.unitPrice = :unitPrice, ci.currency = :currency, ci.isFree = :isFree, " +
+           "ci.version = coalesce(ci.version, 0) + 1 " +
+           "where ci.applicationId = :applicationId " +
+           "and (ci.unitPrice <> :unitPrice or ci.currency <> :currency or ci.isFree <> :isFree)")
+    int repriceItemsForApplication(@Param("applicationId") String applicationId,
+                                   @Param("unitPrice") BigDecimal unitPrice,
+                                   @Param("currency") String currency,
+                                   @Param("isFree") boolean isFree);
+
+    // --- Conflict-free concurrent updates ---
+
+    /**
+     * Merges a quantity delta into an existing cart line as a relative increment ({@code quantity = quantity + delta}),
+     * so concurrent adds of the same application commute instead of overwriting each other. The item version is
+     * bumped so that a concurrent absolute update (which goes through the entity's @Version check) still conflicts.
+     *
+     * @return the number of rows updated (0 if the line does not exist).
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update CartItem ci set ci.quantity = ci.quantity + :delta, ci.addedAt = :now, " +
+           "ci.version = coalesce(ci.version, 0) + 1 " +
+           "where ci.cart.id = :cartId and ci.applicationId = :applicationId")
+    int incrementItemQuantity(@Param("cartId") UUID cartId,
+                              @Param("applicationId") String applicationId,
+                              @Param("delta") int delta,
+                              @Param("now") Instant now);
+
+    /**
+     * Bumps updated_at without incrementing the cart version, so relative item increments do not conflict with each other.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update Cart c set c.updatedAt = :now where c.id = :cartId")
+    int touchCart(@Param("cartId") UUID cartId, @Param("now") Instant now);
+
+    // --- Guest cart merge ---
+
+    /**
+     * Folds every line of {@code sourceCartId} into {@code targetCartId} with a single bulk upsert on
+     * uk_cart_item_cart_application: new applications are inserted, existing ones get the guest quantity added.
+     * MySQL-specific (INSERT ... SELECT ... ON DUPLICATE KEY UPDATE).
+     *
+     * @return MySQL's affected-rows count (1 per inserted line, 2 per merged line).
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = "INSERT INTO cart_items (id, cart_id, application_id, application_name, quantity, unit_price, " +
+                   "currency, is_free, thumbnail_url, added_at, version) " +
+                   "SELECT UUID_TO_BIN(UUID()), :targetCartId, g.application_id, g.application_name, g.quantity, g.unit_price, " +
+                   "g.currency, g.is_free, g.thumbnail_url, :now, 0 " +
+                   "FROM cart_items g WHERE g.cart_id = :sourceCartId " +
+                   "ON DUPLICATE KEY UPDATE quantity = cart_items.quantity + VALUES(quantity), " +
+                   "added_at = VALUES(added_at), version = COALESCE(cart_items.version, 0) + 1",
+           nativeQuery = true)
+    int upsertItemsFromCart(@Param("sourceCartId") UUID sourceCartId,
+                            @Param("targetCartId") UUID targetCartId,
+                            @Param("now") Instant now);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from CartItem ci where ci.cart.id = :cartId")
+    int deleteItemsByCartId(@Param("cartId") UUID cartId);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from Cart c where c.id = :cartId")
+    int deleteCartById(@Param("cartId") UUID cartId);
+
+    // --- Analytics (aggregated in SQL, keyset paged on the group key) ---
+
+    interface ApplicationCartStatsView {
+        String getApplicationId();
+        String getApplicationName();
+        String getCurrency();
+        Long getCartCount();
+        Long getTotalQuantity();
+        BigDecimal getPendingRevenue();
+    }
+
+    /**
+     * Groups cart_items by (applicationId, currency) and returns the groups strictly after the keyset position
+     * ({@code afterApplicationId}, {@code afterCurrency}). The keyset predicate is on the group key, so it is
+     * applied before grouping and each page only aggregates its own rows (walking idx_cart_item_application_id).
+     * A cart holds at most one line per application, so the line count is the cart count.
+     * A null {@code afterCurrency} resumes after every group of {@code afterApplicationId}.
+     */
+    @Query("select ci.applicationId as applicationId, max(ci.applicationName) as applicationName, " +
+           "ci.currency as currency, count(ci) as cartCount, sum(ci.quantity) as totalQuantity, " +
+           "sum(case when ci.isFree = false then ci.quantity * ci.unitPrice else 0 end) as pendingRevenue " +
+           "from CartItem ci " +
+           "where ci.applicationId > :afterApplicationId " +
+           "or (:afterCurrency is not null and ci.applicationId = :afterApplicationId and ci.currency > :afterCurrency) " +
+           "group by ci.applicationId, ci.currency " +
+           "order by ci.applicationId asc, ci.currency asc")
+    List<ApplicationCartStatsView> aggregateItemsByApplicationAfter(@Param("afterApplicationId") String afterApplicationId,
+                                                                    @Param("afterCurrency") String afterCurrency,
+                                                                    Pageable pageable);
+
+    // --- Checkout completion ---
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from CartItem ci where ci.cart.id = :cartId and ci.id in :itemIds")
+    int deleteItemsByCartIdAndIds(@Param("cartId") UUID cartId, @Param("itemIds") Collection<UUID> itemIds);
+}
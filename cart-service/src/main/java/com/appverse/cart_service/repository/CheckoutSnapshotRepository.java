@@ -0,0 +1,30 @@
+package com.appverse.cart_service.repository;
+
+
+import com.appverse.cart_service.model.CheckoutSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Repository
+public interface CheckoutSnapshotRepository extends JpaRepository<CheckoutSnapshot, UUID> {
+
+    /**
+     * Marks a snapshot consumed unless it already is (native: the entity is immutable to Hibernate).
+     *
+     * @return 1 for the caller that consumed it, 0 if it was consumed before or does not exist.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = "UPDATE cart_checkout_snapshots SET consumed_at = :now WHERE id = :id AND consumed_at IS NULL",
+           nativeQuery = true)
+    int markConsumed(@Param("id") UUID id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from CheckoutSnapshot s where s.expiresAt < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,183 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.scheduler;
+
+import com.appverse.cart_service.event.CartEventPublisher;
+import com.appverse.cart_service.event.payload.CartAbandonedPayload;
+import com.appverse.cart_service.repository.CartRepository;
+import com.appverse.cart_service.repository.CartRepository.IdleCartView;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Expires carts that have been idle (no mutation, see {@code Cart.touch()}) for longer than
+ * {@code appverse.cart.sweeper.idle-threshold}.
+ * <p>
+ * Idle carts are read in keyset pages on (updated_at, id). Each page is deleted in its own short transaction: the carts
+ * still idle are locked, then removed with two set-based statements, so a cart touched after being selected is kept.
+ * Once that commits, a CartAbandoned event is published for every removed cart (all sends in flight together, then
+ * awaited). A failed send is logged; the cart is not restored.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "appverse.cart.sweeper.enabled", havingValue = "true", matchIfMissing = true)
+public class AbandonedCartSweeper {
+
+    private final CartRepository cartRepository;
+    private final CartEventPublisher cartEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter cartsSweptCounter;
+    private final Counter itemsDeletedCounter;
+    private final Counter eventsPublishedCounter;
+    private final Timer batchTimer;
+    private final AtomicLong backlog = new AtomicLong();
+
+    @Value("${appverse.cart.sweeper.idle-threshold:P30D}")
+    private Duration idleThreshold;
+
+    @Value("${appverse.cart.sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Value("${appverse.cart.sweeper.max-batches-per-run:100}")
+    private int maxBatchesPerRun;
+
+    @Value("${appverse.cart.sweeper.publish-timeout-ms:30000}")
+    private long publishTimeoutMs;
+
+    public AbandonedCartSweeper(CartRepository cartRepository,
+                                CartEventPublisher cartEventPublisher,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry) {
+        this.cartRepository = cartRepository;
+        this.cartEventPublisher = cartEventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.cartsSweptCounter = Counter.builder("cart.sweeper.carts.swept")
+                .description("Abandoned carts deleted by the sweeper").register(meterRegistry);
+        this.itemsDeletedCounter = Counter.builder("cart.sweeper.items.deleted")
+                .description("Cart items deleted together with abandoned carts").register(meterRegistry);
+        this.eventsPublishedCounter = Counter.builder("cart.sweeper.events.published")
+                .description("CartAbandoned events published").register(meterRegistry);
+        this.batchTimer = Timer.builder("cart.sweeper.batch")
+                .description("Time to delete and announce one keyset page of abandoned carts").register(meterRegistry);
+        Gauge.builder("cart.sweeper.backlog", backlog, AtomicLong::get)
+                .description("Idle carts past the threshold at the start of the last sweep").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${appverse.cart.sweeper.fixed-delay-ms:900000}",
+               initialDelayString = "${appverse.cart.sweeper.initial-delay-ms:60000}")
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(idleThreshold);
+        backlog.set(cartRepository.countByUpdatedAtBefore(cutoff));
+        log.info("Abandoned-cart sweep starting. Cutoff: {}, backlog: {} carts.", cutoff, backlog.get());
+
+        Instant afterUpdatedAt = Instant.EPOCH;
+        UUID afterId = new UUID(0L, 0L);
+        int batches = 0;
+        long swept = 0;
+
+        while (batches < maxBatchesPerRun) {
+            List<IdleCartView> page = cartRepository.findIdleCartsAfter(
+                    cutoff, afterUpdatedAt, afterId, PageRequest.ofSize(batchSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            try {
+                swept += batchTimer.recordCallable(() -> processBatch(page, cutoff));
+            } catch (InterruptedException e) {
+                // Shutting down while awaiting the batch's events: keep the flag set for the scheduler and stop
+                Thread.currentThread().interrupt();
+                log.warn("Abandoned-cart sweep interrupted after {} batches.", batches);
+                break;
+            } catch (Exception e) {
+                // Leave the rest for the next run; rows of this page were not deleted unless the delete committed.
+                log.error("Abandoned-cart sweep aborted after {} batches: {}", batches, e.getMessage(), e);
+                break;
+            }
+            IdleCartView last = page.get(page.size() - 1);
+            afterUpdatedAt = last.getUpdatedAt();
+            afterId = last.getId();
+            batches++;
+            if (page.size() < batchSize) {
+                break;
+            }
+        }
+        backlog.addAndGet(-swept);
+        log.info("Abandoned-cart sweep finished. {} carts swept in {} batches.", swept, batches);
+    }
+
+    private record SweptBatch(Map<UUID, List<String>> applicationIdsByCart, int itemsDeleted) {}
+
+    private int processBatch(List<IdleCartView> page, Instant cutoff) throws InterruptedException {
+        List<UUID> cartIds = page.stream().map(IdleCartView::getId).toList();
+        Map<UUID, IdleCartView> pageById = page.stream().collect(Collectors.toMap(IdleCartView::getId, cart -> cart));
+
+        // Lock the carts that are still idle and delete exactly those; touched carts are left alone
+        SweptBatch swept;
+        try {
+            swept = transactionTemplate.execute(status -> {
+                List<UUID> stillIdle = cartRepository.lockIdleCarts(cartIds, cutoff);
+                if (stillIdle.isEmpty()) {
+                    return new SweptBatch(Map.of(), 0);
+                }
+                Map<UUID, List<String>> applicationIdsByCart = new HashMap<>();
+                stillIdle.forEach(cartId -> applicationIdsByCart.put(cartId, new ArrayList<>()));
+                cartRepository.findApplicationIdsByCartIds(stillIdle).forEach(view ->
+                        applicationIdsByCart.get(view.getCartId()).add(view.getApplicationId()));
+                int items = cartRepository.deleteItemsOfIdleCarts(stillIdle, cutoff);
+                int carts = cartRepository.deleteIdleCarts(stillIdle, cutoff);
+                log.debug("Swept {} carts ({} items) ending at keyset position {}.", carts, items, cartIds.get(cartIds.size() - 1));
+                return new SweptBatch(applicationIdsByCart, items);
+            });
+        } catch (DataAccessException e) {
+            log.error("Database error deleting abandoned carts batch: {}", e.getMessage(), e);
+            throw e;
+        }
+        Map<UUID, List<String>> removed = swept.applicationIdsByCart();
+        cartsSweptCounter.increment(removed.size());
+        itemsDeletedCounter.increment(swept.itemsDeleted());
+
+        // Committed: announce exactly the carts that were removed. All sends in flight together, then awaited.
+        Instant now = Instant.now();
+        List<CompletableFuture<?>> sends = new ArrayList<>(removed.size());
+        removed.forEach((cartId, applicationIds) -> sends.add(cartEventPublisher.publishNow(cartId.toString(),
+                new CartAbandonedPayload(
+                        cartId.toString(),
+                        pageById.get(cartId).getUserId(),
+                        applicationIds,
+                        pageById.get(cartId).getUpdatedAt(),
+                        now))));
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(publishTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // The carts are already gone; the send failures are logged per event by the publisher
+            log.error("Not every CartAbandoned event of the batch was acknowledged: {}", e.getMessage());
+        }
+        eventsPublishedCounter.increment(sends.stream().filter(send -> send.isDone() && !send.isCompletedExceptionally()).count());
+        return removed.size();
+    }
+}
@@ -0,0 +1,32 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.scheduler;
+
+import com.appverse.cart_service.repository.CheckoutSnapshotRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Deletes checkout snapshots past their TTL in one set-based statement (served by idx_checkout_snapshot_expires_at).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutSnapshotCleaner {
+
+    private final CheckoutSnapshotRepository checkoutSnapshotRepository;
+
+    @Scheduled(fixedDelayString = "${appverse.cart.checkout.cleanup-delay-ms:60000}")
+    @Transactional
+    public void deleteExpiredSnapshots() {
+        int deleted = checkoutSnapshotRepository.deleteExpiredBefore(Instant.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired checkout snapshots.", deleted);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.appverse.cart_service.service;
+
+import com.appverse.cart_service.dto.CartApplicationStatsResponse;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface CartAnalyticsService {
+
+    /**
+     * Aggregates cart_items per (applicationId, currency) in the database and hands the rows to {@code pageSink}
+     * one keyset page at a time, in (applicationId, currency) order. Only one page is held in memory at once.
+     *
+     * @param afterApplicationId Resume strictly after this application ID (null to start from the beginning).
+     * @param afterCurrency Currency of the last row already received for {@code afterApplicationId} (null for none).
+     * @param pageSink Receives each non-empty page; exceptions it throws abort the scan.
+     * @return The total number of rows produced.
+     */
+    long streamApplicationStats(String afterApplicationId, String afterCurrency,
+                                Consumer<List<CartApplicationStatsResponse>> pageSink);
+}
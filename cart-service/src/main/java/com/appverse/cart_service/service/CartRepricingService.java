@@ -0,0 +1,19 @@
+package com.appverse.cart_service.service;
+
+import java.math.BigDecimal;
+
+public interface CartRepricingService {
+
+    /**
+     * Applies a new price for an application to every cart line that contains it, using one set-based
+     * UPDATE for the application. Prices already applied (tracked in an in-memory price snapshot per
+     * application) are skipped without touching the database.
+     *
+     * @param applicationId The ID of the application whose price changed.
+     * @param newPrice The new unit price (null is treated as zero).
+     * @param currency The currency of the new price.
+     * @param isFree Whether the application is now free.
+     * @return The number of cart items that were repriced.
+     */
+    int repriceApplication(String applicationId, BigDecimal newPrice, String currency, boolean isFree);
+}
@@ -2,9 +2,9 @@ package com.appverse.cart_service.service;
 
 import com.appverse.cart_service.dto.AddItemToCartRequest; // Assuming you have this DTO
 import com.appverse.cart_service.dto.CartResponse;         // Assuming you have this DTO
+import com.appverse.cart_service.dto.CheckoutSnapshotResponse;
 import com.appverse.cart_service.dto.UpdateCartItemQuantityRequest; // Assuming
 
-import java.util.UUID;
 
 public interface CartService {
 
@@ -16,6 +16,15 @@ public interface CartService {
      */
     CartResponse getOrCreateCartByUserId(String userId);
 
+    /**
+     * Retrieves a user's cart without creating one. A user without a cart gets an empty, unsaved cart
+     * (null cartId); the row is only inserted by the first item added.
+     *
+     * @param userId The cart owner ID (Keycloak User ID or guest owner ID).
+     * @return The CartResponse DTO for the user's cart, or an empty one.
+     */
+    CartResponse getCartByUserId(String userId);
+
     /**
      * Adds an item (application) to the specified user's cart or updates its quantity if it already exists.
      *
@@ -59,13 +68,42 @@ public interface CartService {
     CartResponse clearCart(String userId);
 
     /**
-     * Merges a guest cart (identified by a guest cart ID) into a logged-in user's cart.
-     * The guest cart is typically deleted after a successful merge.
-     * (This is a more advanced feature if you support guest checkouts/carts)
+     * Merges a guest cart (identified by its opaque guest token) into a logged-in user's cart.
+     * All guest lines are upserted into the user's cart in one statement (quantities of apps present in both
+     * carts are added together) and the guest cart is deleted, all in a single transaction.
      *
-     * @param guestCartId The ID of the guest cart.
+     * @param guestToken The opaque guest cart token held by the client.
      * @param userId The Keycloak User ID of the logged-in user.
      * @return The merged and updated CartResponse DTO for the user.
+     * @throws com.appverse.cart_service.exception.BadRequestException if the guest token is malformed.
+     */
+    CartResponse mergeGuestCart(String guestToken, String userId);
+
+    /**
+     * Freezes the user's cart into an immutable, priced checkout snapshot with a short TTL.
+     * The cart itself is left untouched until the order created from the snapshot is confirmed.
+     *
+     * @param userId The Keycloak User ID of the cart owner.
+     * @return The snapshot, including its checkout ID and expiry.
+     * @throws com.appverse.cart_service.exception.BadRequestException if the cart is empty or mixes currencies.
+     */
+    CheckoutSnapshotResponse checkout(String userId);
+
+    /**
+     * Returns a non-expired checkout snapshot owned by the given user (used by order-service in a single call).
+     *
+     * @param checkoutId The snapshot ID returned by {@link #checkout(String)}.
+     * @param userId The Keycloak User ID of the caller; must own the snapshot.
+     * @throws com.appverse.cart_service.exception.ResourceNotFoundException if missing, expired or not owned by the user.
+     */
+    CheckoutSnapshotResponse getCheckoutSnapshot(String checkoutId, String userId);
+
+    /**
+     * Called once the order created from a snapshot is confirmed: marks the snapshot consumed and removes the
+     * cart lines it was taken from (by line ID), in one transaction. Lines added to the cart after checkout are kept,
+     * and a consumed snapshot can no longer be fetched or completed again. Idempotent.
+     *
+     * @param checkoutId The snapshot ID recorded on the confirmed order.
      */
-    // CartResponse mergeGuestCart(UUID guestCartId, String userId); // Example for guest cart merging
-}
\ No newline at end of file
+    void completeCheckout(String checkoutId);
+}
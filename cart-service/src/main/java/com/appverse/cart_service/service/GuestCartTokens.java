@@ -0,0 +1,40 @@
+package com.appverse.cart_service.service;
+
+import com.appverse.cart_service.exception.BadRequestException;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Guest carts live in the same carts table as user carts. Their owner ID is the opaque guest token
+ * prefixed with {@value #GUEST_OWNER_PREFIX}, which can never collide with a Keycloak subject (a UUID).
+ */
+public final class GuestCartTokens {
+
+    public static final String GUEST_OWNER_PREFIX = "guest:";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Pattern TOKEN_FORMAT = Pattern.compile("^[A-Za-z0-9_-]{43}$"); // 32 random bytes, base64url
+
+    private GuestCartTokens() {
+    }
+
+    public static String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Maps a client-supplied guest token to the owner ID stored in carts.user_id.
+     *
+     * @throws BadRequestException if the token is missing or malformed.
+     */
+    public static String ownerIdFor(String guestToken) {
+        if (guestToken == null || !TOKEN_FORMAT.matcher(guestToken).matches()) {
+            throw new BadRequestException("Invalid guest cart token.");
+        }
+        return GUEST_OWNER_PREFIX + guestToken;
+    }
+}
@@ -0,0 +1,85 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.service.serviceImpl;
+
+import com.appverse.cart_service.dto.CartApplicationStatsResponse;
+import com.appverse.cart_service.exception.DatabaseOperationException;
+import com.appverse.cart_service.repository.CartRepository;
+import com.appverse.cart_service.repository.CartRepository.ApplicationCartStatsView;
+import com.appverse.cart_service.service.CartAnalyticsService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartAnalyticsServiceImpl implements CartAnalyticsService {
+
+    private final CartRepository cartRepository;
+
+    @Value("${appverse.cart.analytics.page-size:500}")
+    private int pageSize;
+
+    // No surrounding transaction on purpose: each page is its own short read, so a long export never pins a
+    // connection or a consistent-read snapshot while the client is slowly consuming the stream.
+    @Override
+    public long streamApplicationStats(String afterApplicationId, String afterCurrency,
+                                       Consumer<List<CartApplicationStatsResponse>> pageSink) {
+        String applicationIdCursor = afterApplicationId != null ? afterApplicationId : "";
+        // Null resumes after the whole application, so a cursor without a currency never re-emits its groups
+        String currencyCursor = afterApplicationId != null ? afterCurrency : "";
+        long rows = 0;
+
+        while (true) {
+            List<ApplicationCartStatsView> page;
+            try {
+                page = cartRepository.aggregateItemsByApplicationAfter(
+                        applicationIdCursor, currencyCursor, PageRequest.ofSize(pageSize));
+            } catch (DataAccessException e) {
+                log.error("Database error aggregating cart analytics after ({}, {}): {}",
+                        applicationIdCursor, currencyCursor, e.getMessage(), e);
+                throw new DatabaseOperationException("Could not aggregate cart analytics. " + e.getMessage() + e);
+            }
+            if (page.isEmpty()) {
+                break;
+            }
+
+            pageSink.accept(page.stream().map(CartAnalyticsServiceImpl::toResponse).toList());
+            rows += page.size();
+
+            ApplicationCartStatsView last = page.get(page.size() - 1);
+            if (Objects.equals(applicationIdCursor, last.getApplicationId())
+                    && Objects.equals(currencyCursor, last.getCurrency())) {
+                log.warn("Cart analytics cursor did not advance past ({}, {}). Stopping the export.",
+                        applicationIdCursor, currencyCursor);
+                break;
+            }
+            applicationIdCursor = last.getApplicationId();
+            currencyCursor = last.getCurrency();
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+        log.info("Cart analytics export produced {} rows.", rows);
+        return rows;
+    }
+
+    private static CartApplicationStatsResponse toResponse(ApplicationCartStatsView view) {
+        return new CartApplicationStatsResponse(
+                view.getApplicationId(),
+                view.getApplicationName(),
+                view.getCurrency(),
+                view.getCartCount() != null ? view.getCartCount() : 0L,
+                view.getTotalQuantity() != null ? view.getTotalQuantity() : 0L,
+                view.getPendingRevenue() != null ? view.getPendingRevenue() : BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,80 @@
+// === In cart-service Project ===
+package com.appverse.cart_service.service.serviceImpl;
+
+import com.appverse.cart_service.exception.DatabaseOperationException;
+import com.appverse.cart_service.repository.CartRepository;
+import com.appverse.cart_service.service.CartRepricingService;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+@Service
+@Slf4j
+public class CartRepricingServiceImpl implements CartRepricingService {
+
+    private final CartRepository cartRepository;
+
+    // Last price applied per applicationId. ApplicationUpdated events fire for any field change,
+    // so this lets us skip the UPDATE entirely when the price did not actually move. Bounded in size and age, so it
+    // cannot grow with the catalogue.
+    private final Cache<String, PriceSnapshot> priceSnapshots;
+
+    public CartRepricingServiceImpl(CartRepository cartRepository,
+                                    @Value("${appverse.cart.repricing.snapshot-max-size:50000}") long snapshotMaxSize,
+                                    @Value("${appverse.cart.repricing.snapshot-ttl:PT1H}") Duration snapshotTtl) {
+        this.cartRepository = cartRepository;
+        this.priceSnapshots = Caffeine.newBuilder()
+                .maximumSize(snapshotMaxSize)
+                .expireAfterWrite(snapshotTtl)
+                .build();
+    }
+
+    private record PriceSnapshot(BigDecimal unitPrice, String currency, boolean isFree) {
+        boolean sameAs(PriceSnapshot other) {
+            return other != null && isFree == other.isFree
+                    && unitPrice.compareTo(other.unitPrice) == 0
+                    && currency.equals(other.currency);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int repriceApplication(String applicationId, BigDecimal newPrice, String currency, boolean isFree) {
+        if (currency == null || currency.isBlank()) {
+            log.warn("Ignoring price change for AppID {} without a currency.", applicationId);
+            return 0;
+        }
+        BigDecimal unitPrice = (isFree || newPrice == null) ? BigDecimal.ZERO : newPrice;
+        PriceSnapshot target = new PriceSnapshot(unitPrice, currency, isFree);
+        if (target.sameAs(priceSnapshots.getIfPresent(applicationId))) {
+            log.debug("Price for AppID {} unchanged ({} {}). Skipping repricing.", applicationId, unitPrice, currency);
+            return 0;
+        }
+
+        try {
+            int updated = cartRepository.repriceItemsForApplication(applicationId, unitPrice, currency, isFree);
+            // Remembered only once the new price is committed; a rolled-back UPDATE must not suppress the retry
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    priceSnapshots.put(applicationId, target);
+                }
+            });
+            log.info("Repriced {} cart items for AppID {} to {} {} (free: {}).", updated, applicationId, unitPrice, currency, isFree);
+            return updated;
+        } catch (DataAccessException e) {
+            log.error("Database error repricing cart items for AppID {}: {}", applicationId, e.getMessage(), e);
+            throw new DatabaseOperationException("Could not reprice cart items. " + e.getMessage() + e);
+        }
+    }
+}
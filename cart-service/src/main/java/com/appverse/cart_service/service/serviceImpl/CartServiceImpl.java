@@ -2,32 +2,48 @@
 package com.appverse.cart_service.service.serviceImpl;
 
 import com.appverse.cart_service.client.ApplicationServiceClient;
+import com.appverse.cart_service.concurrency.RetryOnConflict;
 import com.appverse.cart_service.dto.AddItemToCartRequest;
 import com.appverse.cart_service.dto.CartResponse;
+import com.appverse.cart_service.dto.CheckoutSnapshotResponse;
 import com.appverse.cart_service.dto.UpdateCartItemQuantityRequest;
+import com.appverse.cart_service.event.CartEventPublisher;
 import com.appverse.cart_service.event.payload.*; // <<< IMPORT YOUR EVENT PAYLOADS
+import com.appverse.cart_service.exception.BadRequestException;
 import com.appverse.cart_service.exception.DatabaseOperationException;
 import com.appverse.cart_service.exception.ProductUnavailableException;
 import com.appverse.cart_service.exception.ResourceNotFoundException;
 import com.appverse.cart_service.mapper.CartMapper;
 import com.appverse.cart_service.model.Cart;
 import com.appverse.cart_service.model.CartItem;
+import com.appverse.cart_service.model.CheckoutSnapshot;
+import com.appverse.cart_service.model.CheckoutSnapshotItem;
 import com.appverse.cart_service.repository.CartRepository;
+import com.appverse.cart_service.repository.CheckoutSnapshotRepository;
 import com.appverse.cart_service.service.CartService;
+import com.appverse.cart_service.service.GuestCartTokens;
 
 import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j; // <<< IMPORT FOR LOGGING
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.kafka.core.KafkaTemplate;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List; // For CartClearedPayload
+import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors; // For CartClearedPayload
 
 @Service
@@ -41,18 +57,29 @@ public class CartServiceImpl implements CartService {
     private final CartRepository cartRepository;
     private final ApplicationServiceClient applicationServiceClient;
     private final CartMapper cartMapper;
-    private final KafkaTemplate<String, Object> kafkaTemplate; // <<< INJECT KAFKA TEMPLATE
+    private final CartEventPublisher cartEventPublisher; // Coalesces and publishes to cart-events, keyed by cart ID
+    private final CheckoutSnapshotRepository checkoutSnapshotRepository;
 
-    private static final String CART_EVENTS_TOPIC = "cart-events"; // Define Kafka topic for cart events
+    @Value("${appverse.cart.checkout.snapshot-ttl:PT15M}")
+    private Duration checkoutSnapshotTtl;
 
     @Override
     @Transactional(readOnly = true)
+    @RetryOnConflict
     public CartResponse getOrCreateCartByUserId(String userId) {
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseGet(() -> createNewCart(userId));
         return cartMapper.toCartResponse(cart);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CartResponse getCartByUserId(String userId) {
+        return cartRepository.findByUserId(userId)
+                .map(cartMapper::toCartResponse)
+                .orElseGet(() -> new CartResponse(null, userId, List.of(), null, null));
+    }
+
     private Cart createNewCart(String userId) {
         Cart newCart = Cart.builder().userId(userId).build();
         try {
@@ -61,6 +88,8 @@ public class CartServiceImpl implements CartService {
             // Optionally publish a CartCreatedEvent if other services need to know about new carts
             // For now, focusing on item-level events as requested.
             return savedCart;
+        } catch (DataIntegrityViolationException e) {
+            throw e; // Another request created the user's cart concurrently; retried by @RetryOnConflict
         } catch (DataAccessException e) {
             log.error("Database error creating new cart for user {}: {}", userId, e.getMessage(), e);
             throw new DatabaseOperationException("Could not create cart for user. " + e.getMessage()+ e);
@@ -69,6 +98,7 @@ public class CartServiceImpl implements CartService {
 
     @Override
     @Transactional
+    @RetryOnConflict
     public CartResponse addItemToCart(String userId, AddItemToCartRequest addItemRequest) {
         log.info("User {} attempting to add item (AppID: {}, Qty: {}) to cart.",
                  userId, addItemRequest.applicationId(), addItemRequest.quantity());
@@ -93,45 +123,49 @@ public class CartServiceImpl implements CartService {
             throw new ProductUnavailableException("Could not retrieve application details. Service may be temporarily unavailable.", e);
         }
 
-        Optional<CartItem> existingItemOpt = cart.getItems().stream()
-                .filter(item -> item.getApplicationId().equals(addItemRequest.applicationId()))
-                .findFirst();
+        Optional<CartItem> existingItemOpt = cart.findItem(addItemRequest.applicationId());
 
-        CartItem itemForEvent;
         int quantityAdded = addItemRequest.quantity();
-
-        if (existingItemOpt.isPresent()) {
-            CartItem existingItem = existingItemOpt.get();
-            log.debug("Item AppID {} already in cart. Updating quantity.", addItemRequest.applicationId());
-            existingItem.setQuantity(existingItem.getQuantity() + addItemRequest.quantity());
-            existingItem.setAddedAt(Instant.now());
-            itemForEvent = existingItem;
-        } else {
-            log.debug("Item AppID {} not in cart. Adding new item.", addItemRequest.applicationId());
-            CartItem newItem = CartItem.builder()
-                    .applicationId(appDetails.id())
-                    .applicationName(appDetails.name()) // Denormalized
-                    .quantity(addItemRequest.quantity())
-                    .unitPrice(appDetails.price())     // Denormalized price at time of adding
-                    .currency(appDetails.currency())   // Denormalized
-                    .isFree(appDetails.isFree())       // Denormalized
-                    .thumbnailUrl(appDetails.thumbnailUrl()) // Denormalized
-                    .addedAt(Instant.now())
-                    .build();
-            cart.addItem(newItem); // Sets bidirectional link and adds to cart's item list
-            itemForEvent = newItem; // The CartItem entity might not have its ID until after save if ID is generated
-        }
+        Instant now = Instant.now();
 
         try {
-            Cart updatedCart = cartRepository.save(cart);
-            log.info("Item AppID {} added/updated in cart {} for user {}. New total quantity for item: {}",
-                     addItemRequest.applicationId(), updatedCart.getId(), userId, itemForEvent.getQuantity());
+            Cart updatedCart;
+            if (existingItemOpt.isPresent()) {
+                // Merge the delta as a relative SQL increment instead of read-modify-write,
+                // so concurrent adds of the same app (e.g. two tabs) cannot lose an increment.
+                log.debug("Item AppID {} already in cart. Incrementing quantity by {}.", addItemRequest.applicationId(), quantityAdded);
+                int updatedRows = cartRepository.incrementItemQuantity(cart.getId(), addItemRequest.applicationId(), quantityAdded, now);
+                if (updatedRows == 0) {
+                    // The line was removed between our read and the increment; re-run the whole operation.
+                    throw new OptimisticLockingFailureException("Cart item for AppID " + addItemRequest.applicationId() + " was removed concurrently.");
+                }
+                cartRepository.touchCart(cart.getId(), now);
+                updatedCart = cartRepository.findById(cart.getId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user: " + userId));
+            } else {
+                log.debug("Item AppID {} not in cart. Adding new item.", addItemRequest.applicationId());
+                CartItem newItem = CartItem.builder()
+                        .applicationId(appDetails.id())
+                        .applicationName(appDetails.name()) // Denormalized
+                        .quantity(quantityAdded)
+                        .unitPrice(appDetails.price())     // Denormalized price at time of adding
+                        .currency(appDetails.currency())   // Denormalized
+                        .isFree(appDetails.isFree())       // Denormalized
+                        .thumbnailUrl(appDetails.thumbnailUrl()) // Denormalized
+                        .addedAt(now)
+                        .build();
+                cart.addItem(newItem); // Sets bidirectional link and adds to cart's item list
+                cart.touch();
+                // A concurrent insert of the same line fails on uk_cart_item_cart_application and is retried as an increment.
+                updatedCart = cartRepository.save(cart);
+                updatedCart.resetItemIndex(); // The merge swapped newItem for its managed copy
+            }
 
-            // Find the saved item to get its generated ID for the event
-            CartItem savedItemForEvent = updatedCart.getItems().stream()
-                .filter(i -> i.getApplicationId().equals(itemForEvent.getApplicationId()))
-                .findFirst()
-                .orElse(itemForEvent); // Fallback, though it should be found
+            // Find the saved item to get its generated ID and current total for the event
+            CartItem savedItemForEvent = updatedCart.findItem(addItemRequest.applicationId())
+                .orElseThrow(() -> new OptimisticLockingFailureException("Cart item for AppID " + addItemRequest.applicationId() + " disappeared concurrently."));
+            log.info("Item AppID {} added/updated in cart {} for user {}. New total quantity for item: {}",
+                     addItemRequest.applicationId(), updatedCart.getId(), userId, savedItemForEvent.getQuantity());
 
             // --- Publish CartItemAddedEvent ---
             CartItemAddedPayload payload = new CartItemAddedPayload(
@@ -146,10 +180,12 @@ public class CartServiceImpl implements CartService {
                     savedItemForEvent.getCurrency(),
                     Instant.now()
             );
-            kafkaTemplate.send(CART_EVENTS_TOPIC, updatedCart.getId().toString(), payload); // Key by cart ID
-            log.info("Published CartItemAddedEvent for Cart ID: {}, Item AppID: {}", updatedCart.getId(), savedItemForEvent.getApplicationId());
+            cartEventPublisher.publish(updatedCart, payload);
+            log.info("Queued CartItemAddedEvent for Cart ID: {}, Item AppID: {}", updatedCart.getId(), savedItemForEvent.getApplicationId());
 
             return cartMapper.toCartResponse(updatedCart);
+        } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+            throw e; // Conflicts are retried by @RetryOnConflict
         } catch (DataAccessException e) {
             log.error("Database error adding/updating item in cart for user {}: {}", userId, e.getMessage(), e);
             throw new DatabaseOperationException("Could not update cart. " + e.getMessage()+ e);
@@ -158,14 +194,13 @@ public class CartServiceImpl implements CartService {
 
     @Override
     @Transactional
+    @RetryOnConflict
     public CartResponse updateCartItemQuantity(String userId, String applicationId, UpdateCartItemQuantityRequest updateRequest) {
         log.info("User {} updating quantity for AppID {} in cart to {}.", userId, applicationId, updateRequest.newQuantity());
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user: " + userId));
 
-        CartItem itemToUpdate = cart.getItems().stream()
-                .filter(item -> item.getApplicationId().equals(applicationId))
-                .findFirst()
+        CartItem itemToUpdate = cart.findItem(applicationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Item with application ID " + applicationId + " not found in cart."));
 
         int oldQuantity = itemToUpdate.getQuantity();
@@ -182,6 +217,7 @@ public class CartServiceImpl implements CartService {
         }
 
         try {
+            cart.touch();
             Cart updatedCart = cartRepository.save(cart);
             log.info("Cart {} for user {} updated. Item AppID {} quantity changed or item removed.",
                      updatedCart.getId(), userId, applicationId);
@@ -197,8 +233,8 @@ public class CartServiceImpl implements CartService {
                         oldQuantity, // Quantity it had before removal
                         Instant.now()
                 );
-                kafkaTemplate.send(CART_EVENTS_TOPIC, updatedCart.getId().toString(), payload);
-                log.info("Published CartItemRemovedEvent for Cart ID: {}, Item AppID: {}", updatedCart.getId(), applicationId);
+                cartEventPublisher.publish(updatedCart, payload);
+                log.info("Queued CartItemRemovedEvent for Cart ID: {}, Item AppID: {}", updatedCart.getId(), applicationId);
             } else {
                 // --- Publish CartItemQuantityUpdatedEvent ---
                 CartItemQuantityUpdatedPayload payload = new CartItemQuantityUpdatedPayload(
@@ -210,10 +246,12 @@ public class CartServiceImpl implements CartService {
                         itemToUpdate.getQuantity(), // New quantity
                         Instant.now()
                 );
-                kafkaTemplate.send(CART_EVENTS_TOPIC, updatedCart.getId().toString(), payload);
-                log.info("Published CartItemQuantityUpdatedEvent for Cart ID: {}, Item AppID: {}", updatedCart.getId(), applicationId);
+                cartEventPublisher.publish(updatedCart, payload);
+                log.info("Queued CartItemQuantityUpdatedEvent for Cart ID: {}, Item AppID: {}", updatedCart.getId(), applicationId);
             }
             return cartMapper.toCartResponse(updatedCart);
+        } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+            throw e; // Conflicts are retried by @RetryOnConflict
         } catch (DataAccessException e) {
             log.error("Database error updating item quantity in cart for user {}: {}", userId, e.getMessage(), e);
             throw new DatabaseOperationException("Could not update item quantity. " + e.getMessage()+ e);
@@ -222,14 +260,13 @@ public class CartServiceImpl implements CartService {
 
     @Override
     @Transactional
+    @RetryOnConflict
     public CartResponse removeItemFromCart(String userId, String applicationId) {
         log.info("User {} removing item AppID {} from cart.", userId, applicationId);
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user: " + userId));
 
-        CartItem itemToRemove = cart.getItems().stream()
-                .filter(item -> item.getApplicationId().equals(applicationId))
-                .findFirst()
+        CartItem itemToRemove = cart.findItem(applicationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Item with application ID " + applicationId + " not found in cart."));
 
         String removedItemId = itemToRemove.getId().toString(); // Get ID before removal
@@ -239,6 +276,7 @@ public class CartServiceImpl implements CartService {
         cart.removeItem(itemToRemove);
 
         try {
+            cart.touch();
             Cart updatedCart = cartRepository.save(cart);
             log.info("Item AppID {} removed from cart {} for user {}.", applicationId, updatedCart.getId(), userId);
 
@@ -252,10 +290,12 @@ public class CartServiceImpl implements CartService {
                     removedQuantity,
                     Instant.now()
             );
-            kafkaTemplate.send(CART_EVENTS_TOPIC, updatedCart.getId().toString(), payload);
-            log.info("Published CartItemRemovedEvent for Cart ID: {}, Item AppID: {}", updatedCart.getId(), applicationId);
+            cartEventPublisher.publish(updatedCart, payload);
+            log.info("Queued CartItemRemovedEvent for Cart ID: {}, Item AppID: {}", updatedCart.getId(), applicationId);
 
             return cartMapper.toCartResponse(updatedCart);
+        } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+            throw e; // Conflicts are retried by @RetryOnConflict
         } catch (DataAccessException e) {
             log.error("Database error removing item from cart for user {}: {}", userId, e.getMessage(), e);
             throw new DatabaseOperationException("Could not remove item from cart. " + e.getMessage()+ e);
@@ -264,6 +304,7 @@ public class CartServiceImpl implements CartService {
 
     @Override
     @Transactional
+    @RetryOnConflict
     public CartResponse clearCart(String userId) {
         log.info("User {} clearing their cart.", userId);
         Cart cart = cartRepository.findByUserId(userId)
@@ -279,9 +320,10 @@ public class CartServiceImpl implements CartService {
             return cartMapper.toCartResponse(cart); // Return current empty cart
         }
 
-        cart.getItems().clear(); // Relies on orphanRemoval=true
+        cart.clearItems(); // Relies on orphanRemoval=true
 
         try {
+            cart.touch();
             Cart updatedCart = cartRepository.save(cart); // Persist the changes (empty item list)
             log.info("Cart {} for user {} cleared. {} items removed.", updatedCart.getId(), userId, numberOfItemsCleared);
 
@@ -293,13 +335,200 @@ public class CartServiceImpl implements CartService {
                     clearedApplicationIds,
                     Instant.now()
             );
-            kafkaTemplate.send(CART_EVENTS_TOPIC, updatedCart.getId().toString(), payload);
-            log.info("Published CartClearedEvent for Cart ID: {}", updatedCart.getId());
+            cartEventPublisher.publish(updatedCart, payload);
+            log.info("Queued CartClearedEvent for Cart ID: {}", updatedCart.getId());
 
             return cartMapper.toCartResponse(updatedCart);
+        } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+            throw e; // Conflicts are retried by @RetryOnConflict
         } catch (DataAccessException e) {
             log.error("Database error clearing cart for user {}: {}", userId, e.getMessage(), e);
             throw new DatabaseOperationException("Could not clear cart. " + e.getMessage()+ e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional
+    @RetryOnConflict
+    public CartResponse mergeGuestCart(String guestToken, String userId) {
+        String guestOwnerId = GuestCartTokens.ownerIdFor(guestToken);
+        log.info("User {} merging guest cart into their cart.", userId);
+
+        Optional<Cart> guestCartOpt = cartRepository.findByUserId(guestOwnerId);
+        Cart userCart = cartRepository.findByUserId(userId)
+                .orElseGet(() -> createNewCart(userId));
+        if (guestCartOpt.isEmpty() || guestCartOpt.get().getItems().isEmpty()) {
+            CartResponse response = cartMapper.toCartResponse(userCart); // Map before the bulk delete detaches the cart
+            guestCartOpt.ifPresent(guestCart -> cartRepository.deleteCartById(guestCart.getId()));
+            log.info("Guest cart for user {} missing or empty. Nothing to merge.", userId);
+            return response;
+        }
+
+        Cart guestCart = guestCartOpt.get();
+        UUID guestCartId = guestCart.getId();
+        UUID userCartId = userCart.getId();
+        List<String> mergedApplicationIds = guestCart.getItems().stream()
+                .map(CartItem::getApplicationId)
+                .collect(Collectors.toList());
+
+        try {
+            Instant now = Instant.now();
+            // Flushes the (possibly new) user cart first, so the upsert's foreign key resolves.
+            int affectedRows = cartRepository.upsertItemsFromCart(guestCartId, userCartId, now);
+            cartRepository.deleteItemsByCartId(guestCartId);
+            cartRepository.deleteCartById(guestCartId);
+            cartRepository.touchCart(userCartId, now);
+
+            Cart mergedCart = cartRepository.findById(userCartId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user: " + userId));
+            log.info("Merged guest cart {} ({} lines, {} rows affected) into cart {} for user {}.",
+                    guestCartId, mergedApplicationIds.size(), affectedRows, userCartId, userId);
+
+            // --- Publish CartMergedEvent ---
+            CartMergedPayload payload = new CartMergedPayload(
+                    userCartId.toString(),
+                    userId,
+                    guestCartId.toString(),
+                    mergedApplicationIds,
+                    Instant.now()
+            );
+            cartEventPublisher.publish(mergedCart, payload);
+            log.info("Queued CartMergedEvent for Cart ID: {}", userCartId);
+
+            return cartMapper.toCartResponse(mergedCart);
+        } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+            throw e; // Conflicts are retried by @RetryOnConflict
+        } catch (DataAccessException e) {
+            log.error("Database error merging guest cart for user {}: {}", userId, e.getMessage(), e);
+            throw new DatabaseOperationException("Could not merge guest cart. " + e.getMessage()+ e);
+        }
+    }
+
+    @Override
+    @Transactional
+    public CheckoutSnapshotResponse checkout(String userId) {
+        log.info("User {} checking out their cart.", userId);
+        Cart cart = cartRepository.findByUserId(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user: " + userId));
+        if (cart.getItems().isEmpty()) {
+            throw new BadRequestException("Cannot check out an empty cart.");
+        }
+
+        // Price from the denormalized cart lines (kept current by repricing), so order-service need not call app-service.
+        String checkoutCurrency = null;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        List<CheckoutSnapshotItem> snapshotItems = new ArrayList<>(cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            BigDecimal unitPrice = item.isFree() || item.getUnitPrice() == null ? BigDecimal.ZERO : item.getUnitPrice();
+            BigDecimal lineTotal = unitPrice.multiply(BigDecimal.valueOf(item.getQuantity()));
+            if (unitPrice.signum() > 0) {
+                if (checkoutCurrency == null) {
+                    checkoutCurrency = item.getCurrency();
+                } else if (!checkoutCurrency.equals(item.getCurrency())) {
+                    throw new BadRequestException("Items with different currencies are not supported in a single checkout.");
+                }
+            }
+            snapshotItems.add(new CheckoutSnapshotItem(item.getApplicationId(), item.getApplicationName(),
+                    item.getQuantity(), unitPrice, lineTotal, item.getCurrency(), item.isFree(), item.getId()));
+            totalAmount = totalAmount.add(lineTotal);
+        }
+
+        Instant now = Instant.now();
+        CheckoutSnapshot snapshot = CheckoutSnapshot.builder()
+                .cartId(cart.getId())
+                .userId(userId)
+                .items(List.copyOf(snapshotItems))
+                .totalAmount(totalAmount)
+                .currency(checkoutCurrency != null ? checkoutCurrency : "USD")
+                .createdAt(now)
+                .expiresAt(now.plus(checkoutSnapshotTtl))
+                .build();
+        try {
+            CheckoutSnapshot savedSnapshot = checkoutSnapshotRepository.save(snapshot);
+            log.info("Checkout snapshot {} created for cart {} (user {}): {} lines, total {} {}, expires at {}.",
+                    savedSnapshot.getId(), cart.getId(), userId, snapshotItems.size(),
+                    totalAmount, savedSnapshot.getCurrency(), savedSnapshot.getExpiresAt());
+            return cartMapper.toCheckoutSnapshotResponse(savedSnapshot);
+        } catch (DataAccessException e) {
+            log.error("Database error creating checkout snapshot for user {}: {}", userId, e.getMessage(), e);
+            throw new DatabaseOperationException("Could not create checkout snapshot. " + e.getMessage()+ e);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CheckoutSnapshotResponse getCheckoutSnapshot(String checkoutId, String userId) {
+        CheckoutSnapshot snapshot = findCheckoutSnapshot(checkoutId)
+                .filter(s -> s.getUserId().equals(userId))
+                .filter(s -> !s.isExpired(Instant.now()) && !s.isConsumed())
+                .orElseThrow(() -> new ResourceNotFoundException("Checkout " + checkoutId + " not found or expired."));
+        return cartMapper.toCheckoutSnapshotResponse(snapshot);
+    }
+
+    @Override
+    @Transactional
+    public void completeCheckout(String checkoutId) {
+        Optional<CheckoutSnapshot> snapshotOpt = findCheckoutSnapshot(checkoutId);
+        if (snapshotOpt.isEmpty()) {
+            log.info("Checkout {} already completed or expired. Nothing to clear.", checkoutId);
+            return;
+        }
+        CheckoutSnapshot snapshot = snapshotOpt.get();
+        List<UUID> checkedOutItemIds = snapshot.getItems().stream()
+                .map(CheckoutSnapshotItem::cartItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        try {
+            // Consuming the snapshot and removing its lines commit together, and only the first completion gets here
+            if (checkoutSnapshotRepository.markConsumed(snapshot.getId(), Instant.now()) == 0) {
+                log.info("Checkout {} already completed. Nothing to clear.", checkoutId);
+                return;
+            }
+            // Read before the delete, for their removal events
+            List<CartItem> checkedOutLines = checkedOutItemIds.isEmpty() ? List.of()
+                    : cartRepository.findById(snapshot.getCartId())
+                            .map(cart -> cart.getItems().stream()
+                                    .filter(item -> checkedOutItemIds.contains(item.getId()))
+                                    .toList())
+                            .orElse(List.of());
+            // By line ID: a line removed and re-added after checkout is a different line and stays in the cart
+            int removedLines = checkedOutItemIds.isEmpty() ? 0
+                    : cartRepository.deleteItemsByCartIdAndIds(snapshot.getCartId(), checkedOutItemIds);
+            cartRepository.touchCart(snapshot.getCartId(), Instant.now());
+            log.info("Checkout {} completed. Removed {} lines from cart {} for user {}.",
+                    checkoutId, removedLines, snapshot.getCartId(), snapshot.getUserId());
+
+            if (removedLines > 0) {
+                cartRepository.findById(snapshot.getCartId()).ifPresent(cart -> {
+                    // --- Publish a CartItemRemovedEvent per checked-out line ---
+                    // Not CartCleared: the rest of the cart stays, and coalescing would drop its earlier events
+                    for (CartItem line : checkedOutLines) {
+                        cartEventPublisher.publish(cart, new CartItemRemovedPayload(
+                                cart.getId().toString(),
+                                snapshot.getUserId(),
+                                line.getId().toString(),
+                                line.getApplicationId(),
+                                line.getApplicationName(),
+                                line.getQuantity(),
+                                Instant.now()
+                        ));
+                    }
+                    log.info("Queued {} CartItemRemovedEvents for Cart ID: {} after checkout {}",
+                            checkedOutLines.size(), cart.getId(), checkoutId);
+                });
+            }
+        } catch (DataAccessException e) {
+            log.error("Database error completing checkout {}: {}", checkoutId, e.getMessage(), e);
+            throw new DatabaseOperationException("Could not complete checkout. " + e.getMessage()+ e);
+        }
+    }
+
+    private Optional<CheckoutSnapshot> findCheckoutSnapshot(String checkoutId) {
+        try {
+            return checkoutSnapshotRepository.findById(UUID.fromString(checkoutId));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty(); // Not a valid snapshot ID
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.appverse.cart_service.service.serviceImpl;
+
+import com.appverse.cart_service.client.ApplicationServiceClient;
+import com.appverse.cart_service.concurrency.ConflictRetryAspect;
+import com.appverse.cart_service.dto.AddItemToCartRequest;
+import com.appverse.cart_service.dto.CartItemResponse;
+import com.appverse.cart_service.event.CartEventPublisher;
+import com.appverse.cart_service.event.payload.CartItemAddedPayload;
+import com.appverse.cart_service.mapper.CartMapperImpl;
+import com.appverse.cart_service.repository.CartRepository;
+import com.appverse.cart_service.service.CartService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fires parallel adds at the same cart and checks that no increment is lost
+ * (optimistic locking + {@code @RetryOnConflict} + relative quantity increments), and that each add publishes
+ * exactly one event however many attempts it took.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "appverse.application-service.url=http://localhost:0",
+        "appverse.cart.events.coalesce-mode=NONE" // Every committed event goes straight to the (mock) KafkaTemplate
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Every service call must run and commit in its own transaction
+@Import({CartServiceImpl.class, CartMapperImpl.class, ConflictRetryAspect.class, CartEventPublisher.class,
+        CartServiceImplConcurrencyTest.AopTestConfig.class})
+class CartServiceImplConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 25;
+
+    @TestConfiguration
+    @EnableAspectJAutoProxy
+    static class AopTestConfig {
+    }
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @MockBean
+    private ApplicationServiceClient applicationServiceClient;
+
+    @MockBean
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @BeforeEach
+    void setUp() {
+        cartRepository.deleteAll();
+        when(applicationServiceClient.getApplicationDetails(anyString()))
+                .thenAnswer(invocation -> applicationDetails(invocation.getArgument(0)));
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(new CompletableFuture<>());
+    }
+
+    @Test
+    void parallelAddsOfSameItemAreAllCounted() throws Exception {
+        String userId = "user-same-item";
+        cartService.addItemToCart(userId, new AddItemToCartRequest("app-1", 1)); // Cart and line exist up front
+
+        runConcurrently(userId, i -> new AddItemToCartRequest("app-1", 1));
+
+        assertEquals(Map.of("app-1", 1 + THREADS * ADDS_PER_THREAD), quantitiesOf(userId));
+        assertEquals(1 + THREADS * ADDS_PER_THREAD, publishedItemAddedEvents());
+    }
+
+    @Test
+    void parallelAddsRacingToCreateCartAndLinesConverge() throws Exception {
+        String userId = "user-new-cart";
+
+        // No cart yet: threads race on the cart insert and on the first insert of each line
+        runConcurrently(userId, i -> new AddItemToCartRequest("app-" + (i % 3), (i % 2) + 1));
+
+        Map<String, Integer> expected = new HashMap<>();
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                int n = t * ADDS_PER_THREAD + i;
+                expected.merge("app-" + (n % 3), (n % 2) + 1, Integer::sum);
+            }
+        }
+        assertEquals(expected, quantitiesOf(userId));
+        assertEquals(THREADS * ADDS_PER_THREAD, publishedItemAddedEvents()); // Retried attempts publish nothing
+    }
+
+    private void runConcurrently(String userId, IntFunction<AddItemToCartRequest> requestForIndex) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                        cartService.addItemToCart(userId, requestForIndex.apply(thread * ADDS_PER_THREAD + i));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS); // Propagates any add that failed after exhausting retries
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, Integer> quantitiesOf(String userId) {
+        return cartService.getOrCreateCartByUserId(userId).items().stream()
+                .collect(Collectors.toMap(CartItemResponse::applicationId, CartItemResponse::quantity));
+    }
+
+    private long publishedItemAddedEvents() {
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate, atLeast(0)).send(eq(CartEventPublisher.CART_EVENTS_TOPIC), anyString(), payloads.capture());
+        return payloads.getAllValues().stream().filter(CartItemAddedPayload.class::isInstance).count();
+    }
+
+    private static ApplicationServiceClient.ApplicationDetails applicationDetails(String applicationId) {
+        return new ApplicationServiceClient.ApplicationDetails(
+                applicationId, "App " + applicationId, null, null, "1.0", null,
+                new BigDecimal("4.99"), "USD", false, List.of(), null, null, null, null,
+                List.of(), null, null, null, List.of(), "PUBLISHED",
+                Instant.now(), Instant.now(), Instant.now(), null, null);
+    }
+}
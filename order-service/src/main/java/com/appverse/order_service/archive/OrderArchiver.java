@@ -0,0 +1,154 @@
+// === In Order Service Project ===
+package com.appverse.order_service.archive;
+
+import com.appverse.order_service.enums.OrderStatus;
+import com.appverse.order_service.mapper.OrderMapper;
+import com.appverse.order_service.model.CustomerOrder;
+import com.appverse.order_service.repository.OrderCheckoutRepository;
+import com.appverse.order_service.repository.OrderIdempotencyKeyRepository;
+import com.appverse.order_service.repository.OrderRepository;
+import com.appverse.order_service.repository.OrderViewRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves orders that reached a final status and are older than {@code appverse.order.archive.after-months} into
+ * customer_orders_archive, one compact JSON row per order. PAYMENT_FAILED and PARTIALLY_REFUNDED count as final at
+ * that age: nobody retries a payment or refunds the rest a year later. PENDING_PAYMENT and PAYMENT_PROCESSING never
+ * get this old because PendingOrderExpirySweeper cancels them; orders stuck in a fulfillment or refund state are left
+ * alone and OrderPartitionMaintenance reports the partitions they keep alive.
+ * <p>
+ * Works like PendingOrderExpirySweeper: per status, keyset batches claimed with FOR UPDATE SKIP LOCKED, each batch
+ * in one transaction (batch INSERT into the archive, then set-based deletes of items, orders, read-model views and
+ * Idempotency-Keys and checkout keys). Once a month's partition has been emptied this way, OrderPartitionMaintenance drops it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "appverse.order.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderArchiver {
+
+    private static final List<OrderStatus> ARCHIVABLE_STATUSES = List.of(
+            OrderStatus.COMPLETED, OrderStatus.CANCELLED_BY_USER, OrderStatus.CANCELLED_BY_SYSTEM, OrderStatus.REFUNDED,
+            OrderStatus.PAYMENT_FAILED, OrderStatus.PARTIALLY_REFUNDED);
+
+    private static final String INSERT_SQL = "INSERT INTO customer_orders_archive " +
+            "(order_id, user_id, order_status, order_total, currency, created_at, completed_at, archived_at, document) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final OrderRepository orderRepository;
+    private final OrderViewRepository orderViewRepository;
+    private final OrderIdempotencyKeyRepository orderIdempotencyKeyRepository;
+    private final OrderCheckoutRepository orderCheckoutRepository;
+    private final OrderMapper orderMapper;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${appverse.order.archive.after-months:12}")
+    private int afterMonths;
+
+    @Value("${appverse.order.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${appverse.order.archive.max-batches-per-run:1000}")
+    private int maxBatchesPerRun;
+
+    private record KeysetPosition(Instant createdAt, String orderId) {
+        static final KeysetPosition START = new KeysetPosition(Instant.EPOCH, "");
+    }
+
+    private record BatchResult(int archived, KeysetPosition next) {}
+
+    @Scheduled(cron = "${appverse.order.archive.cron:0 0 3 * * *}")
+    public void archive() {
+        Instant cutoff = archiveCutoff(afterMonths);
+        int batches = 0;
+        long archived = 0;
+        for (OrderStatus status : ARCHIVABLE_STATUSES) {
+            KeysetPosition position = KeysetPosition.START;
+            while (position != null && batches < maxBatchesPerRun) {
+                KeysetPosition from = position;
+                BatchResult result;
+                try {
+                    result = transactionTemplate.execute(tx -> archiveNextBatch(status, cutoff, from));
+                } catch (Exception e) {
+                    log.error("Order archival aborted after {} batches: {}", batches, e.getMessage(), e);
+                    return;
+                }
+                batches++;
+                archived += result.archived();
+                position = result.next();
+            }
+        }
+        log.info("Archived {} orders created before {} ({} batches).", archived, cutoff, batches);
+    }
+
+    /**
+     * Orders created before this instant (start of the month {@code afterMonths} ago, UTC) are eligible for archival.
+     */
+    static Instant archiveCutoff(int afterMonths) {
+        return YearMonth.now(ZoneOffset.UTC).minusMonths(afterMonths).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    private BatchResult archiveNextBatch(OrderStatus status, Instant cutoff, KeysetPosition from) {
+        List<CustomerOrder> claimed = orderRepository.lockInStatusCreatedBefore(
+                status.name(), cutoff, from.createdAt(), from.orderId(), batchSize);
+        if (claimed.isEmpty()) {
+            return new BatchResult(0, null);
+        }
+        CustomerOrder last = claimed.get(claimed.size() - 1);
+        KeysetPosition next = claimed.size() < batchSize ? null : new KeysetPosition(last.getCreatedAt(), last.getId());
+
+        List<String> orderIds = claimed.stream().map(CustomerOrder::getId).toList();
+        orderRepository.fetchItemsForOrders(orderIds); // One query for the items of the whole batch
+
+        LocalDateTime archivedAt = utc(Instant.now());
+        List<Object[]> rows = new ArrayList<>(claimed.size());
+        for (CustomerOrder order : claimed) {
+            rows.add(new Object[]{
+                    order.getId(), order.getUserId(), order.getOrderStatus().name(), order.getOrderTotal(), order.getCurrency(),
+                    utc(order.getCreatedAt()),
+                    order.getCompletedAt() != null ? utc(order.getCompletedAt()) : null,
+                    archivedAt, toDocument(order)});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+        orderRepository.deleteItemsByOrderIds(orderIds);
+        int deleted = orderRepository.deleteByIds(orderIds);
+        orderViewRepository.deleteByOrderIds(orderIds);
+        orderIdempotencyKeyRepository.deleteByOrderIds(orderIds);
+        orderCheckoutRepository.deleteByOrderIds(orderIds);
+        log.debug("Archived {} {} orders.", deleted, status);
+        return new BatchResult(deleted, next);
+    }
+
+    // Instants are stored as UTC wall-clock DATETIMEs (Hibernate's TIMESTAMP_UTC), which the partitions also assume
+    private static LocalDateTime utc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private String toDocument(CustomerOrder order) {
+        try {
+            return objectMapper.writeValueAsString(orderMapper.toOrderResponse(order));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order " + order.getId() + " for the archive.", e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+// === In Order Service Project ===
+package com.appverse.order_service.archive;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the monthly partitions of customer_orders and order_items rolling: creates the partitions for the next
+ * {@code appverse.order.partitions.months-ahead} months before rows can land in p_future, and drops monthly
+ * partitions older than the archive cutoff once OrderArchiver has emptied them (DROP PARTITION is a metadata-only
+ * operation, unlike deleting the rows). An old partition that still holds rows is reported with the statuses of the
+ * orders keeping it alive, so they can be resolved by hand. DDL is idempotent, so running it on several instances is
+ * harmless.
+ * Does nothing where the tables are not partitioned (e.g. schemas created by ddl-auto).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "appverse.order.partitions.maintenance.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderPartitionMaintenance {
+
+    private static final String ORDERS_TABLE = "customer_orders";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${appverse.order.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${appverse.order.archive.after-months:12}")
+    private int archiveAfterMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${appverse.order.partitions.maintenance-cron:0 15 2 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        YearMonth archiveHorizon = YearMonth.from(LocalDateTime.ofInstant(OrderArchiver.archiveCutoff(archiveAfterMonths), ZoneOffset.UTC));
+        for (String table : OrderPartitions.PARTITIONED_TABLES) {
+            try {
+                maintain(table, current.plusMonths(monthsAhead), archiveHorizon);
+            } catch (Exception e) {
+                log.error("Partition maintenance of {} failed: {}", table, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void maintain(String table, YearMonth last, YearMonth archiveHorizon) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() " +
+                "AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION",
+                String.class, table);
+        if (partitions.isEmpty()) {
+            log.debug("{} is not partitioned; skipping partition maintenance.", table);
+            return;
+        }
+        List<YearMonth> months = partitions.stream().map(OrderPartitions::monthOf).filter(Objects::nonNull).toList();
+
+        YearMonth newest = months.isEmpty() ? null : months.get(months.size() - 1);
+        YearMonth firstMissing = newest == null ? YearMonth.now(ZoneOffset.UTC) : newest.plusMonths(1);
+        if (!firstMissing.isAfter(last)) {
+            jdbcTemplate.execute(OrderPartitions.addMonthsSql(table, firstMissing, last));
+            log.info("Added partitions {}..{} to {}.", OrderPartitions.name(firstMissing), OrderPartitions.name(last), table);
+        }
+
+        for (YearMonth month : months) {
+            if (!month.isBefore(archiveHorizon)) {
+                break;
+            }
+            String partition = OrderPartitions.name(month);
+            Integer remaining = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM (SELECT 1 FROM " + table + " PARTITION (" + partition + ") LIMIT 1) t", Integer.class);
+            if (remaining != null && remaining == 0) {
+                jdbcTemplate.execute(OrderPartitions.dropSql(table, partition));
+                log.info("Dropped empty partition {} of {} (older than the archive horizon {}).", partition, table, archiveHorizon);
+            } else if (ORDERS_TABLE.equals(table)) {
+                // order_items rows belong to these orders, so reporting customer_orders is enough
+                List<Map<String, Object>> blocking = jdbcTemplate.queryForList(
+                        "SELECT order_status, COUNT(*) AS orders FROM " + table + " PARTITION (" + partition + ") " +
+                        "GROUP BY order_status");
+                log.warn("Partition {} of {} is older than the archive horizon {} but cannot be dropped; " +
+                         "non-archivable orders left in it: {}", partition, table, archiveHorizon, blocking);
+            }
+        }
+    }
+}
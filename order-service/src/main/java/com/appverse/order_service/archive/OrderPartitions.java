@@ -0,0 +1,65 @@
+package com.appverse.order_service.archive;
+
+import java.time.Period;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Naming and DDL for the monthly RANGE COLUMNS(created_at) partitions of customer_orders and order_items.
+ * Partition pYYYYMM holds the rows created in that month (UTC, as stored); p_future catches everything after the
+ * last monthly partition and is kept empty by OrderPartitionMaintenance so splitting it is a metadata-only change.
+ */
+public final class OrderPartitions {
+
+    public static final List<String> PARTITIONED_TABLES = List.of("customer_orders", "order_items");
+    public static final String FUTURE_PARTITION = "p_future";
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private OrderPartitions() {
+    }
+
+    public static String name(YearMonth month) {
+        return NAME_FORMAT.format(month);
+    }
+
+    /**
+     * The month of a monthly partition, or null for p_future or a foreign name.
+     */
+    public static YearMonth monthOf(String partitionName) {
+        try {
+            return YearMonth.parse(partitionName, NAME_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * {@code PARTITION BY ...} clause with one partition per month from {@code first} to {@code last}, plus p_future.
+     */
+    public static String partitionByClause(YearMonth first, YearMonth last) {
+        return "PARTITION BY RANGE COLUMNS(created_at) (" + monthlyDefinitions(first, last) + ")";
+    }
+
+    /**
+     * Splits the (empty) p_future partition into the months {@code first}..{@code last} plus a new p_future.
+     */
+    public static String addMonthsSql(String table, YearMonth first, YearMonth last) {
+        return "ALTER TABLE " + table + " REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" + monthlyDefinitions(first, last) + ")";
+    }
+
+    public static String dropSql(String table, String partitionName) {
+        return "ALTER TABLE " + table + " DROP PARTITION " + partitionName;
+    }
+
+    private static String monthlyDefinitions(YearMonth first, YearMonth last) {
+        String months = first.atDay(1).datesUntil(last.plusMonths(1).atDay(1), Period.ofMonths(1))
+                .map(YearMonth::from)
+                .map(month -> "PARTITION " + name(month) + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + " 00:00:00')")
+                .collect(Collectors.joining(", "));
+        return months + ", PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)";
+    }
+}
@@ -0,0 +1,44 @@
+package com.appverse.order_service.client;
+
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+import io.micrometer.observation.annotation.Observed;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+// Routed through the gateway like AppServiceClient; the user's JWT is forwarded by FeignClientInterceptor
+@FeignClient(name = "cart-service", url = "http://localhost:8080")
+public interface CartServiceClient {
+
+    // No fallback on purpose: an order must never be created from a made-up snapshot.
+    @GetMapping("/api/v1/carts/checkouts/{checkoutId}")
+    @Observed(name = "orderService.getCheckoutSnapshot", contextualName = "get-checkout-snapshot")
+    CheckoutSnapshot getCheckoutSnapshot(@PathVariable("checkoutId") String checkoutId);
+
+    // Mirrors CheckoutSnapshotResponse from cart-service
+    record CheckoutSnapshot(
+        String checkoutId,
+        String cartId,
+        String userId,
+        List<CheckoutSnapshotItem> items,
+        BigDecimal totalAmount,
+        String currency,
+        Instant createdAt,
+        Instant expiresAt
+    ) {}
+
+    record CheckoutSnapshotItem(
+        String applicationId,
+        String applicationName,
+        int quantity,
+        BigDecimal unitPrice,
+        BigDecimal totalPrice,
+        String currency,
+        boolean isFree
+    ) {}
+}
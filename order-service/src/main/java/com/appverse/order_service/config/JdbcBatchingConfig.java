@@ -0,0 +1,49 @@
+package com.appverse.order_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JDBC batching for order persistence (on by default, disable with appverse.order.persistence.jdbc-batching.enabled=false).
+ * <p>
+ * Hibernate groups the INSERTs of an order and its items (and the fulfillment-status UPDATEs of processPaymentUpdate)
+ * into JDBC batches, ordered by entity so statements for one table are contiguous. On MySQL,
+ * rewriteBatchedStatements makes Connector/J send each insert batch as a single multi-row INSERT.
+ */
+@Configuration
+@ConditionalOnProperty(name = "appverse.order.persistence.jdbc-batching.enabled", havingValue = "true", matchIfMissing = true)
+public class JdbcBatchingConfig {
+
+    @Value("${appverse.order.persistence.jdbc-batching.batch-size:50}")
+    private int batchSize;
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingHibernatePropertiesCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.put(AvailableSettings.ORDER_INSERTS, true);
+            properties.put(AvailableSettings.ORDER_UPDATES, true);
+            properties.put(AvailableSettings.BATCH_VERSIONED_DATA, true);
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor mysqlRewriteBatchedStatementsPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource
+                        && dataSource.getJdbcUrl() != null && dataSource.getJdbcUrl().startsWith("jdbc:mysql:")) {
+                    dataSource.addDataSourceProperty("rewriteBatchedStatements", "true"); // Pool starts lazily, so this still applies
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -12,11 +12,12 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 @RequiredArgsConstructor
 public class ObservationConfig {
 
-    private final ConcurrentKafkaListenerContainerFactory concurrentKafkaListenerContainerFactory;
+    // Named after Boot's default factory bean so it still resolves now that other listener factories exist
+    private final ConcurrentKafkaListenerContainerFactory kafkaListenerContainerFactory;
 
     @PostConstruct
     public void setObservationForKafkaTemplate(){
-        concurrentKafkaListenerContainerFactory.getContainerProperties().setObservationEnabled(true);
+        kafkaListenerContainerFactory.getContainerProperties().setObservationEnabled(true);
     }
 
     @Bean
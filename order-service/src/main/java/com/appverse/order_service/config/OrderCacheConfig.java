@@ -0,0 +1,97 @@
+package com.appverse.order_service.config;
+
+import com.appverse.order_service.model.OrderCacheRegions;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.HibernateMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate second-level cache for CustomerOrder and its items (off by default, enable with
+ * appverse.order.cache.enabled=true).
+ * <p>
+ * Regions are JCache caches backed by in-process Caffeine, bounded in size and expired after a TTL. Writes made
+ * through Hibernate update or invalidate them: entity changes go through the READ_WRITE regions, bulk JPQL updates and
+ * deletes (expiry sweep, archival) evict the affected regions. Queries are not cached: order lookups go by ID, which
+ * the entity region already serves. Native writes (read model, revenue rollups, Idempotency-Keys, checkout keys)
+ * declare their table with HINT_NATIVE_SPACES; a native write without one makes Hibernate evict every region, which
+ * would empty the cache on each order change.
+ * <p>
+ * The cache is per instance, so another instance's change is only seen here once the entry expires. That is fine for
+ * reads; every path that changes an order (payment updates, cancellation, expiry, archival) loads it with a locking
+ * query instead, which always reads the committed row from the database.
+ * <p>
+ * Hit, miss and put counts per region are exported as hibernate.second.level.cache.*.
+ */
+@Configuration
+@ConditionalOnProperty(name = "appverse.order.cache.enabled", havingValue = "true")
+@Slf4j
+public class OrderCacheConfig {
+
+    @Value("${appverse.order.cache.ttl:PT1M}")
+    private Duration ttl;
+
+    @Value("${appverse.order.cache.max-orders:10000}")
+    private long maxOrders;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager orderSecondLevelCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        createIfMissing(cacheManager, OrderCacheRegions.ORDERS, bounded(maxOrders));
+        createIfMissing(cacheManager, OrderCacheRegions.ORDER_ITEMS_COLLECTION, bounded(maxOrders));
+        createIfMissing(cacheManager, OrderCacheRegions.ORDER_ITEMS, bounded(maxOrders * 4)); // Several items per order
+        log.info("Order second-level cache enabled (ttl {}, max {} orders).", ttl, maxOrders);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer orderCacheHibernatePropertiesCustomizer(CacheManager orderSecondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, orderSecondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail"); // Every region is sized above
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true); // Source of the cache metrics
+        };
+    }
+
+    @Bean
+    public MeterBinder orderCacheMetrics(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        // Resolved when the registry binds, after the EntityManagerFactory is up
+        return registry -> new HibernateMetrics(entityManagerFactory.getObject().unwrap(SessionFactory.class),
+                "entityManagerFactory", Tags.empty()).bindTo(registry);
+    }
+
+    private CaffeineConfiguration<Object, Object> bounded(long maximumSize) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+
+    private static void createIfMissing(CacheManager cacheManager, String region, CaffeineConfiguration<Object, Object> configuration) {
+        if (cacheManager.getCache(region) == null) {
+            cacheManager.createCache(region, configuration);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.appverse.order_service.config;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class OrderPricingExecutorConfig {
+
+    @Value("${appverse.order.pricing.threads:16}")
+    private int threads;
+
+    @Value("${appverse.order.pricing.queue-capacity:256}")
+    private int queueCapacity;
+
+    /**
+     * Bounded pool used to resolve app details for all items of an order concurrently.
+     * When the queue is full the submitting request thread runs the lookup itself (back-pressure instead of rejection).
+     * Tasks carry the caller's SecurityContext (so FeignClientInterceptor can forward the user's JWT) and the
+     * current observation/trace context.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService orderPricingExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("order-pricing-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+        return new DelegatingSecurityContextExecutorService(
+                ContextExecutorService.wrap(executor, snapshotFactory::captureAll));
+    }
+}
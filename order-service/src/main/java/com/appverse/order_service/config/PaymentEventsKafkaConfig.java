@@ -0,0 +1,70 @@
+package com.appverse.order_service.config;
+
+import com.appverse.order_service.exception.InvalidOrderStatusTransitionException;
+import com.appverse.order_service.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.Map;
+
+/**
+ * Batch listener container for payment outcomes consumed from payment-events.
+ * <p>
+ * A record that keeps failing is retried a few times and then published, unchanged, to the dead-letter topic so the
+ * rest of the partition keeps flowing. Malformed JSON and unknown orders go to the DLT without retries.
+ */
+@Configuration
+@Slf4j
+public class PaymentEventsKafkaConfig {
+
+    public static final String PAYMENT_EVENTS_TOPIC = "payment-events";
+    public static final String PAYMENT_EVENTS_DLT = "payment-events.order-service.DLT";
+
+    @Value("${appverse.order.payment-events.retry-interval-ms:1000}")
+    private long retryIntervalMs;
+
+    @Value("${appverse.order.payment-events.max-retries:3}")
+    private long maxRetries;
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> paymentEventsListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            ProducerFactory<Object, Object> producerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setObservationEnabled(true);
+
+        // Records are consumed as raw JSON strings; republish them as-is rather than through the JSON value serializer
+        KafkaTemplate<Object, Object> dltTemplate = new KafkaTemplate<>(producerFactory, Map.of(
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class));
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(dltTemplate,
+                (record, ex) -> {
+                    log.error("Sending payment event {}-{}@{} (key {}) to {}: {}", record.topic(), record.partition(),
+                            record.offset(), record.key(), PAYMENT_EVENTS_DLT, ex.getMessage());
+                    return new TopicPartition(PAYMENT_EVENTS_DLT, -1); // Partition by key, like the source topic
+                });
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, new FixedBackOff(retryIntervalMs, maxRetries));
+        errorHandler.addNotRetryableExceptions(JsonProcessingException.class, ResourceNotFoundException.class,
+                InvalidOrderStatusTransitionException.class);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+}
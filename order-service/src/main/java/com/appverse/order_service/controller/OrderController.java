@@ -2,14 +2,21 @@
 // === In Order Service Project ===
 package com.appverse.order_service.controller;
 
+import com.appverse.order_service.dto.BulkPaymentUpdateRequest;
+import com.appverse.order_service.dto.BulkPaymentUpdateResponse;
 import com.appverse.order_service.dto.CreateOrderRequest;
+import com.appverse.order_service.dto.OrderJsonPage;
 import com.appverse.order_service.dto.OrderResponse;
 import com.appverse.order_service.dto.PaymentUpdateDto;
+import com.appverse.order_service.idempotency.OrderCreationIdempotency;
+import com.appverse.order_service.idempotency.OrderRequestFingerprint;
+import com.appverse.order_service.service.OrderQueryService;
 import com.appverse.order_service.service.OrderService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -18,7 +25,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
-import java.util.List;
 // No UUID import needed if IDs are String
 
 @RestController
@@ -27,12 +33,19 @@ import java.util.List;
 @Slf4j
 public class OrderController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
     private final OrderService orderService;
+    private final OrderQueryService orderQueryService; // Reads are served from the order_views read model
+    private final OrderCreationIdempotency orderCreationIdempotency;
 
     /**
      * Creates a new order for the authenticated user.
      *
+     * Submitting the same request again (with the same Idempotency-Key, or with the same items within a short window
+     * when no key is sent) returns the order that was already created instead of creating a second one.
+     *
      * @param createOrderRequest The request body containing order items.
+     * @param idempotencyKey     Optional client-generated key identifying this submission.
      * @param jwt                The JWT token of the authenticated user.
      * @return ResponseEntity with the created order and HTTP status 201 (Created).
      */
@@ -40,12 +53,15 @@ public class OrderController {
     // @PreAuthorize("isAuthenticated()") // Or specific role like "ROLE_USER"
     public ResponseEntity<OrderResponse> createOrder(
             @Valid @RequestBody CreateOrderRequest createOrderRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal Jwt jwt) {
 
         String userId = jwt.getSubject(); // 'sub' claim usually holds the Keycloak User ID
         log.info("Received request to create order for user ID: {}", userId);
 
-        OrderResponse createdOrder = orderService.createOrder(userId, createOrderRequest);
+        OrderResponse createdOrder = orderCreationIdempotency.execute(userId, idempotencyKey,
+                OrderRequestFingerprint.of(userId, createOrderRequest),
+                () -> orderService.createOrder(userId, createOrderRequest, idempotencyKey));
 
         // Create location URI for the newly created resource
         URI location = ServletUriComponentsBuilder
@@ -58,6 +74,32 @@ public class OrderController {
         return ResponseEntity.created(location).body(createdOrder);
     }
 
+    /**
+     * Creates a new order for the authenticated user from a cart-service checkout snapshot.
+     *
+     * @param checkoutId The checkout ID returned by POST /api/v1/carts/mine/checkout.
+     * @param jwt        The JWT token of the authenticated user.
+     * @return ResponseEntity with the created order and HTTP status 201 (Created).
+     */
+    @PostMapping("/checkout/{checkoutId}")
+    public ResponseEntity<OrderResponse> createOrderFromCheckout(
+            @PathVariable String checkoutId,
+            @AuthenticationPrincipal Jwt jwt) {
+
+        String userId = jwt.getSubject();
+        log.info("Received request to create order from checkout {} for user ID: {}", checkoutId, userId);
+
+        OrderResponse createdOrder = orderCreationIdempotency.executeForCheckout(userId, checkoutId,
+                () -> orderService.createOrderFromCheckout(userId, checkoutId));
+
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentContextPath()
+                .path("/api/v1/orders/{id}")
+                .buildAndExpand(createdOrder.id())
+                .toUri();
+        return ResponseEntity.created(location).body(createdOrder);
+    }
+
     /**
      * Retrieves a specific order by its ID, ensuring it belongs to the authenticated user.
      *
@@ -67,7 +109,7 @@ public class OrderController {
      */
     @GetMapping("/{orderId}")
     // @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<OrderResponse> getOrderById(
+    public ResponseEntity<String> getOrderById(
             @PathVariable String orderId,
             @AuthenticationPrincipal Jwt jwt) {
 
@@ -79,7 +121,7 @@ public class OrderController {
         // For simplicity, we'll assume the service layer handles it or it's an admin endpoint.
         // If strict user ownership is required for this specific endpoint path:
         // OrderResponse order = orderService.getOrderByIdAndUserId(orderId, userId);
-        OrderResponse order = orderService.getOrderById(orderId);
+        String order = orderQueryService.getOrderJson(orderId);
 
         // Optional: Explicitly check if the fetched order's userId matches the JWT's userId
         // if (!order.userId().equals(userId)) {
@@ -88,23 +130,44 @@ public class OrderController {
         // }
 
         log.info("Returning order ID: {} for user ID: {}", orderId, userId);
-        return ResponseEntity.ok(order);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(order);
     }
 
     /**
-     * Retrieves all orders for the authenticated user.
+     * Retrieves all orders for the authenticated user, newest first.
+     * Clients with long histories should use {@link #getMyOrdersPage} instead.
      *
      * @param jwt The JWT token of the authenticated user.
      * @return ResponseEntity with a list of orders.
      */
     @GetMapping("/mine")
     // @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<OrderResponse>> getMyOrders(@AuthenticationPrincipal Jwt jwt) {
+    public ResponseEntity<String> getMyOrders(@AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
         log.info("Received request to get all orders for user ID: {}", userId);
-        List<OrderResponse> orders = orderService.getOrdersByUserId(userId);
-        log.info("Returning {} orders for user ID: {}", orders.size(), userId);
-        return ResponseEntity.ok(orders);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(orderQueryService.getOrderHistoryJson(userId));
+    }
+
+    /**
+     * Retrieves the authenticated user's orders, newest first, one page at a time.
+     * The body is {@code {"orders": [...], "nextCursor": "..."}}; nextCursor is null on the last page.
+     *
+     * @param cursor The nextCursor of the previous page (omit for the first page).
+     * @param limit  Page size (max 200).
+     * @param jwt    The JWT token of the authenticated user.
+     * @return ResponseEntity with a page of orders.
+     */
+    @GetMapping("/mine/page")
+    // @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<String> getMyOrdersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        log.info("Received request to get orders for user ID: {} (cursor: {}, limit: {})", userId, cursor, limit);
+        OrderJsonPage page = orderQueryService.getOrderHistoryJson(userId, cursor, limit);
+        log.info("Returning {} orders for user ID: {}", page.size(), userId);
+        return pageResponse(page);
     }
 
     /**
@@ -127,6 +190,23 @@ public class OrderController {
         return ResponseEntity.ok(updatedOrder);
     }
 
+    /**
+     * Bulk variant of /internal/payment-update for reconciliation jobs: applies up to 10000 payment outcomes with the
+     * same idempotency rules, loading and writing orders in chunks instead of one transaction per order.
+     * Unknown orders are reported in the response rather than failing the request.
+     *
+     * @param request The payment updates, applied in list order.
+     * @return Counts of applied and ignored updates, and the unknown order IDs.
+     */
+    @PostMapping("/internal/payment-update/bulk")
+    @PreAuthorize("hasAuthority('SCOPE_INTERNAL_SERVICE') or hasRole('SYSTEM')")
+    public ResponseEntity<BulkPaymentUpdateResponse> handleBulkPaymentUpdate(
+            @Valid @RequestBody BulkPaymentUpdateRequest request) {
+        log.info("Received bulk payment update of {} outcomes.", request.updates().size());
+        BulkPaymentUpdateResponse response = orderService.processPaymentUpdates(request.updates());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Allows an authenticated user to cancel their own order if it's in a cancellable state.
      *
@@ -156,10 +236,10 @@ public class OrderController {
      */
     @GetMapping("/admin/{orderId}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<OrderResponse> getAnyOrderByIdForAdmin(@PathVariable String orderId) {
+    public ResponseEntity<String> getAnyOrderByIdForAdmin(@PathVariable String orderId) {
         log.info("Admin request to get order by ID: {}", orderId);
-        OrderResponse order = orderService.getOrderById(orderId);
-        return ResponseEntity.ok(order);
+        String order = orderQueryService.getOrderJson(orderId);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(order);
     }
 
     /**
@@ -170,9 +250,32 @@ public class OrderController {
      */
     @GetMapping("/admin/user/{userId}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<OrderResponse>> getAllOrdersByUserIdForAdmin(@PathVariable String userId) {
+    public ResponseEntity<String> getAllOrdersByUserIdForAdmin(@PathVariable String userId) {
         log.info("Admin request to get all orders for user ID: {}", userId);
-        List<OrderResponse> orders = orderService.getOrdersByUserId(userId);
-        return ResponseEntity.ok(orders);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(orderQueryService.getOrderHistoryJson(userId));
+    }
+
+    /**
+     * Admin endpoint to page through the orders of a specific user (same paging contract as /mine/page).
+     *
+     * @param userId The ID of the user.
+     * @return A page of orders for the user.
+     */
+    @GetMapping("/admin/user/{userId}/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> getOrdersPageByUserIdForAdmin(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("Admin request to get orders for user ID: {} (cursor: {}, limit: {})", userId, cursor, limit);
+        return pageResponse(orderQueryService.getOrderHistoryJson(userId, cursor, limit));
+    }
+
+    // The orders are written as pre-rendered read-model JSON, so no entities are loaded or mapped.
+    // The cursor is unpadded base64url, so it needs no escaping inside a JSON string.
+    private static ResponseEntity<String> pageResponse(OrderJsonPage page) {
+        String nextCursor = page.nextCursor() != null ? '"' + page.nextCursor() + '"' : "null";
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body("{\"orders\":" + page.ordersJson() + ",\"nextCursor\":" + nextCursor + '}');
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+// === In Order Service Project ===
+package com.appverse.order_service.controller;
+
+import com.appverse.order_service.dto.ApplicationRevenueResponse;
+import com.appverse.order_service.dto.DailyRevenueResponse;
+import com.appverse.order_service.service.RevenueReportService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Finance dashboard endpoints over the revenue rollups. Days are UTC; sales count on the completion day,
+ * refunds on the refund day.
+ */
+@RestController
+@RequestMapping("/api/v1/orders/admin/revenue")
+@RequiredArgsConstructor
+@Slf4j
+public class RevenueReportController {
+
+    private final RevenueReportService revenueReportService;
+
+    /**
+     * Revenue per day and currency.
+     *
+     * @param from     First day (inclusive), ISO date.
+     * @param to       Last day (inclusive), ISO date; at most 366 days after {@code from}.
+     * @param currency Optional currency filter.
+     * @return One row per day and currency that had sales or refunds.
+     */
+    @GetMapping("/daily")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<DailyRevenueResponse>> getDailyRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String currency) {
+        log.info("Admin request for daily revenue from {} to {} (currency: {})", from, to, currency);
+        return ResponseEntity.ok(revenueReportService.getDailyRevenue(from, to, currency));
+    }
+
+    /**
+     * Revenue per application and currency over a date range, highest net revenue first.
+     *
+     * @param from     First day (inclusive), ISO date.
+     * @param to       Last day (inclusive), ISO date; at most 366 days after {@code from}.
+     * @param currency Optional currency filter.
+     * @param limit    Maximum number of applications (max 1000).
+     * @return The top applications by net revenue.
+     */
+    @GetMapping("/applications")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ApplicationRevenueResponse>> getApplicationRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String currency,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.info("Admin request for application revenue from {} to {} (currency: {}, limit: {})", from, to, currency, limit);
+        return ResponseEntity.ok(revenueReportService.getApplicationRevenue(from, to, currency, limit));
+    }
+}
@@ -0,0 +1,16 @@
+package com.appverse.order_service.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Revenue of one application in one currency over the requested date range.
+ */
+public record ApplicationRevenueResponse(
+    String applicationId,
+    String currency,
+    long unitsSold,
+    BigDecimal grossAmount,
+    long unitsRefunded,
+    BigDecimal refundedAmount,
+    BigDecimal netAmount
+) {}
@@ -0,0 +1,16 @@
+package com.appverse.order_service.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Payment outcomes to apply in one call. Updates for the same order are applied in list order.
+ */
+public record BulkPaymentUpdateRequest(
+    @NotEmpty(message = "At least one payment update is required.")
+    @Size(max = 10000, message = "At most 10000 payment updates per request.")
+    List<@Valid @NotNull PaymentUpdateDto> updates
+) {}
@@ -0,0 +1,16 @@
+package com.appverse.order_service.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk payment update.
+ *
+ * @param applied          Updates that changed an order.
+ * @param ignored          Updates skipped by the idempotency rules (duplicates, orders already final, out-of-order outcomes).
+ * @param notFoundOrderIds Order IDs that do not exist; their updates were skipped.
+ */
+public record BulkPaymentUpdateResponse(
+    int applied,
+    int ignored,
+    List<String> notFoundOrderIds
+) {}
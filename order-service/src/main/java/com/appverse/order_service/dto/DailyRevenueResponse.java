@@ -0,0 +1,17 @@
+package com.appverse.order_service.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Revenue of one UTC day in one currency. {@code netAmount} is gross minus refunded.
+ */
+public record DailyRevenueResponse(
+    LocalDate day,
+    String currency,
+    long orderCount,
+    BigDecimal grossAmount,
+    long refundCount,
+    BigDecimal refundedAmount,
+    BigDecimal netAmount
+) {}
@@ -0,0 +1,13 @@
+package com.appverse.order_service.dto;
+
+/**
+ * One page of a user's order history served from the read model.
+ *
+ * @param ordersJson JSON array of OrderResponse documents, newest first, ready to be written to the response body.
+ * @param nextCursor Opaque cursor for the next (older) page; null when this is the last page.
+ */
+public record OrderJsonPage(
+    String ordersJson,
+    int size,
+    String nextCursor
+) {}
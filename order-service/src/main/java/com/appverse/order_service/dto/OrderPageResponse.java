@@ -0,0 +1,13 @@
+package com.appverse.order_service.dto;
+
+import java.util.List;
+
+/**
+ * One page of a user's order history, newest first.
+ *
+ * @param nextCursor Opaque cursor for the next (older) page; null when this is the last page.
+ */
+public record OrderPageResponse(
+    List<OrderResponse> orders,
+    String nextCursor
+) {}
@@ -0,0 +1,98 @@
+// === In Order Service Project ===
+package com.appverse.order_service.event;
+
+import com.appverse.order_service.config.PaymentEventsKafkaConfig;
+import com.appverse.order_service.dto.PaymentUpdateDto;
+import com.appverse.order_service.enums.PaymentStatus;
+import com.appverse.order_service.service.OrderService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies payment outcomes published by payment-service (PaymentSucceeded / PaymentFailed on payment-events)
+ * to orders through {@link OrderService#processPaymentUpdate}, replacing the synchronous internal HTTP callback.
+ * <p>
+ * payment-service keys these events by the order ID, so all outcomes for one order arrive on one partition in order.
+ * Records of a batch are applied one by one in offset order, each in its own transaction. Redelivered or duplicate
+ * outcomes are no-ops: processPaymentUpdate ignores a transaction ID/status it has already applied and orders in a
+ * final state, and duplicates inside one batch are skipped before reaching the database. A failing record is reported
+ * by index, so the records before it are committed and only it is retried, then dead-lettered.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentEventListener {
+
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+            topics = PaymentEventsKafkaConfig.PAYMENT_EVENTS_TOPIC,
+            groupId = "order-service-payments",
+            containerFactory = "paymentEventsListenerContainerFactory"
+    )
+    public void handlePaymentEvents(List<ConsumerRecord<String, String>> records) {
+        log.debug("Received batch of {} payment events.", records.size());
+        Set<String> appliedInBatch = new HashSet<>();
+
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, String> record = records.get(i);
+            try {
+                PaymentUpdateDto update = toPaymentUpdate(record.value());
+                if (update == null) {
+                    continue;
+                }
+                if (!appliedInBatch.add(update.paymentTransactionId() + ':' + update.paymentStatus())) {
+                    log.debug("Skipping duplicate payment outcome {} for transaction {} in batch.",
+                            update.paymentStatus(), update.paymentTransactionId());
+                    continue;
+                }
+                orderService.processPaymentUpdate(update);
+            } catch (Exception e) {
+                log.error("Failed to apply payment event at {}-{}@{} (key {}): {}",
+                        record.topic(), record.partition(), record.offset(), record.key(), e.getMessage(), e);
+                throw new BatchListenerFailedException("Failed to apply payment event", e, i);
+            }
+        }
+    }
+
+    /**
+     * @return the update to apply, or null for events order-service does not act on
+     *         (other payment event types, or payments that are not for an order).
+     */
+    private PaymentUpdateDto toPaymentUpdate(String messageJson) throws JsonProcessingException {
+        JsonNode event = objectMapper.readTree(messageJson);
+        if (!"ORDER".equals(event.path("referenceType").asText(null))) {
+            return null;
+        }
+        String orderId = event.path("referenceId").asText(null);
+        String transactionId = event.path("paymentTransactionId").asText(null);
+        if (orderId == null || transactionId == null) {
+            log.warn("Ignoring payment event without order or transaction ID: {}", messageJson);
+            return null;
+        }
+
+        if (event.has("failedAt")) {
+            // PaymentFailedPayload
+            return new PaymentUpdateDto(orderId, transactionId, PaymentStatus.FAILED, event.path("errorMessage").asText(null));
+        }
+        if (event.has("processedAt") && event.has("gatewayTransactionId")) {
+            // PaymentSucceededPayload
+            return new PaymentUpdateDto(orderId, transactionId, PaymentStatus.SUCCEEDED, null);
+        }
+        log.trace("Ignoring payment event for order {} that is not an outcome.", orderId);
+        return null;
+    }
+}
@@ -11,5 +11,6 @@ public record OrderPaymentSucceededPayload(
     OrderStatus newOrderStatus,    // Will be AWAITING_FULFILLMENT or COMPLETED
     BigDecimal orderTotal,
     String currency,
-    Instant paymentProcessedAt // Or just use event timestamp
+    Instant paymentProcessedAt, // Or just use event timestamp
+    String checkoutId // cart-service checkout snapshot, if the order came from one (nullable)
 ) {}
\ No newline at end of file
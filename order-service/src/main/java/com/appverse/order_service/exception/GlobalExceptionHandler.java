@@ -23,6 +23,11 @@ public class GlobalExceptionHandler {
         return buildResponseEntity(ex.getMessage(), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(InvalidOrderStatusTransitionException.class)
+    public ResponseEntity<?> handleInvalidOrderStatusTransition(InvalidOrderStatusTransitionException ex) {
+        return buildResponseEntity(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<?> handleBadRequest(BadRequestException ex) {
         return buildResponseEntity(ex.getMessage(), HttpStatus.BAD_REQUEST);
@@ -0,0 +1,130 @@
+// === In Order Service Project ===
+package com.appverse.order_service.expiry;
+
+import com.appverse.order_service.enums.OrderStatus;
+import com.appverse.order_service.event.payload.OrderCancelledPayload;
+import com.appverse.order_service.model.CustomerOrder;
+import com.appverse.order_service.outbox.OrderOutbox;
+import com.appverse.order_service.readmodel.OrderReadModelProjector;
+import com.appverse.order_service.repository.OrderRepository;
+import com.appverse.order_service.statemachine.OrderStateMachine;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cancels orders whose payment never completed (still PENDING_PAYMENT or PAYMENT_PROCESSING after the pending TTL).
+ * <p>
+ * Each batch runs in its own short transaction: it claims up to batch-size expired orders of one status with
+ * SELECT ... FOR UPDATE SKIP LOCKED (walking idx_customer_order_status_created_id by keyset), moves them to
+ * CANCELLED_BY_SYSTEM with one UPDATE, patches their read-model views with one UPDATE and queues their OrderCancelled
+ * events with one JDBC batch. The row locks are the lease: several instances can sweep at the same time without
+ * cancelling (or announcing) the same order twice. Payment updates load their orders with a blocking FOR UPDATE
+ * (OrderRepository.lockById / lockWithItemsForOrders), so an update racing the sweep either waits for the batch to
+ * commit (and then finds the order cancelled and ignores itself) or has already locked the row, in which case the
+ * sweep skips it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "appverse.order.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class PendingOrderExpirySweeper {
+
+    private static final String ORDER_EVENTS_TOPIC = "order-events";
+    private static final List<OrderStatus> EXPIRING_STATUSES = List.of(OrderStatus.PENDING_PAYMENT, OrderStatus.PAYMENT_PROCESSING);
+
+    private final OrderRepository orderRepository;
+    private final OrderOutbox orderOutbox;
+    private final OrderReadModelProjector orderReadModelProjector;
+    private final OrderStateMachine orderStateMachine;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${appverse.order.expiry.pending-ttl:PT30M}")
+    private Duration pendingTtl;
+
+    @Value("${appverse.order.expiry.batch-size:200}")
+    private int batchSize;
+
+    @Value("${appverse.order.expiry.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    private record KeysetPosition(Instant createdAt, String orderId) {
+        static final KeysetPosition START = new KeysetPosition(Instant.EPOCH, "");
+    }
+
+    @Scheduled(fixedDelayString = "${appverse.order.expiry.fixed-delay-ms:60000}",
+               initialDelayString = "${appverse.order.expiry.initial-delay-ms:30000}")
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(pendingTtl);
+        int batches = 0;
+        long cancelled = 0;
+        for (OrderStatus status : EXPIRING_STATUSES) {
+            if (!orderStateMachine.sourcesOf(OrderStatus.CANCELLED_BY_SYSTEM).contains(status)) {
+                throw new IllegalStateException(status + " orders cannot be cancelled by the system.");
+            }
+            KeysetPosition position = KeysetPosition.START;
+            while (position != null && batches < maxBatchesPerRun) {
+                KeysetPosition from = position;
+                BatchResult result;
+                try {
+                    result = transactionTemplate.execute(tx -> cancelNextBatch(status, cutoff, from));
+                } catch (Exception e) {
+                    log.error("Pending-order expiry sweep aborted after {} batches: {}", batches, e.getMessage(), e);
+                    return;
+                }
+                batches++;
+                cancelled += result.cancelled();
+                position = result.next();
+            }
+        }
+        if (cancelled > 0) {
+            log.info("Cancelled {} orders pending payment since before {} ({} batches).", cancelled, cutoff, batches);
+        }
+    }
+
+    private record BatchResult(int cancelled, KeysetPosition next) {}
+
+    private BatchResult cancelNextBatch(OrderStatus status, Instant cutoff, KeysetPosition from) {
+        long startNanos = System.nanoTime();
+        List<CustomerOrder> claimed = orderRepository.lockInStatusCreatedBefore(
+                status.name(), cutoff, from.createdAt(), from.orderId(), batchSize);
+        if (claimed.isEmpty()) {
+            return new BatchResult(0, null);
+        }
+        CustomerOrder last = claimed.get(claimed.size() - 1);
+        KeysetPosition next = claimed.size() < batchSize ? null : new KeysetPosition(last.getCreatedAt(), last.getId());
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS); // DATETIME(6) precision, so the view matches the row
+        String reason = "Payment not completed within " + pendingTtl;
+        Map<String, OrderCancelledPayload> events = new LinkedHashMap<>();
+        for (CustomerOrder order : claimed) {
+            events.put(order.getId(), new OrderCancelledPayload(
+                    order.getId(), order.getUserId(), OrderStatus.CANCELLED_BY_SYSTEM, reason, now));
+        }
+        List<String> orderIds = List.copyOf(events.keySet());
+
+        int updated = orderRepository.updateStatus(orderIds, status, OrderStatus.CANCELLED_BY_SYSTEM, now);
+        if (updated != orderIds.size()) {
+            // Cannot happen while the rows are locked; fail the batch rather than announce cancellations that did not happen
+            throw new IllegalStateException("Expected to cancel " + orderIds.size() + " orders but updated " + updated + ".");
+        }
+        orderReadModelProjector.projectStatusChange(orderIds, OrderStatus.CANCELLED_BY_SYSTEM, now);
+        orderOutbox.enqueueAll(ORDER_EVENTS_TOPIC, "OrderCancelled", events);
+
+        orderStateMachine.recordBulkTransition(status, OrderStatus.CANCELLED_BY_SYSTEM, updated, System.nanoTime() - startNanos);
+        log.debug("Cancelled {} expired {} orders.", updated, status);
+        return new BatchResult(updated, next);
+    }
+}
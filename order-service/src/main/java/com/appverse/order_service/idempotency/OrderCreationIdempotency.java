@@ -0,0 +1,104 @@
+// === In Order Service Project ===
+package com.appverse.order_service.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent duplicate order submissions.
+ * <p>
+ * OrderService.createOrder returns the existing order when it finds one for the same Idempotency-Key (or the same
+ * request fingerprint within the dedup window), but two submissions racing each other would both miss that lookup.
+ * On one instance the second one simply waits for the first one's result here. Across instances the primary key of
+ * order_idempotency_keys rejects the loser's insert, and the creation is run once more, which then finds the
+ * winner's order. Orders created from a cart-service checkout are collapsed the same way, keyed by the checkout ID
+ * (the primary key of order_checkouts).
+ */
+@Component
+@Slf4j
+public class OrderCreationIdempotency {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param userId         The ordering user.
+     * @param idempotencyKey The client-supplied Idempotency-Key header value (nullable).
+     * @param fingerprint    The request fingerprint (see {@link OrderRequestFingerprint}).
+     */
+    public <T> T execute(String userId, String idempotencyKey, String fingerprint, Supplier<T> createOrder) {
+        String flightKey = userId + '|' + (idempotencyKey != null ? "key:" + idempotencyKey : "fp:" + fingerprint);
+        return collapse(flightKey, userId, () -> createWithRetryOnDuplicateKey(userId, idempotencyKey, createOrder));
+    }
+
+    /**
+     * @param userId     The ordering user.
+     * @param checkoutId The cart-service checkout the order is created from.
+     */
+    public <T> T executeForCheckout(String userId, String checkoutId, Supplier<T> createOrder) {
+        return collapse(userId + "|checkout:" + checkoutId, userId, () -> {
+            try {
+                return createOrder.get();
+            } catch (DataIntegrityViolationException e) {
+                // Another instance committed an order from this checkout first; this run returns it
+                log.info("Checkout {} of user {} was turned into an order concurrently; returning the existing order.", checkoutId, userId);
+                return createOrder.get();
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T collapse(String flightKey, String userId, Supplier<T> createOrder) {
+        CompletableFuture<Object> candidate = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, candidate);
+        if (existing != null) {
+            log.info("Order submission for user {} is already in flight; waiting for its result.", userId);
+            return (T) awaitResult(existing);
+        }
+
+        try {
+            T result = createOrder.get();
+            candidate.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            candidate.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, candidate);
+        }
+    }
+
+    private static <T> T createWithRetryOnDuplicateKey(String userId, String idempotencyKey, Supplier<T> createOrder) {
+        try {
+            return createOrder.get();
+        } catch (DataIntegrityViolationException e) {
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            // Another instance committed an order with this key first; this run returns it
+            log.info("Idempotency-Key {} of user {} was committed concurrently; returning the existing order.", idempotencyKey, userId);
+            return createOrder.get();
+        }
+    }
+
+    private static Object awaitResult(CompletableFuture<Object> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an in-flight order submission.", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.appverse.order_service.idempotency;
+
+import com.appverse.order_service.dto.CreateOrderItemRequest;
+import com.appverse.order_service.dto.CreateOrderRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Stable hash of an order request: SHA-256 over the user ID and the items, with the items sorted so that the same
+ * basket submitted in a different order fingerprints the same.
+ */
+public final class OrderRequestFingerprint {
+
+    private OrderRequestFingerprint() {
+    }
+
+    public static String of(String userId, CreateOrderRequest request) {
+        List<String> lines = request.items().stream()
+                .map(OrderRequestFingerprint::line)
+                .sorted()
+                .toList();
+        StringBuilder canonical = new StringBuilder(userId).append('\n');
+        lines.forEach(line -> canonical.append(line).append('\n'));
+        return sha256(canonical.toString());
+    }
+
+    private static String line(CreateOrderItemRequest item) {
+        return item.applicationId() + '|' + item.quantity() + '|' + item.itemType();
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // Mandatory in every JRE
+        }
+    }
+}
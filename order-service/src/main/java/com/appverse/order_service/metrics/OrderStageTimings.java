@@ -0,0 +1,149 @@
+// === In Order Service Project ===
+package com.appverse.order_service.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage latency of order creation and payment updates.
+ * <p>
+ * A {@link Clock} is started at the top of a transactional service method and lapped after each stage. Laps are
+ * buffered and recorded when the surrounding transaction completes, so every meter of one call carries the same
+ * item-count bucket, the flush and commit are timed as a final "commit" stage, and the total is tagged with the
+ * outcome (committed or rolled_back) even when the method throws.
+ * <p>
+ * Meters (all percentile histograms, so the Prometheus registry attaches exemplars carrying the Brave trace and span
+ * ids of the request that recorded a bucket; they are visible when scraping with the OpenMetrics format):
+ * <ul>
+ *   <li>{@code order.operation.stage.duration} tagged operation, stage, items</li>
+ *   <li>{@code order.operation.duration} tagged operation, items, outcome</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class OrderStageTimings {
+
+    public static final String CREATE_ORDER = "create_order";
+    public static final String PAYMENT_UPDATE = "payment_update";
+
+    private static final String COMMIT_STAGE = "commit";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public OrderStageTimings(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Starts timing one call of {@code operation}. Outside a transaction the laps are discarded, since there is no
+     * completion to record them at.
+     */
+    public Clock start(String operation) {
+        Clock clock = new Clock(operation);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(clock);
+        } else {
+            log.debug("No transaction synchronization active; {} stage timings will not be recorded.", operation);
+        }
+        return clock;
+    }
+
+    /**
+     * Coarse item-count bucket, so the tag stays low-cardinality.
+     */
+    static String itemBucket(int itemCount) {
+        if (itemCount <= 0) {
+            return "0";
+        }
+        if (itemCount == 1) {
+            return "1";
+        }
+        if (itemCount <= 5) {
+            return "2-5";
+        }
+        if (itemCount <= 20) {
+            return "6-20";
+        }
+        return "21+";
+    }
+
+    private Timer stageTimer(String operation, String stage, String items) {
+        return timers.computeIfAbsent("stage|" + operation + '|' + stage + '|' + items,
+                key -> Timer.builder("order.operation.stage.duration")
+                        .description("Time spent in one stage of an order operation")
+                        .tag("operation", operation).tag("stage", stage).tag("items", items)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(meterRegistry));
+    }
+
+    private Timer totalTimer(String operation, String items, String outcome) {
+        return timers.computeIfAbsent("total|" + operation + '|' + items + '|' + outcome,
+                key -> Timer.builder("order.operation.duration")
+                        .description("End-to-end time of an order operation, including commit")
+                        .tag("operation", operation).tag("items", items).tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(meterRegistry));
+    }
+
+    /**
+     * Lap timer for one call. Not thread-safe; it belongs to the thread running the transaction.
+     */
+    public final class Clock implements TransactionSynchronization {
+
+        private record Lap(String stage, long nanos) {}
+
+        private final String operation;
+        private final long startedAt = System.nanoTime();
+        private final List<Lap> laps = new ArrayList<>(8);
+        private long lastLapAt = startedAt;
+        private int itemCount;
+
+        private Clock(String operation) {
+            this.operation = operation;
+        }
+
+        /**
+         * Sets the item count the meters are bucketed by; may be called at any point before completion.
+         */
+        public void items(int itemCount) {
+            this.itemCount = itemCount;
+        }
+
+        /**
+         * Ends {@code stage}: the time since the previous lap (or the start) is attributed to it.
+         */
+        public void lap(String stage) {
+            long now = System.nanoTime();
+            laps.add(new Lap(stage, now - lastLapAt));
+            lastLapAt = now;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            long now = System.nanoTime();
+            String items = itemBucket(itemCount);
+            for (Lap lap : laps) {
+                stageTimer(operation, lap.stage(), items).record(lap.nanos(), TimeUnit.NANOSECONDS);
+            }
+            stageTimer(operation, COMMIT_STAGE, items).record(now - lastLapAt, TimeUnit.NANOSECONDS);
+            String outcome = status == STATUS_COMMITTED ? "committed" : "rolled_back";
+            totalTimer(operation, items, outcome).record(now - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+}
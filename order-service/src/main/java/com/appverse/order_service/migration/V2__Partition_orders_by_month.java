@@ -0,0 +1,99 @@
+package com.appverse.order_service.migration;
+
+import com.appverse.order_service.archive.OrderPartitions;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partitions customer_orders and order_items by month of created_at (MySQL RANGE COLUMNS).
+ * <p>
+ * MySQL requires every unique key of a partitioned table to contain the partitioning column and does not allow
+ * foreign keys on it, so this first drops the order_items -> customer_orders foreign key (whatever Hibernate named
+ * it) and widens both primary keys to (id, created_at). The entities keep {@code @Id id}: a lookup by ID alone
+ * probes every partition, so the write paths also pass created_at, read from order_views (OrderRepository.lockById).
+ * Partitions are created from the month of the oldest row up to a few months ahead; later months are added by
+ * OrderPartitionMaintenance. A Java migration because the partition list depends on the data.
+ * Rebuilding large tables takes a while and locks them for writes: run it in a maintenance window.
+ */
+@Component // Boot hands JavaMigration beans to Flyway
+@Slf4j
+public class V2__Partition_orders_by_month extends BaseJavaMigration {
+
+    private final int monthsAhead;
+
+    public V2__Partition_orders_by_month(@Value("${appverse.order.partitions.months-ahead:3}") int monthsAhead) {
+        this.monthsAhead = monthsAhead;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            for (String foreignKey : queryStrings(connection,
+                    "SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS " +
+                    "WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'order_items' AND REFERENCED_TABLE_NAME = 'customer_orders'")) {
+                statement.execute("ALTER TABLE order_items DROP FOREIGN KEY `" + foreignKey + "`");
+            }
+            if (queryStrings(connection,
+                    "SELECT INDEX_NAME FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() " +
+                    "AND TABLE_NAME = 'order_items' AND COLUMN_NAME = 'customer_order_id' AND SEQ_IN_INDEX = 1").isEmpty()) {
+                statement.execute("ALTER TABLE order_items ADD KEY idx_order_item_customer_order (customer_order_id)");
+            }
+
+            // RANGE COLUMNS does not accept TIMESTAMP columns; normalize to DATETIME(6) in case ddl-auto chose otherwise
+            statement.execute("ALTER TABLE customer_orders MODIFY created_at DATETIME(6) NOT NULL, " +
+                    "DROP PRIMARY KEY, ADD PRIMARY KEY (id, created_at)");
+            statement.execute("ALTER TABLE order_items MODIFY created_at DATETIME(6) NOT NULL, " +
+                    "DROP PRIMARY KEY, ADD PRIMARY KEY (id, created_at)");
+
+            YearMonth current = YearMonth.now(Clock.systemUTC());
+            YearMonth first = oldestMonth(connection, current);
+            YearMonth last = current.plusMonths(monthsAhead);
+            for (String table : OrderPartitions.PARTITIONED_TABLES) {
+                statement.execute("ALTER TABLE " + table + " " + OrderPartitions.partitionByClause(first, last));
+                log.info("Partitioned {} by month from {} to {}.", table, first, last);
+            }
+        }
+    }
+
+    private static YearMonth oldestMonth(Connection connection, YearMonth fallback) throws SQLException {
+        YearMonth oldest = fallback;
+        for (String table : OrderPartitions.PARTITIONED_TABLES) {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT MIN(created_at) FROM " + table);
+                 ResultSet rows = statement.executeQuery()) {
+                LocalDateTime min = rows.next() ? rows.getObject(1, LocalDateTime.class) : null;
+                if (min != null) {
+                    YearMonth month = YearMonth.from(min); // The stored (UTC) wall-clock value, as partitioned
+                    oldest = month.isBefore(oldest) ? month : oldest;
+                }
+            }
+        }
+        return oldest;
+    }
+
+    private static List<String> queryStrings(Connection connection, String sql) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                values.add(rows.getString(1));
+            }
+        }
+        return values;
+    }
+}
@@ -5,8 +5,11 @@ package com.appverse.order_service.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import com.appverse.order_service.enums.OrderStatus;
@@ -18,13 +21,19 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "customer_orders") // "orders" might be a reserved keyword in some DBs
+@Table(name = "customer_orders", indexes = { // "orders" might be a reserved keyword in some DBs
+    @Index(name = "idx_customer_order_user_created_id", columnList = "user_id, created_at, id"), // Keyset order history
+    @Index(name = "idx_customer_order_user_fingerprint", columnList = "user_id, request_fingerprint, created_at"), // Retry dedup
+    @Index(name = "idx_customer_order_status_created_id", columnList = "order_status, created_at, id") // Expiry sweep, archival
+}) // On MySQL: primary key (id, created_at), partitioned by month of created_at (V2 migration, OrderPartitionMaintenance)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @EntityListeners(AuditingEntityListener.class)
-public class CustomerOrder { // Renamed to CustomerOrder to avoid SQL keyword conflict
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = OrderCacheRegions.ORDERS) // Only used when appverse.order.cache.enabled
+public class CustomerOrder implements Persistable<String> { // Renamed to CustomerOrder to avoid SQL keyword conflict
 
     @Id
     @Column(length = 36)  // Or GenerationType.UUID
@@ -53,6 +62,12 @@ public class CustomerOrder { // Renamed to CustomerOrder to avoid SQL keyword co
     @Column(length = 500)
     private String notes;
 
+    @Column(name = "checkout_id", length = 36)
+    private String checkoutId; // cart-service checkout snapshot this order was created from (nullable)
+
+    @Column(name = "request_fingerprint", length = 64)
+    private String requestFingerprint; // SHA-256 of (userId, items) of the creating request
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
@@ -65,9 +80,31 @@ public class CustomerOrder { // Renamed to CustomerOrder to avoid SQL keyword co
     private Instant completedAt;
 
     @OneToMany(mappedBy = "customerOrder", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = OrderCacheRegions.ORDER_ITEMS_COLLECTION)
     @Builder.Default
     private List<OrderItem> items = new ArrayList<>();
 
+    // The id is assigned by the service, so Spring Data cannot tell new orders from existing ones by a null id and
+    // would merge() them (one SELECT per order and per item) instead of persist(). Cleared once loaded or persisted.
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+
     // Helper methods for items
     public void addItem(OrderItem item) {
         items.add(item);
@@ -0,0 +1,57 @@
+package com.appverse.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Revenue of one application on one UTC day in one currency.
+ */
+@Entity
+@Table(name = "revenue_daily_application_rollup")
+@IdClass(DailyApplicationRevenueRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyApplicationRevenueRollup {
+
+    @Id
+    @Column(name = "day")
+    private LocalDate day;
+
+    @Id
+    @Column(name = "application_id", length = 255)
+    private String applicationId;
+
+    @Id
+    @Column(name = "currency", length = 10)
+    private String currency;
+
+    @Column(name = "units_sold", nullable = false)
+    private long unitsSold;
+
+    @Column(name = "gross_amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal grossAmount;
+
+    @Column(name = "units_refunded", nullable = false)
+    private long unitsRefunded;
+
+    @Column(name = "refunded_amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal refundedAmount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private String applicationId;
+        private String currency;
+    }
+}
@@ -0,0 +1,58 @@
+package com.appverse.order_service.model;
+
+import com.appverse.order_service.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * An archived order: moved out of customer_orders/order_items by OrderArchiver once it has been in a final status
+ * for long enough. The full OrderResponse (items included) is kept as one JSON document.
+ */
+@Entity
+@Table(name = "customer_orders_archive", indexes = {
+    @Index(name = "idx_order_archive_user_created_id", columnList = "user_id, created_at, order_id") // Keyset history
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderArchive {
+
+    @Id
+    @Column(name = "order_id", length = 36)
+    private String orderId;
+
+    @Column(name = "user_id", nullable = false, length = 255)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "order_status", nullable = false, length = 50)
+    private OrderStatus orderStatus;
+
+    @Column(name = "order_total", nullable = false, precision = 19, scale = 4)
+    private BigDecimal orderTotal;
+
+    @Column(nullable = false, length = 10)
+    private String currency;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false)
+    private String document; // OrderResponse as JSON
+}
@@ -0,0 +1,14 @@
+package com.appverse.order_service.model;
+
+/**
+ * Hibernate second-level cache regions of the order entities (created and sized by OrderCacheConfig).
+ */
+public final class OrderCacheRegions {
+
+    public static final String ORDERS = "orders";
+    public static final String ORDER_ITEMS = "order-items";
+    public static final String ORDER_ITEMS_COLLECTION = "orders.items";
+
+    private OrderCacheRegions() {
+    }
+}
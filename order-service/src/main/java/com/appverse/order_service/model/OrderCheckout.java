@@ -0,0 +1,49 @@
+package com.appverse.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Cart-service checkout an order was created from. Like {@link OrderIdempotencyKey}, kept out of customer_orders
+ * because the partitioned table cannot enforce a unique (user_id, checkout_id); here it is the primary key, so a
+ * checkout can only ever produce one order.
+ */
+@Entity
+@Table(name = "order_checkouts", indexes = {
+    @Index(name = "idx_order_checkout_order", columnList = "order_id") // Purged with archived orders
+})
+@IdClass(OrderCheckout.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderCheckout {
+
+    @Id
+    @Column(name = "user_id", length = 255)
+    private String userId;
+
+    @Id
+    @Column(name = "checkout_id", length = 36)
+    private String checkoutId;
+
+    @Column(name = "order_id", nullable = false, length = 36)
+    private String orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt; // The order's created_at: locates its partition of customer_orders
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String userId;
+        private String checkoutId;
+    }
+}
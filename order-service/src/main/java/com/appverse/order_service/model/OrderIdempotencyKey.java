@@ -0,0 +1,49 @@
+package com.appverse.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Client Idempotency-Key of an order submission. Kept out of customer_orders because a partitioned table can only
+ * enforce unique keys that include the partitioning column (created_at); here (user_id, idempotency_key) is the
+ * primary key, so two instances racing on the same key cannot both commit an order.
+ */
+@Entity
+@Table(name = "order_idempotency_keys", indexes = {
+    @Index(name = "idx_order_idempotency_key_order", columnList = "order_id") // Purged with archived orders
+})
+@IdClass(OrderIdempotencyKey.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderIdempotencyKey {
+
+    @Id
+    @Column(name = "user_id", length = 255)
+    private String userId;
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+
+    @Column(name = "order_id", nullable = false, length = 36)
+    private String orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt; // The order's created_at: locates its partition of customer_orders
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String userId;
+        private String idempotencyKey;
+    }
+}
@@ -3,6 +3,8 @@ package com.appverse.order_service.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -21,6 +23,8 @@ import java.util.UUID; // Still needed for generation
 @AllArgsConstructor
 @Builder
 @EntityListeners(AuditingEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = OrderCacheRegions.ORDER_ITEMS)
 public class OrderItem {
 
     @Id
@@ -28,7 +32,8 @@ public class OrderItem {
     private String id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
-    @JoinColumn(name = "customer_order_id", nullable = false)
+    @JoinColumn(name = "customer_order_id", nullable = false,
+                foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT)) // Partitioned tables cannot have foreign keys
     private CustomerOrder customerOrder;
 
     // ... other fields remain the same ...
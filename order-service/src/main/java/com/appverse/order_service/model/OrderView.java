@@ -0,0 +1,43 @@
+package com.appverse.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * Denormalized read model of an order: the complete OrderResponse JSON, rewritten on every state change by
+ * OrderReadModelProjector and served as-is by the query endpoints.
+ */
+@Entity
+@Table(name = "order_views", indexes = {
+    @Index(name = "idx_order_view_user_created_id", columnList = "user_id, created_at, order_id") // Keyset history
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderView {
+
+    @Id
+    @Column(name = "order_id", length = 36)
+    private String orderId;
+
+    @Column(name = "user_id", nullable = false, length = 255)
+    private String userId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false)
+    private String document; // OrderResponse as JSON
+}
@@ -0,0 +1,56 @@
+package com.appverse.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * An event waiting to be published to Kafka, written in the same transaction as the order change it describes.
+ * Rows are published in id order by OrderOutboxRelay and marked with published_at.
+ */
+@Entity
+@Table(name = "order_outbox", indexes = {
+    @Index(name = "idx_order_outbox_published_id", columnList = "published_at, id"), // Relay scan: unpublished rows in id order
+    @Index(name = "idx_order_outbox_key_published_id", columnList = "event_key, published_at, id") // Earlier-row check per key
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY) // Monotonic id = commit-independent publish order
+    private Long id;
+
+    @Column(nullable = false, length = 255)
+    private String topic;
+
+    @Column(name = "event_key", nullable = false, length = 255)
+    private String eventKey; // Kafka record key (the order ID)
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false)
+    private String payload; // Serialized JSON, published as-is
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "published_at")
+    private Instant publishedAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
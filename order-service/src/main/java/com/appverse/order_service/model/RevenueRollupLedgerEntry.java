@@ -0,0 +1,42 @@
+package com.appverse.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Marks that an order's contribution (its sale, or its refund) has been added to the revenue rollups.
+ */
+@Entity
+@Table(name = "revenue_rollup_ledger")
+@IdClass(RevenueRollupLedgerEntry.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueRollupLedgerEntry {
+
+    @Id
+    @Column(name = "order_id", length = 36)
+    private String orderId;
+
+    @Id
+    @Column(name = "entry_type", length = 20)
+    private String entryType; // SALE or REFUND
+
+    @Column(name = "applied_at", nullable = false)
+    private Instant appliedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String orderId;
+        private String entryType;
+    }
+}
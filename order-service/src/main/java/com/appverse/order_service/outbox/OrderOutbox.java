@@ -0,0 +1,113 @@
+// === In Order Service Project ===
+package com.appverse.order_service.outbox;
+
+import com.appverse.order_service.exception.OrderProcessingException;
+import com.appverse.order_service.model.OutboxEvent;
+import com.appverse.order_service.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Writes events to the order_outbox table instead of sending them to Kafka directly. Must be called inside the
+ * transaction that changes the order, so an event exists if and only if that change committed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderOutbox {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_outbox (topic, event_key, event_type, payload, created_at, attempts) VALUES (?, ?, ?, ?, ?, 0)";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Rows queued by enqueue() while inside batched(), written with one JDBC batch when it returns
+    private final ThreadLocal<List<Object[]>> pendingBatch = new ThreadLocal<>();
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String topic, String key, String eventType, Object payload) {
+        String json = serialize(key, eventType, payload);
+        List<Object[]> batch = pendingBatch.get();
+        if (batch != null) {
+            batch.add(new Object[]{topic, key, eventType, json, LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC)});
+            return;
+        }
+        outboxEventRepository.save(OutboxEvent.builder()
+                .topic(topic)
+                .eventKey(key)
+                .eventType(eventType)
+                .payload(json)
+                .createdAt(Instant.now())
+                .build());
+        log.debug("Queued {} event for key {} in the outbox.", eventType, key);
+    }
+
+    /**
+     * Queues one event per entry (keyed by the map key) with a single JDBC batch. The IDENTITY ids rule out Hibernate
+     * insert batching, so this goes through JdbcTemplate on the transaction's connection (rewritten into a multi-row
+     * INSERT by the MySQL driver). Ids still follow the map's iteration order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(String topic, String eventType, Map<String, ?> payloadsByKey) {
+        if (payloadsByKey.isEmpty()) {
+            return;
+        }
+        LocalDateTime createdAt = LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC); // As Hibernate stores Instants
+        List<Object[]> rows = new ArrayList<>(payloadsByKey.size());
+        payloadsByKey.forEach((key, payload) ->
+                rows.add(new Object[]{topic, key, eventType, serialize(key, eventType, payload), createdAt}));
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        log.debug("Queued {} {} events in the outbox.", rows.size(), eventType);
+    }
+
+    /**
+     * Runs {@code work} with {@link #enqueue} buffering its events, then writes them all with a single JDBC batch, in
+     * the order they were queued. For bulk operations that would otherwise insert one outbox row per statement.
+     * Nested calls join the outer batch. If {@code work} throws, the buffered events are dropped with the transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> T batched(Supplier<T> work) {
+        if (pendingBatch.get() != null) {
+            return work.get();
+        }
+        List<Object[]> batch = new ArrayList<>();
+        pendingBatch.set(batch);
+        T result;
+        try {
+            result = work.get();
+        } finally {
+            pendingBatch.remove();
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            log.debug("Queued {} buffered events in the outbox.", batch.size());
+        }
+        return result;
+    }
+
+    private String serialize(String key, String eventType, Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            // Fail the business transaction: committing the order without its event is what the outbox prevents
+            throw new OrderProcessingException("Could not serialize " + eventType + " event for key " + key + ".", e);
+        }
+    }
+}
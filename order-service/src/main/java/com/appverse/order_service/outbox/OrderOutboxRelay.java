@@ -0,0 +1,184 @@
+// === In Order Service Project ===
+package com.appverse.order_service.outbox;
+
+import com.appverse.order_service.model.OutboxEvent;
+import com.appverse.order_service.repository.OutboxEventRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes order_outbox rows to Kafka.
+ * <p>
+ * Each pass claims a batch of unpublished rows with SELECT ... FOR UPDATE SKIP LOCKED, sends them all (the producer
+ * batches them), waits for the acks and marks the acknowledged rows published, all in one short transaction.
+ * Delivery is at-least-once: a crash after the send but before the commit republishes the batch, so consumers must
+ * tolerate duplicates (the order-events consumers already are). A batch holds at most one row per key (the key's
+ * earliest unpublished row, see {@link OutboxEventRepository#lockNextUnpublished}), so a key's next event is only
+ * claimed once the previous one is published. This keeps per-order order across relay instances and across failed
+ * sends, at the cost of one event per key per batch.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "appverse.order.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderOutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final KafkaTemplate<String, String> outboxKafkaTemplate;
+
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+
+    @Value("${appverse.order.outbox.relay.batch-size:200}")
+    private int batchSize;
+
+    @Value("${appverse.order.outbox.relay.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Value("${appverse.order.outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${appverse.order.outbox.retention:P7D}")
+    private Duration retention;
+
+    public OrderOutboxRelay(OutboxEventRepository outboxEventRepository,
+                            TransactionTemplate transactionTemplate,
+                            ProducerFactory<String, String> producerFactory,
+                            MeterRegistry meterRegistry,
+                            @Value("${appverse.order.outbox.producer.linger-ms:5}") int lingerMs,
+                            @Value("${appverse.order.outbox.producer.batch-size:65536}") int producerBatchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        // Not a bean on purpose: a KafkaTemplate bean would switch off Boot's default template. It runs on a copy of
+        // Boot's producer factory with the overrides below. Payloads are already JSON, so values are plain strings.
+        // Idempotence + acks=all keep producer retries from duplicating or reordering records within a partition;
+        // linger/batch size group a pass into few requests.
+        this.outboxKafkaTemplate = new KafkaTemplate<>(producerFactory, Map.of(
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5,
+                ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize,
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4"));
+        this.outboxKafkaTemplate.setObservationEnabled(true);
+
+        this.publishedCounter = Counter.builder("order.outbox.published")
+                .description("Outbox events published to Kafka").register(meterRegistry);
+        this.failedCounter = Counter.builder("order.outbox.publish.failures")
+                .description("Outbox events whose send failed and will be retried").register(meterRegistry);
+        Gauge.builder("order.outbox.lag", lagMillis, value -> value.get() / 1000.0)
+                .baseUnit("seconds")
+                .description("Age of the oldest unpublished outbox event as of the last relay pass").register(meterRegistry);
+        Gauge.builder("order.outbox.pending", pending, AtomicLong::get)
+                .description("Unpublished outbox events as of the last relay pass").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${appverse.order.outbox.relay.fixed-delay-ms:500}")
+    public void relay() {
+        int batches = 0;
+        while (batches < maxBatchesPerRun) {
+            Integer claimed;
+            try {
+                claimed = transactionTemplate.execute(status -> publishNextBatch());
+            } catch (Exception e) {
+                log.error("Outbox relay pass aborted after {} batches: {}", batches, e.getMessage(), e);
+                break;
+            }
+            batches++;
+            if (claimed == null || claimed < batchSize) {
+                break;
+            }
+        }
+        Instant oldest = outboxEventRepository.findOldestUnpublishedCreatedAt();
+        lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, Instant.now()).toMillis()));
+        pending.set(outboxEventRepository.countByPublishedAtIsNull());
+    }
+
+    @Scheduled(cron = "${appverse.order.outbox.cleanup-cron:0 30 3 * * *}")
+    public void deletePublished() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.deletePublishedBefore(Instant.now().minus(retention)));
+        log.info("Deleted {} published outbox events older than {}.", deleted, retention);
+    }
+
+    private int publishNextBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.lockNextUnpublished(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<OutboxEvent, CompletableFuture<SendResult<String, String>>> sends = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            ProducerRecord<String, String> record = new ProducerRecord<>(event.getTopic(), event.getEventKey(), event.getPayload());
+            record.headers().add("eventType", event.getEventType().getBytes(StandardCharsets.UTF_8));
+            sends.put(event, outboxKafkaTemplate.send(record));
+        }
+        outboxKafkaTemplate.flush();
+
+        List<Long> publishedIds = new ArrayList<>(batch.size());
+        List<Long> failedIds = new ArrayList<>();
+        String lastError = null;
+        for (Map.Entry<OutboxEvent, CompletableFuture<SendResult<String, String>>> send : sends.entrySet()) {
+            OutboxEvent event = send.getKey();
+            try {
+                send.getValue().get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                publishedIds.add(event.getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for outbox sends.", e);
+            } catch (Exception e) {
+                log.warn("Failed to publish outbox event {} ({} for key {}): {}",
+                        event.getId(), event.getEventType(), event.getEventKey(), e.getMessage());
+                failedIds.add(event.getId());
+                lastError = e.getMessage();
+            }
+        }
+
+        if (!publishedIds.isEmpty()) {
+            outboxEventRepository.markPublished(publishedIds, Instant.now());
+            publishedCounter.increment(publishedIds.size());
+        }
+        if (!failedIds.isEmpty()) {
+            String error = lastError != null && lastError.length() > 1000 ? lastError.substring(0, 1000) : lastError;
+            outboxEventRepository.markFailed(failedIds, error);
+            failedCounter.increment(failedIds.size());
+        }
+        log.debug("Outbox relay batch: {} published, {} to retry.", publishedIds.size(), failedIds.size());
+        return failedIds.isEmpty() ? batch.size() : 0; // Back off until the next pass if the broker is rejecting sends
+    }
+
+    @PreDestroy
+    public void close() {
+        outboxKafkaTemplate.destroy();
+    }
+}
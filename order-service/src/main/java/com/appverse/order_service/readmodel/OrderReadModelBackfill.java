@@ -0,0 +1,55 @@
+// === In Order Service Project ===
+package com.appverse.order_service.readmodel;
+
+import com.appverse.order_service.repository.OrderRepository;
+import com.appverse.order_service.repository.OrderViewRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Projects orders that have no read-model row yet (orders placed before order_views existed), in batches, at startup.
+ * Idempotent: once every order has a view this is a single empty query.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "appverse.order.read-model.backfill-on-startup", havingValue = "true", matchIfMissing = true)
+public class OrderReadModelBackfill implements ApplicationRunner {
+
+    private final OrderRepository orderRepository;
+    private final OrderViewRepository orderViewRepository;
+    private final OrderReadModelProjector orderReadModelProjector;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${appverse.order.read-model.backfill-batch-size:200}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String afterId = "";
+        long projected = 0;
+        while (true) {
+            List<String> orderIds = orderViewRepository.findOrderIdsWithoutView(afterId, PageRequest.ofSize(batchSize));
+            if (orderIds.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    orderRepository.fetchItemsForOrders(orderIds).forEach(orderReadModelProjector::project));
+            projected += orderIds.size();
+            afterId = orderIds.get(orderIds.size() - 1);
+        }
+        if (projected > 0) {
+            log.info("Backfilled the order read model for {} orders.", projected);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+// === In Order Service Project ===
+package com.appverse.order_service.readmodel;
+
+import com.appverse.order_service.enums.OrderStatus;
+import com.appverse.order_service.exception.OrderProcessingException;
+import com.appverse.order_service.mapper.OrderMapper;
+import com.appverse.order_service.model.CustomerOrder;
+import com.appverse.order_service.repository.OrderRepository;
+import com.appverse.order_service.repository.OrderViewRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps order_views in step with customer_orders. Called by OrderServiceImpl after every state change, inside the same
+ * transaction, so the read model can never show a change that rolled back.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderReadModelProjector {
+
+    // Same statement as OrderViewRepository.upsert, for JDBC batches
+    private static final String UPSERT_SQL =
+            "INSERT INTO order_views (order_id, user_id, created_at, updated_at, document) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE document = VALUES(document), updated_at = VALUES(updated_at)";
+
+    private final OrderRepository orderRepository;
+    private final OrderViewRepository orderViewRepository;
+    private final OrderMapper orderMapper;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void project(CustomerOrder order) {
+        orderRepository.flush(); // Audit timestamps (createdAt/updatedAt) are assigned on flush
+        orderViewRepository.upsert(order.getId(), order.getUserId(), order.getCreatedAt(), order.getUpdatedAt(), document(order));
+        log.debug("Projected order {} ({}) into the read model.", order.getId(), order.getOrderStatus());
+    }
+
+    /**
+     * {@link #project} for many orders: one flush and one JDBC batch of upserts (a multi-row statement on MySQL).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void projectAll(Collection<CustomerOrder> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        orderRepository.flush();
+        List<Object[]> rows = new ArrayList<>(orders.size());
+        for (CustomerOrder order : orders) {
+            rows.add(new Object[]{order.getId(), order.getUserId(), utc(order.getCreatedAt()), utc(order.getUpdatedAt()), document(order)});
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        log.debug("Projected {} orders into the read model.", rows.size());
+    }
+
+    /**
+     * Applies a set-based status change to the views of {@code orderIds} without loading the orders. Orders without a
+     * view yet are left to the backfill.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void projectStatusChange(Collection<String> orderIds, OrderStatus status, Instant updatedAt) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        orderViewRepository.updateStatus(orderIds, status.name(), updatedAt.toString(), updatedAt);
+    }
+
+    private String document(CustomerOrder order) {
+        try {
+            return objectMapper.writeValueAsString(orderMapper.toOrderResponse(order));
+        } catch (JsonProcessingException e) {
+            throw new OrderProcessingException("Could not serialize read model for order " + order.getId() + ".", e);
+        }
+    }
+
+    private static LocalDateTime utc(Instant instant) {
+        return instant != null ? LocalDateTime.ofInstant(instant, ZoneOffset.UTC) : null; // As Hibernate stores Instants
+    }
+}
@@ -0,0 +1,35 @@
+package com.appverse.order_service.repository;
+
+import com.appverse.order_service.model.OrderArchive;
+import com.appverse.order_service.repository.OrderViewRepository.OrderDocumentView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderArchiveRepository extends JpaRepository<OrderArchive, String> {
+
+    @Query("select a.document from OrderArchive a where a.orderId = :orderId")
+    Optional<String> findDocumentByOrderId(@Param("orderId") String orderId);
+
+    // Same shape and ordering as the OrderViewRepository history queries, so pages of both can be merged
+
+    @Query("select a.orderId as orderId, a.createdAt as createdAt, a.document as document from OrderArchive a " +
+           "where a.userId = :userId order by a.createdAt desc, a.orderId desc")
+    List<OrderDocumentView> findFirstHistoryPage(@Param("userId") String userId, Pageable pageable);
+
+    @Query("select a.orderId as orderId, a.createdAt as createdAt, a.document as document from OrderArchive a " +
+           "where a.userId = :userId " +
+           "and (a.createdAt < :beforeCreatedAt or (a.createdAt = :beforeCreatedAt and a.orderId < :beforeId)) " +
+           "order by a.createdAt desc, a.orderId desc")
+    List<OrderDocumentView> findHistoryPageBefore(@Param("userId") String userId,
+                                                  @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                                  @Param("beforeId") String beforeId,
+                                                  Pageable pageable);
+}
@@ -0,0 +1,36 @@
+package com.appverse.order_service.repository;
+
+import com.appverse.order_service.model.OrderCheckout;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+@Repository
+public interface OrderCheckoutRepository extends JpaRepository<OrderCheckout, OrderCheckout.Key> {
+
+    /**
+     * Plain INSERT, like {@link OrderIdempotencyKeyRepository#insert}: a checkout already turned into an order by a
+     * concurrent request fails with a DataIntegrityViolationException.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "order_checkouts"))
+    @Query(value = "INSERT INTO order_checkouts (user_id, checkout_id, order_id, created_at) " +
+                   "VALUES (:userId, :checkoutId, :orderId, :createdAt)",
+           nativeQuery = true)
+    int insert(@Param("userId") String userId,
+               @Param("checkoutId") String checkoutId,
+               @Param("orderId") String orderId,
+               @Param("createdAt") Instant createdAt);
+
+    @Modifying
+    @Query("delete from OrderCheckout c where c.orderId in :orderIds")
+    int deleteByOrderIds(@Param("orderIds") Collection<String> orderIds);
+}
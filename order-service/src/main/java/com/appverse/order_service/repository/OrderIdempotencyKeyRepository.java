@@ -0,0 +1,36 @@
+package com.appverse.order_service.repository;
+
+import com.appverse.order_service.model.OrderIdempotencyKey;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+@Repository
+public interface OrderIdempotencyKeyRepository extends JpaRepository<OrderIdempotencyKey, OrderIdempotencyKey.Key> {
+
+    /**
+     * Plain INSERT (save() would merge into an existing row): a key already taken by a concurrent submission fails
+     * with a DataIntegrityViolationException. Declares its table, so Hibernate does not evict every cache region.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "order_idempotency_keys"))
+    @Query(value = "INSERT INTO order_idempotency_keys (user_id, idempotency_key, order_id, created_at) " +
+                   "VALUES (:userId, :idempotencyKey, :orderId, :createdAt)",
+           nativeQuery = true)
+    int insert(@Param("userId") String userId,
+               @Param("idempotencyKey") String idempotencyKey,
+               @Param("orderId") String orderId,
+               @Param("createdAt") Instant createdAt);
+
+    @Modifying
+    @Query("delete from OrderIdempotencyKey k where k.orderId in :orderIds")
+    int deleteByOrderIds(@Param("orderIds") Collection<String> orderIds);
+}
@@ -1,15 +1,122 @@
 
 package com.appverse.order_service.repository;
 
+import com.appverse.order_service.enums.OrderStatus;
 import com.appverse.order_service.model.CustomerOrder;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<CustomerOrder, String> {
-    List<CustomerOrder> findByUserIdOrderByCreatedAtDesc(String userId);
-    Optional<CustomerOrder> findByIdAndUserId(String orderId, String userId); // For operations needing ownership check
-}
\ No newline at end of file
+    // --- Idempotent creation (Idempotency-Keys live in order_idempotency_keys) ---
+
+    // Served by idx_customer_order_user_fingerprint; the status filter is applied to the few rows it matches
+    Optional<CustomerOrder> findFirstByUserIdAndRequestFingerprintAndOrderStatusInAndCreatedAtAfterOrderByCreatedAtDesc(
+            String userId, String requestFingerprint, Collection<OrderStatus> orderStatuses, Instant createdAfter);
+
+    // --- Keyset-paginated order history on (created_at, id), newest first; served by idx_customer_order_user_created_id ---
+
+    @Query("select o from CustomerOrder o where o.userId = :userId order by o.createdAt desc, o.id desc")
+    List<CustomerOrder> findFirstHistoryPage(@Param("userId") String userId, Pageable pageable);
+
+    @Query("select o from CustomerOrder o where o.userId = :userId " +
+           "and (o.createdAt < :beforeCreatedAt or (o.createdAt = :beforeCreatedAt and o.id < :beforeId)) " +
+           "order by o.createdAt desc, o.id desc")
+    List<CustomerOrder> findHistoryPageBefore(@Param("userId") String userId,
+                                              @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                              @Param("beforeId") String beforeId,
+                                              Pageable pageable);
+
+    /**
+     * Loads the items of a whole page of orders in one query (instead of one lazy load per order while mapping).
+     * Returned orders are the same managed instances as the page, now with their items initialized.
+     */
+    @Query("select distinct o from CustomerOrder o left join fetch o.items where o.id in :orderIds")
+    List<CustomerOrder> fetchItemsForOrders(@Param("orderIds") Collection<String> orderIds);
+
+    // --- Write paths: lock the order rows so they serialize with each other and with the expiry sweeper ---
+    // On MySQL customer_orders is partitioned by created_at and keyed (id, created_at): pass created_at (from the read
+    // model) where it is known, so only that partition is probed instead of every one.
+
+    /**
+     * Loads an order and its items with SELECT ... FOR UPDATE. Queries always read the database, never the
+     * second-level cache (which may hold another instance's stale copy), so a change is applied to the committed state.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from CustomerOrder o left join fetch o.items where o.id = :orderId and o.createdAt = :createdAt")
+    Optional<CustomerOrder> lockById(@Param("orderId") String orderId, @Param("createdAt") Instant createdAt);
+
+    /**
+     * {@link #lockById(String, Instant)} for an order whose created_at is not known; probes every partition.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from CustomerOrder o left join fetch o.items where o.id = :orderId")
+    Optional<CustomerOrder> lockById(@Param("orderId") String orderId);
+
+    /**
+     * {@link #fetchItemsForOrders} with the orders locked FOR UPDATE, in id order so concurrent chunks that share
+     * orders do not deadlock. {@code createdAts} limits the scan to the partitions of those orders.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from CustomerOrder o left join fetch o.items where o.id in :orderIds and o.createdAt in :createdAts " +
+           "order by o.id")
+    List<CustomerOrder> lockWithItemsForOrders(@Param("orderIds") Collection<String> orderIds,
+                                               @Param("createdAts") Collection<Instant> createdAts);
+
+    /**
+     * {@link #lockWithItemsForOrders(Collection, Collection)} for orders whose created_at is not known.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from CustomerOrder o left join fetch o.items where o.id in :orderIds order by o.id")
+    List<CustomerOrder> lockWithItemsForOrders(@Param("orderIds") Collection<String> orderIds);
+
+    @Query("select o from CustomerOrder o where o.id = :orderId and o.createdAt = :createdAt")
+    Optional<CustomerOrder> findByIdAndCreatedAt(@Param("orderId") String orderId, @Param("createdAt") Instant createdAt);
+
+    // --- Pending-payment expiry and archival (keyset on (created_at, id) within one status; served by idx_customer_order_status_created_id) ---
+
+    /**
+     * Claims the next batch of orders in {@code status} created before {@code cutoff}, strictly after the keyset position
+     * ({@code afterCreatedAt}, {@code afterId}), for the current transaction. Rows locked by another sweeper/archiver
+     * instance (or by an in-flight payment update) are skipped rather than waited for (MySQL 8 SKIP LOCKED).
+     */
+    @Query(value = "SELECT * FROM customer_orders WHERE order_status = :status AND created_at < :cutoff " +
+                   "AND (created_at > :afterCreatedAt OR (created_at = :afterCreatedAt AND id > :afterId)) " +
+                   "ORDER BY created_at, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<CustomerOrder> lockInStatusCreatedBefore(@Param("status") String status,
+                                                  @Param("cutoff") Instant cutoff,
+                                                  @Param("afterCreatedAt") Instant afterCreatedAt,
+                                                  @Param("afterId") String afterId,
+                                                  @Param("limit") int limit);
+
+    /**
+     * Set-based status change of locked orders. Auditing does not run for bulk updates, so updated_at is passed in.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update CustomerOrder o set o.orderStatus = :toStatus, o.updatedAt = :now " +
+           "where o.id in :orderIds and o.orderStatus = :fromStatus")
+    int updateStatus(@Param("orderIds") Collection<String> orderIds,
+                     @Param("fromStatus") OrderStatus fromStatus,
+                     @Param("toStatus") OrderStatus toStatus,
+                     @Param("now") Instant now);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from OrderItem oi where oi.customerOrder.id in :orderIds")
+    int deleteItemsByOrderIds(@Param("orderIds") Collection<String> orderIds);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from CustomerOrder o where o.id in :orderIds")
+    int deleteByIds(@Param("orderIds") Collection<String> orderIds);
+}
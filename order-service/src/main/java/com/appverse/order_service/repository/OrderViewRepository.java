@@ -0,0 +1,93 @@
+package com.appverse.order_service.repository;
+
+import com.appverse.order_service.model.OrderView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderViewRepository extends JpaRepository<OrderView, String> {
+
+    interface OrderDocumentView {
+        String getOrderId();
+        Instant getCreatedAt();
+        String getDocument();
+    }
+
+    interface OrderCreatedAtView {
+        String getOrderId();
+        Instant getCreatedAt();
+    }
+
+    @Query("select v.document from OrderView v where v.orderId = :orderId")
+    Optional<String> findDocumentByOrderId(@Param("orderId") String orderId);
+
+    // --- created_at of orders by ID, so lookups in the partitioned customer_orders can be pruned to one partition ---
+
+    @Query("select v.createdAt from OrderView v where v.orderId = :orderId")
+    Optional<Instant> findCreatedAtByOrderId(@Param("orderId") String orderId);
+
+    @Query("select v.orderId as orderId, v.createdAt as createdAt from OrderView v where v.orderId in :orderIds")
+    List<OrderCreatedAtView> findCreatedAtByOrderIds(@Param("orderIds") Collection<String> orderIds);
+
+    @Query("select v.orderId as orderId, v.createdAt as createdAt, v.document as document from OrderView v " +
+           "where v.userId = :userId order by v.createdAt desc, v.orderId desc")
+    List<OrderDocumentView> findFirstHistoryPage(@Param("userId") String userId, Pageable pageable);
+
+    @Query("select v.orderId as orderId, v.createdAt as createdAt, v.document as document from OrderView v " +
+           "where v.userId = :userId " +
+           "and (v.createdAt < :beforeCreatedAt or (v.createdAt = :beforeCreatedAt and v.orderId < :beforeId)) " +
+           "order by v.createdAt desc, v.orderId desc")
+    List<OrderDocumentView> findHistoryPageBefore(@Param("userId") String userId,
+                                                  @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                                  @Param("beforeId") String beforeId,
+                                                  Pageable pageable);
+
+    /**
+     * Inserts or replaces the view row of one order in a single statement (MySQL-specific).
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "order_views")) // Else every cache region is evicted
+    @Query(value = "INSERT INTO order_views (order_id, user_id, created_at, updated_at, document) " +
+                   "VALUES (:orderId, :userId, :createdAt, :updatedAt, :document) " +
+                   "ON DUPLICATE KEY UPDATE document = VALUES(document), updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int upsert(@Param("orderId") String orderId,
+               @Param("userId") String userId,
+               @Param("createdAt") Instant createdAt,
+               @Param("updatedAt") Instant updatedAt,
+               @Param("document") String document);
+
+    /**
+     * Patches the status of many views in place (MySQL JSON_SET), for set-based status changes that do not load the
+     * orders. {@code updatedAtJson} must be formatted the way Jackson writes Instants.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "order_views"))
+    @Query(value = "UPDATE order_views SET document = JSON_SET(document, '$.orderStatus', :status, '$.updatedAt', :updatedAtJson), " +
+                   "updated_at = :updatedAt WHERE order_id IN (:orderIds)",
+           nativeQuery = true)
+    int updateStatus(@Param("orderIds") Collection<String> orderIds,
+                     @Param("status") String status,
+                     @Param("updatedAtJson") String updatedAtJson,
+                     @Param("updatedAt") Instant updatedAt);
+
+    @Modifying
+    @Query("delete from OrderView v where v.orderId in :orderIds")
+    int deleteByOrderIds(@Param("orderIds") Collection<String> orderIds);
+
+    @Query("select o.id from CustomerOrder o where o.id > :afterId " +
+           "and not exists (select 1 from OrderView v where v.orderId = o.id) order by o.id")
+    List<String> findOrderIdsWithoutView(@Param("afterId") String afterId, Pageable pageable);
+}
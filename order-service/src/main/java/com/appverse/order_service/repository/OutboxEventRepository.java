@@ -0,0 +1,47 @@
+package com.appverse.order_service.repository;
+
+import com.appverse.order_service.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Claims the oldest unpublished events for the current transaction. Rows locked by another relay instance are
+     * skipped rather than waited for (MySQL 8 SKIP LOCKED), so several instances can drain the outbox in parallel.
+     * Only the earliest unpublished event of each key is eligible: a later one waits until the earlier one is
+     * published, even when the earlier one is locked by another relay or its send failed, so every key is
+     * published in id order. The subquery is a plain consistent read, so it sees rows locked by other relays.
+     */
+    @Query(value = "SELECT * FROM order_outbox o WHERE o.published_at IS NULL " +
+                   "AND NOT EXISTS (SELECT 1 FROM order_outbox e WHERE e.event_key = o.event_key " +
+                   "AND e.published_at IS NULL AND e.id < o.id) " +
+                   "ORDER BY o.id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<OutboxEvent> lockNextUnpublished(@Param("limit") int limit);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :publishedAt where e.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") Instant publishedAt);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = e.attempts + 1, e.lastError = :error where e.id in :ids")
+    int markFailed(@Param("ids") Collection<Long> ids, @Param("error") String error);
+
+    @Query("select min(e.createdAt) from OutboxEvent e where e.publishedAt is null")
+    Instant findOldestUnpublishedCreatedAt();
+
+    long countByPublishedAtIsNull();
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.publishedAt < :cutoff")
+    int deletePublishedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,105 @@
+package com.appverse.order_service.repository;
+
+import com.appverse.order_service.model.DailyRevenueRollup;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RevenueRollupRepository extends JpaRepository<DailyRevenueRollup, DailyRevenueRollup.Key> {
+
+    /**
+     * Claims an (order, entry) contribution in revenue_rollup_ledger (MySQL-specific). INSERT IGNORE rather than
+     * ON DUPLICATE KEY UPDATE: with Connector/J's default CLIENT_FOUND_ROWS a no-op update still reports 1 row.
+     * Like every native write here it declares its table as the query space; without one Hibernate evicts every
+     * second-level cache region on each order completion.
+     *
+     * @return 1 if the contribution is new, 0 if it was applied before and must not be added again.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "revenue_rollup_ledger"))
+    @Query(value = "INSERT IGNORE INTO revenue_rollup_ledger (order_id, entry_type, applied_at) VALUES (:orderId, :entryType, :appliedAt)",
+           nativeQuery = true)
+    int claimLedgerEntry(@Param("orderId") String orderId,
+                         @Param("entryType") String entryType,
+                         @Param("appliedAt") Instant appliedAt);
+
+    /**
+     * Adds the given deltas to the (day, currency) row, creating it if needed (MySQL-specific).
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "revenue_daily_rollup"))
+    @Query(value = "INSERT INTO revenue_daily_rollup (day, currency, order_count, gross_amount, refund_count, refunded_amount) " +
+                   "VALUES (:day, :currency, :orderCount, :grossAmount, :refundCount, :refundedAmount) " +
+                   "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+                   "gross_amount = gross_amount + VALUES(gross_amount), " +
+                   "refund_count = refund_count + VALUES(refund_count), " +
+                   "refunded_amount = refunded_amount + VALUES(refunded_amount)",
+           nativeQuery = true)
+    int addToDaily(@Param("day") LocalDate day,
+                   @Param("currency") String currency,
+                   @Param("orderCount") long orderCount,
+                   @Param("grossAmount") BigDecimal grossAmount,
+                   @Param("refundCount") long refundCount,
+                   @Param("refundedAmount") BigDecimal refundedAmount);
+
+    /**
+     * Adds the given deltas to the (day, application, currency) row, creating it if needed (MySQL-specific).
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "revenue_daily_application_rollup"))
+    @Query(value = "INSERT INTO revenue_daily_application_rollup " +
+                   "(day, application_id, currency, units_sold, gross_amount, units_refunded, refunded_amount) " +
+                   "VALUES (:day, :applicationId, :currency, :unitsSold, :grossAmount, :unitsRefunded, :refundedAmount) " +
+                   "ON DUPLICATE KEY UPDATE units_sold = units_sold + VALUES(units_sold), " +
+                   "gross_amount = gross_amount + VALUES(gross_amount), " +
+                   "units_refunded = units_refunded + VALUES(units_refunded), " +
+                   "refunded_amount = refunded_amount + VALUES(refunded_amount)",
+           nativeQuery = true)
+    int addToDailyApplication(@Param("day") LocalDate day,
+                              @Param("applicationId") String applicationId,
+                              @Param("currency") String currency,
+                              @Param("unitsSold") long unitsSold,
+                              @Param("grossAmount") BigDecimal grossAmount,
+                              @Param("unitsRefunded") long unitsRefunded,
+                              @Param("refundedAmount") BigDecimal refundedAmount);
+
+    // --- Reporting (primary-key range scans on day) ---
+
+    @Query("select r from DailyRevenueRollup r where r.day between :from and :to " +
+           "and (:currency is null or r.currency = :currency) order by r.day asc, r.currency asc")
+    List<DailyRevenueRollup> findDaily(@Param("from") LocalDate from,
+                                       @Param("to") LocalDate to,
+                                       @Param("currency") String currency);
+
+    interface ApplicationRevenueView {
+        String getApplicationId();
+        String getCurrency();
+        Long getUnitsSold();
+        BigDecimal getGrossAmount();
+        Long getUnitsRefunded();
+        BigDecimal getRefundedAmount();
+    }
+
+    @Query("select r.applicationId as applicationId, r.currency as currency, sum(r.unitsSold) as unitsSold, " +
+           "sum(r.grossAmount) as grossAmount, sum(r.unitsRefunded) as unitsRefunded, sum(r.refundedAmount) as refundedAmount " +
+           "from DailyApplicationRevenueRollup r where r.day between :from and :to " +
+           "and (:currency is null or r.currency = :currency) " +
+           "group by r.applicationId, r.currency " +
+           "order by sum(r.grossAmount) - sum(r.refundedAmount) desc, r.applicationId asc")
+    List<ApplicationRevenueView> sumByApplication(@Param("from") LocalDate from,
+                                                  @Param("to") LocalDate to,
+                                                  @Param("currency") String currency,
+                                                  Pageable pageable);
+}
@@ -0,0 +1,84 @@
+// === In Order Service Project ===
+package com.appverse.order_service.revenue;
+
+import com.appverse.order_service.enums.OrderStatus;
+import com.appverse.order_service.model.CustomerOrder;
+import com.appverse.order_service.model.OrderItem;
+import com.appverse.order_service.repository.RevenueRollupRepository;
+import com.appverse.order_service.statemachine.OrderTransitionContext;
+import com.appverse.order_service.statemachine.OrderTransitionHook;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adds an order to the revenue rollups when it completes (a sale) or is fully refunded (a refund), in the same
+ * transaction as the status change. Each (order, SALE|REFUND) contribution is first claimed in revenue_rollup_ledger,
+ * so a replayed payment event or a retried transaction never counts an order twice.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RevenueRollupHook implements OrderTransitionHook {
+
+    private static final Set<OrderStatus> TARGETS = EnumSet.of(OrderStatus.COMPLETED, OrderStatus.REFUNDED);
+
+    private final RevenueRollupRepository revenueRollupRepository;
+
+    private record ApplicationTotals(long units, BigDecimal amount) {
+        ApplicationTotals plus(ApplicationTotals other) {
+            return new ApplicationTotals(units + other.units(), amount.add(other.amount()));
+        }
+    }
+
+    @Override
+    public Set<OrderStatus> targets() {
+        return TARGETS;
+    }
+
+    @Override
+    public void afterTransition(CustomerOrder order, OrderStatus from, OrderStatus to, OrderTransitionContext context) {
+        boolean refund = to == OrderStatus.REFUNDED;
+        String entryType = refund ? "REFUND" : "SALE";
+        if (revenueRollupRepository.claimLedgerEntry(order.getId(), entryType, Instant.now()) == 0) {
+            log.debug("Revenue {} of order {} already rolled up; skipping.", entryType, order.getId());
+            return;
+        }
+
+        Instant occurredAt = !refund && order.getCompletedAt() != null ? order.getCompletedAt() : context.occurredAt();
+        LocalDate day = LocalDate.ofInstant(occurredAt, ZoneOffset.UTC);
+        BigDecimal amount = order.getOrderTotal() != null ? order.getOrderTotal() : BigDecimal.ZERO;
+        if (refund) {
+            revenueRollupRepository.addToDaily(day, order.getCurrency(), 0, BigDecimal.ZERO, 1, amount);
+        } else {
+            revenueRollupRepository.addToDaily(day, order.getCurrency(), 1, amount, 0, BigDecimal.ZERO);
+        }
+
+        // One row per application even if the order lists it more than once
+        Map<String, ApplicationTotals> byApplication = new LinkedHashMap<>();
+        for (OrderItem item : order.getItems()) {
+            byApplication.merge(item.getApplicationId(),
+                    new ApplicationTotals(item.getQuantity(), item.getTotalPrice()), ApplicationTotals::plus);
+        }
+        byApplication.forEach((applicationId, totals) -> {
+            if (refund) {
+                revenueRollupRepository.addToDailyApplication(day, applicationId, order.getCurrency(),
+                        0, BigDecimal.ZERO, totals.units(), totals.amount());
+            } else {
+                revenueRollupRepository.addToDailyApplication(day, applicationId, order.getCurrency(),
+                        totals.units(), totals.amount(), 0, BigDecimal.ZERO);
+            }
+        });
+        log.debug("Rolled up {} of order {} ({} {}) into {}.", entryType, order.getId(), amount, order.getCurrency(), day);
+    }
+}
@@ -0,0 +1,28 @@
+// === In Order Service Project ===
+package com.appverse.order_service.service;
+
+import com.appverse.order_service.dto.OrderJsonPage;
+
+/**
+ * Read side of order-service: serves orders from the denormalized order_views read model as pre-rendered JSON,
+ * without loading CustomerOrder/OrderItem entities. Archived orders are served from customer_orders_archive.
+ */
+public interface OrderQueryService {
+
+    /**
+     * Returns the OrderResponse JSON of one order (one primary-key lookup).
+     */
+    String getOrderJson(String orderId);
+
+    /**
+     * Returns one page of the user's orders, newest first, with the same cursor contract as
+     * {@link OrderService#getOrdersByUserId(String, String, int)}.
+     */
+    OrderJsonPage getOrderHistoryJson(String userId, String cursor, int limit);
+
+    /**
+     * Returns the user's whole order history, newest first, as one JSON array. Read page by page along the same
+     * (created_at, id) index as {@link #getOrderHistoryJson(String, String, int)}.
+     */
+    String getOrderHistoryJson(String userId);
+}
@@ -1,21 +1,51 @@
 // === In Order Service Project ===
 package com.appverse.order_service.service;
 
+import com.appverse.order_service.dto.BulkPaymentUpdateResponse;
 import com.appverse.order_service.dto.CreateOrderRequest;
+import com.appverse.order_service.dto.OrderPageResponse;
 import com.appverse.order_service.dto.OrderResponse;
 import com.appverse.order_service.dto.PaymentUpdateDto;
+
 import java.util.List;
 // No UUID import needed if orderId is String
 
 public interface OrderService {
 
-    OrderResponse createOrder(String userId, CreateOrderRequest request);
+    /**
+     * Creates an order, or returns the order a previous submission of the same request already created: the one with
+     * the same {@code idempotencyKey} if given, otherwise the user's most recent order with the same items placed within
+     * the dedup window. A returned existing order is neither re-priced nor written again.
+     *
+     * @param idempotencyKey The client-supplied Idempotency-Key header value (nullable).
+     */
+    OrderResponse createOrder(String userId, CreateOrderRequest request, String idempotencyKey);
+
+    /**
+     * Creates an order from a priced cart-service checkout snapshot, fetched in a single call.
+     * No per-item app-service lookups are made; the cart is cleared by cart-service once payment succeeds.
+     * A checkout produces at most one order: repeating the call returns the order it already created.
+     */
+    OrderResponse createOrderFromCheckout(String userId, String checkoutId);
 
     OrderResponse getOrderById(String orderId); // Changed from UUID to String
 
-    List<OrderResponse> getOrdersByUserId(String userId);
+    /**
+     * Returns one page of the user's orders, newest first, using keyset pagination on (created_at, id).
+     *
+     * @param cursor The nextCursor of the previous page, or null for the first page.
+     * @param limit  Page size (clamped to 1..200).
+     */
+    OrderPageResponse getOrdersByUserId(String userId, String cursor, int limit);
 
     OrderResponse processPaymentUpdate(PaymentUpdateDto paymentUpdateDto); // paymentUpdateDto.orderId is now String
 
+    /**
+     * Applies many payment outcomes with the same rules as {@link #processPaymentUpdate}. Orders are loaded with one
+     * query per chunk, and changes, read-model rows and events are written in JDBC batches. Each chunk commits on its
+     * own, so a failure leaves earlier chunks applied; resending the whole request is safe.
+     */
+    BulkPaymentUpdateResponse processPaymentUpdates(List<PaymentUpdateDto> paymentUpdates);
+
     OrderResponse cancelOrder(String orderId, String userId); // Changed from UUID to String
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+// === In Order Service Project ===
+package com.appverse.order_service.service;
+
+import com.appverse.order_service.dto.ApplicationRevenueResponse;
+import com.appverse.order_service.dto.DailyRevenueResponse;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Revenue reports served from the incrementally maintained rollup tables (never from customer_orders).
+ */
+public interface RevenueReportService {
+
+    /**
+     * Revenue per day and currency for {@code from}..{@code to} (inclusive, UTC days, at most 366 days).
+     *
+     * @param currency Optional currency filter (nullable).
+     */
+    List<DailyRevenueResponse> getDailyRevenue(LocalDate from, LocalDate to, String currency);
+
+    /**
+     * Revenue per application and currency over {@code from}..{@code to}, highest net revenue first.
+     *
+     * @param limit Maximum number of applications (clamped to 1..1000).
+     */
+    List<ApplicationRevenueResponse> getApplicationRevenue(LocalDate from, LocalDate to, String currency, int limit);
+}
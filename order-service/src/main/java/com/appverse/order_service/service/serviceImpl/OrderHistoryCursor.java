@@ -0,0 +1,32 @@
+package com.appverse.order_service.service.serviceImpl;
+
+import com.appverse.order_service.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a user's order history (created_at, id), exchanged with clients as an opaque base64url string.
+ */
+record OrderHistoryCursor(Instant createdAt, String orderId) {
+
+    String encode() {
+        String raw = createdAt.toString() + '|' + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static OrderHistoryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new BadRequestException("Invalid order history cursor.");
+            }
+            return new OrderHistoryCursor(Instant.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid order history cursor.");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+// === In Order Service Project ===
+package com.appverse.order_service.service.serviceImpl;
+
+import com.appverse.order_service.client.AppServiceClient;
+import com.appverse.order_service.dto.CreateOrderItemRequest;
+import com.appverse.order_service.exception.ServiceUnavailableException;
+
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pricing stage of order creation: resolves app details for every item of an order concurrently
+ * on the bounded orderPricingExecutor, so an order costs roughly one app-service round trip instead of one per item.
+ * Each application is fetched once even if it appears on several lines. The whole stage shares one per-order deadline;
+ * when it passes (or any lookup fails) the lookups still running are cancelled and interrupted.
+ */
+@Component
+@Slf4j
+class OrderPricingStage {
+
+    private final AppServiceClient appServiceClient;
+    private final ExecutorService orderPricingExecutor;
+
+    @Value("${appverse.order.pricing.deadline-ms:5000}")
+    private long deadlineMs;
+
+    OrderPricingStage(AppServiceClient appServiceClient,
+                      @Qualifier("orderPricingExecutor") ExecutorService orderPricingExecutor) {
+        this.appServiceClient = appServiceClient;
+        this.orderPricingExecutor = orderPricingExecutor;
+    }
+
+    /**
+     * @return App details per requested item, in request order (an element is null if app-service returned nothing).
+     * @throws ServiceUnavailableException if a lookup fails or the deadline passes; no partial result is returned.
+     */
+    List<AppServiceClient.AppDetails> resolveAppDetails(List<CreateOrderItemRequest> items) {
+        // Plain executor Futures rather than CompletableFuture: only these interrupt the running lookup on cancel(true)
+        Map<String, Future<AppServiceClient.AppDetails>> lookups = new LinkedHashMap<>();
+        for (CreateOrderItemRequest item : items) {
+            lookups.computeIfAbsent(item.applicationId(), applicationId -> orderPricingExecutor.submit(() -> {
+                log.debug("Fetching application details for ID: {}", applicationId);
+                return appServiceClient.getAppDetails(applicationId);
+            }));
+        }
+        log.debug("Resolving {} distinct applications for {} order items.", lookups.size(), items.size());
+
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        Map<String, AppServiceClient.AppDetails> details = new HashMap<>();
+        for (Map.Entry<String, Future<AppServiceClient.AppDetails>> lookup : lookups.entrySet()) {
+            try {
+                long remainingNanos = Math.max(deadlineNanos - System.nanoTime(), 0);
+                details.put(lookup.getKey(), lookup.getValue().get(remainingNanos, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                cancelAll(lookups);
+                log.error("Pricing stage exceeded its {} ms deadline resolving {} applications.", deadlineMs, lookups.size());
+                throw new ServiceUnavailableException("Timed out retrieving application details. Please try again.", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelAll(lookups);
+                throw new ServiceUnavailableException("Interrupted while retrieving application details.", e);
+            } catch (ExecutionException | CancellationException e) {
+                cancelAll(lookups); // The order fails anyway; stop the remaining lookups
+                throw lookupFailed(lookup.getKey(), e.getCause() != null ? e.getCause() : e);
+            }
+        }
+
+        List<AppServiceClient.AppDetails> resolved = new ArrayList<>(items.size());
+        for (CreateOrderItemRequest item : items) {
+            resolved.add(details.get(item.applicationId()));
+        }
+        return resolved;
+    }
+
+    /**
+     * Cancels every lookup: queued ones never start, and cancel(true) interrupts the worker thread of running ones.
+     * The default Feign client's socket read is not interruptible, so a running call still ends at its read timeout,
+     * but its result is discarded and any retry or follow-up work sees the interrupt.
+     */
+    private static void cancelAll(Map<String, Future<AppServiceClient.AppDetails>> lookups) {
+        lookups.values().forEach(lookup -> lookup.cancel(true));
+    }
+
+    private static ServiceUnavailableException lookupFailed(String applicationId, Throwable cause) {
+        if (cause instanceof FeignException feignException) {
+            log.error("FeignException fetching app details for ID {}: Status {}, Message: {}",
+                    applicationId, feignException.status(), feignException.getMessage(), feignException);
+        } else {
+            log.error("Error fetching app details for ID {}: {}", applicationId, cause.getMessage(), cause);
+        }
+        return new ServiceUnavailableException("Could not retrieve application details for ID: " + applicationId, cause);
+    }
+}
@@ -0,0 +1,116 @@
+// === In Order Service Project ===
+package com.appverse.order_service.service.serviceImpl;
+
+import com.appverse.order_service.dto.OrderJsonPage;
+import com.appverse.order_service.dto.OrderResponse;
+import com.appverse.order_service.exception.OrderProcessingException;
+import com.appverse.order_service.repository.OrderArchiveRepository;
+import com.appverse.order_service.repository.OrderViewRepository;
+import com.appverse.order_service.repository.OrderViewRepository.OrderDocumentView;
+import com.appverse.order_service.service.OrderQueryService;
+import com.appverse.order_service.service.OrderService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderQueryServiceImpl implements OrderQueryService {
+
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
+    private static final Comparator<OrderDocumentView> NEWEST_FIRST = Comparator
+            .comparing(OrderDocumentView::getCreatedAt).thenComparing(OrderDocumentView::getOrderId).reversed();
+
+    private final OrderViewRepository orderViewRepository;
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getOrderJson(String orderId) {
+        return orderViewRepository.findDocumentByOrderId(orderId)
+                .or(() -> orderArchiveRepository.findDocumentByOrderId(orderId)) // Archived orders have no view
+                .orElseGet(() -> {
+                    // Not projected yet (order predates the read model and the backfill has not reached it)
+                    log.debug("No read-model row for order {}; falling back to the entity path.", orderId);
+                    return toJson(orderService.getOrderById(orderId));
+                });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderJsonPage getOrderHistoryJson(String userId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        log.debug("Fetching up to {} order documents for user ID: {} (cursor: {})", pageSize, userId, cursor);
+
+        // One extra row tells whether there is a next page without a COUNT query
+        PageRequest pageRequest = PageRequest.ofSize(pageSize + 1);
+        // Live and archived orders are disjoint and ordered the same way: take the newest pageSize + 1 of both
+        List<OrderDocumentView> rows = new ArrayList<>(2 * (pageSize + 1));
+        if (cursor == null || cursor.isBlank()) {
+            rows.addAll(orderViewRepository.findFirstHistoryPage(userId, pageRequest));
+            rows.addAll(orderArchiveRepository.findFirstHistoryPage(userId, pageRequest));
+        } else {
+            OrderHistoryCursor position = OrderHistoryCursor.decode(cursor);
+            rows.addAll(orderViewRepository.findHistoryPageBefore(userId, position.createdAt(), position.orderId(), pageRequest));
+            rows.addAll(orderArchiveRepository.findHistoryPageBefore(userId, position.createdAt(), position.orderId(), pageRequest));
+        }
+        rows.sort(NEWEST_FIRST);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<OrderDocumentView> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        StringBuilder json = new StringBuilder(page.size() * 512).append('[');
+        for (int i = 0; i < page.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(page.get(i).getDocument());
+        }
+        json.append(']');
+
+        String nextCursor = null;
+        if (hasMore) {
+            OrderDocumentView last = page.get(page.size() - 1);
+            nextCursor = new OrderHistoryCursor(last.getCreatedAt(), last.getOrderId()).encode();
+        }
+        return new OrderJsonPage(json.toString(), page.size(), nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getOrderHistoryJson(String userId) {
+        StringBuilder json = new StringBuilder().append('[');
+        String cursor = null;
+        do {
+            OrderJsonPage page = getOrderHistoryJson(userId, cursor, MAX_HISTORY_PAGE_SIZE);
+            if (page.size() > 0) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append(page.ordersJson(), 1, page.ordersJson().length() - 1); // Without the page's brackets
+            }
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return json.append(']').toString();
+    }
+
+    private String toJson(OrderResponse order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new OrderProcessingException("Could not serialize order " + order.id() + ".", e);
+        }
+    }
+}
@@ -2,6 +2,7 @@
 package com.appverse.order_service.service.serviceImpl;
 
 import com.appverse.order_service.client.AppServiceClient;
+import com.appverse.order_service.client.CartServiceClient;
 import com.appverse.order_service.dto.*;
 import com.appverse.order_service.enums.FulfillmentStatus;
 import com.appverse.order_service.enums.MonetizationType;
@@ -9,30 +10,49 @@ import com.appverse.order_service.enums.OrderItemType;
 import com.appverse.order_service.enums.OrderStatus;
 import com.appverse.order_service.enums.PaymentStatus; // Your existing PaymentStatus enum
 import com.appverse.order_service.event.payload.*; // <<< IMPORT EVENT PAYLOADS
-import com.appverse.order_service.exception.InvalidOrderStatusTransitionException;
+import com.appverse.order_service.exception.BadRequestException;
 import com.appverse.order_service.exception.OrderProcessingException;
 import com.appverse.order_service.exception.ResourceNotFoundException;
 import com.appverse.order_service.exception.ServiceUnavailableException; // Assuming you have this
+import com.appverse.order_service.idempotency.OrderRequestFingerprint;
 import com.appverse.order_service.mapper.OrderMapper;
+import com.appverse.order_service.metrics.OrderStageTimings;
 import com.appverse.order_service.model.CustomerOrder;
+import com.appverse.order_service.model.OrderCheckout;
+import com.appverse.order_service.model.OrderIdempotencyKey;
 import com.appverse.order_service.model.OrderItem;
+import com.appverse.order_service.outbox.OrderOutbox;
+import com.appverse.order_service.readmodel.OrderReadModelProjector;
+import com.appverse.order_service.repository.OrderCheckoutRepository;
+import com.appverse.order_service.repository.OrderIdempotencyKeyRepository;
 import com.appverse.order_service.repository.OrderRepository;
+import com.appverse.order_service.repository.OrderViewRepository;
 import com.appverse.order_service.service.OrderService;
+import com.appverse.order_service.statemachine.OrderStateMachine;
+import com.appverse.order_service.statemachine.OrderTransitionContext;
 
 import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate; // <<< IMPORT KAFKA
-import org.springframework.kafka.support.SendResult;  // <<< IMPORT KAFKA
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture; // <<< IMPORT KAFKA
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,23 +61,53 @@ import java.util.stream.Collectors;
 public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
-    private final AppServiceClient appServiceClient;
+    private final OrderIdempotencyKeyRepository orderIdempotencyKeyRepository;
+    private final OrderCheckoutRepository orderCheckoutRepository;
+    private final OrderViewRepository orderViewRepository; // created_at of an order, to prune partitions on lookups
+    private final OrderPricingStage orderPricingStage;
+    private final CartServiceClient cartServiceClient;
     private final OrderMapper orderMapper;
-    private final KafkaTemplate<String, Object> kafkaTemplate; // <<< INJECT KAFKA
+    private final OrderOutbox orderOutbox; // Events are written to the outbox and published by OrderOutboxRelay
+    private final OrderReadModelProjector orderReadModelProjector; // Keeps order_views in step, same transaction
+    private final OrderStateMachine orderStateMachine; // Every status change goes through it
+    private final OrderStageTimings orderStageTimings;
+    private final TransactionTemplate transactionTemplate; // One transaction per bulk payment update chunk
 
     private static final String ORDER_EVENTS_TOPIC = "order-events"; // Define topic
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
+    // Only an order still waiting on its payment can be the result of a retry; a failed or cancelled one is a new attempt
+    private static final Set<OrderStatus> FINGERPRINT_DEDUP_STATUSES =
+            EnumSet.of(OrderStatus.PENDING_PAYMENT, OrderStatus.PAYMENT_PROCESSING);
+
+    // Without an Idempotency-Key, an identical basket from the same user within this window counts as a retry
+    @Value("${appverse.order.idempotency.fingerprint-window:PT2M}")
+    private Duration fingerprintDedupWindow;
+
+    @Value("${appverse.order.payment-update.bulk-chunk-size:500}")
+    private int bulkPaymentUpdateChunkSize;
 
     @Override
     @Transactional
-    public OrderResponse createOrder(String userId, CreateOrderRequest request) {
-        log.info("Attempting to create order for user ID: {}", userId);
-        log.info("Received CreateOrderRequest object: {}", request);
+    public OrderResponse createOrder(String userId, CreateOrderRequest request, String idempotencyKey) {
+        OrderStageTimings.Clock clock = orderStageTimings.start(OrderStageTimings.CREATE_ORDER);
+        log.debug("Attempting to create order for user ID: {}", userId);
+        log.trace("Received CreateOrderRequest object: {}", request);
         if (request == null) { throw new OrderProcessingException("Invalid order request: request object is null."); }
         if (request.items() == null) { throw new OrderProcessingException("Order must contain at least one item (items list is null)."); }
-        log.info("Number of items in request for user {}: {}", userId, request.items().size());
+        clock.items(request.items().size());
+        log.debug("Number of items in request for user {}: {}", userId, request.items().size());
+
+        // Retries (double clicks, client timeouts) get the order the first submission created: no pricing, no writes
+        String requestFingerprint = OrderRequestFingerprint.of(userId, request);
+        Optional<CustomerOrder> previousOrder = findPreviousSubmission(userId, idempotencyKey, requestFingerprint);
+        clock.lap("dedup");
+        if (previousOrder.isPresent()) {
+            log.info("Order {} already created for this request by user {}; returning it.", previousOrder.get().getId(), userId);
+            return orderMapper.toOrderResponse(previousOrder.get());
+        }
 
         String orderId = UUID.randomUUID().toString();
-        log.info("Generated new Order ID: {}", orderId);
+        log.debug("Generated new Order ID: {}", orderId);
 
         CustomerOrder order = CustomerOrder.builder()
                 .id(orderId)
@@ -65,8 +115,9 @@ public class OrderServiceImpl implements OrderService {
                 .orderStatus(OrderStatus.PENDING_PAYMENT)
                 .paymentStatus(null) // Assuming PaymentStatus is your enum from order-service
                 .currency("USD") // Will be overridden by item currency if consistent
+                .requestFingerprint(requestFingerprint)
                 .build();
-        log.info("CustomerOrder object built successfully with ID: {}", order.getId());
+        log.debug("CustomerOrder object built successfully with ID: {}", order.getId());
 
         BigDecimal calculatedOrderTotal = BigDecimal.ZERO;
         String orderCurrency = null;
@@ -75,42 +126,34 @@ public class OrderServiceImpl implements OrderService {
             log.warn("CreateOrderRequest.items() is empty for user ID: {}", userId);
             throw new OrderProcessingException("Order must contain at least one item (items list is empty).");
         }
-        log.info("About to start iterating through items.");
+        // Pricing stage: all app-service lookups run concurrently under one deadline, then items are validated in order.
+        List<AppServiceClient.AppDetails> resolvedAppDetails = orderPricingStage.resolveAppDetails(request.items());
+        clock.lap("pricing");
 
-        for (CreateOrderItemRequest itemRequest : request.items()) {
+        for (int i = 0; i < request.items().size(); i++) {
+            CreateOrderItemRequest itemRequest = request.items().get(i);
             log.debug("START processing item. App ID: {}", itemRequest.applicationId());
-            AppServiceClient.AppDetails appDetails;
-            try {
-                log.debug("Fetching application details for ID: {}", itemRequest.applicationId());
-                appDetails = appServiceClient.getAppDetails(itemRequest.applicationId());
-
-                if (appDetails == null) {
-                    log.warn("Application details not found for ID: {}. Skipping item.", itemRequest.applicationId());
-                    continue;
-                }
-                // Logic for handling app's monetizationType vs. itemRequest.itemType()
-                if (appDetails.monetizationType() == MonetizationType.SUBSCRIPTION_ONLY && // <<< Use the imported enum
-                    itemRequest.itemType() == OrderItemTypeDto.ONE_TIME_PURCHASE) {
-                    log.warn("Attempt to ONE_TIME_PURCHASE a SUBSCRIPTION_ONLY app {}. Skipping.", appDetails.id());
-                    continue;
-                }
-                if (appDetails.monetizationType() == MonetizationType.ONE_TIME_PURCHASE && // <<< Use the imported enum
-                    itemRequest.itemType() == OrderItemTypeDto.SUBSCRIPTION_INITIAL_PURCHASE) {
-                    log.warn("Attempt to SUBSCRIBE to a ONE_TIME_PURCHASE app {}. Skipping.", appDetails.id());
-                    continue;
-                }
-                 if (appDetails.isFree() && itemRequest.itemType() == OrderItemTypeDto.ONE_TIME_PURCHASE) {
-                    log.info("Skipping free application {} requested as ONE_TIME_PURCHASE, but will add as 0 price.", itemRequest.applicationId());
-                    // If you want to add free items to the order, ensure price is 0.
-                    // If you want to skip them entirely, use 'continue;' here after logging.
-                    // For now, let's assume we add it with price 0 if it's a ONE_TIME_PURCHASE request for a free app.
-                }
-
-
-            } catch (FeignException e) {
-                log.error("FeignException fetching app details for ID {}: Status {}, Message: {}",
-                        itemRequest.applicationId(), e.status(), e.getMessage(), e);
-                throw new ServiceUnavailableException("Could not retrieve application details for ID: " + itemRequest.applicationId()+ e);
+            AppServiceClient.AppDetails appDetails = resolvedAppDetails.get(i);
+            if (appDetails == null) {
+                log.warn("Application details not found for ID: {}. Skipping item.", itemRequest.applicationId());
+                continue;
+            }
+            // Logic for handling app's monetizationType vs. itemRequest.itemType()
+            if (appDetails.monetizationType() == MonetizationType.SUBSCRIPTION_ONLY && // <<< Use the imported enum
+                itemRequest.itemType() == OrderItemTypeDto.ONE_TIME_PURCHASE) {
+                log.warn("Attempt to ONE_TIME_PURCHASE a SUBSCRIPTION_ONLY app {}. Skipping.", appDetails.id());
+                continue;
+            }
+            if (appDetails.monetizationType() == MonetizationType.ONE_TIME_PURCHASE && // <<< Use the imported enum
+                itemRequest.itemType() == OrderItemTypeDto.SUBSCRIPTION_INITIAL_PURCHASE) {
+                log.warn("Attempt to SUBSCRIBE to a ONE_TIME_PURCHASE app {}. Skipping.", appDetails.id());
+                continue;
+            }
+             if (appDetails.isFree() && itemRequest.itemType() == OrderItemTypeDto.ONE_TIME_PURCHASE) {
+                log.info("Skipping free application {} requested as ONE_TIME_PURCHASE, but will add as 0 price.", itemRequest.applicationId());
+                // If you want to add free items to the order, ensure price is 0.
+                // If you want to skip them entirely, use 'continue;' here after logging.
+                // For now, let's assume we add it with price 0 if it's a ONE_TIME_PURCHASE request for a free app.
             }
 
             OrderItemType itemTypeModel = convertOrderItemTypeDtoToModel(itemRequest.itemType());
@@ -152,107 +195,252 @@ public class OrderServiceImpl implements OrderService {
 
         order.setOrderTotal(calculatedOrderTotal);
         order.setCurrency(orderCurrency != null ? orderCurrency : "USD");
+        clock.lap("build_items");
 
         CustomerOrder savedOrder = orderRepository.save(order);
+        if (idempotencyKey != null) {
+            // Primary key (user_id, idempotency_key): a concurrent submission with the same key fails here.
+            // Stores the order's created_at, so a retry's lookup of the order is pruned to its partition.
+            orderIdempotencyKeyRepository.insert(userId, idempotencyKey, savedOrder.getId(), savedOrder.getCreatedAt());
+        }
+        orderRepository.flush(); // The projector would flush anyway; flushing here attributes the INSERTs to this stage
+        clock.lap("persist");
         log.info("Order {} created successfully for user ID: {}. Total: {} {}",
                 savedOrder.getId(), userId, savedOrder.getOrderTotal(), savedOrder.getCurrency());
 
-        // --- Publish OrderCreatedEvent ---
-        List<OrderItemSummaryPayload> itemSummaries = savedOrder.getItems().stream()
-                .map(oi -> new OrderItemSummaryPayload(
-                        oi.getId(), oi.getApplicationId(), oi.getApplicationName(),
-                        oi.getQuantity(), oi.getUnitPrice(), oi.getTotalPrice(), oi.getItemType()))
-                .collect(Collectors.toList());
-
-        OrderCreatedPayload createdPayload = new OrderCreatedPayload(
-                savedOrder.getId(),
-                savedOrder.getUserId(),
-                savedOrder.getOrderStatus(),
-                savedOrder.getOrderTotal(),
-                savedOrder.getCurrency(),
-                itemSummaries,
-                savedOrder.getCreatedAt() // Assuming JPA Auditing populates this
-        );
-        publishKafkaEvent(ORDER_EVENTS_TOPIC, savedOrder.getId(), "OrderCreated", createdPayload);
+        orderReadModelProjector.project(savedOrder);
+        clock.lap("read_model");
+        publishOrderCreatedEvent(savedOrder);
+        clock.lap("outbox");
 
         return orderMapper.toOrderResponse(savedOrder);
     }
 
 
+    @Override
+    @Transactional
+    public OrderResponse createOrderFromCheckout(String userId, String checkoutId) {
+        log.info("Attempting to create order for user ID: {} from checkout {}", userId, checkoutId);
+
+        // A retried request returns the order the checkout already produced (the snapshot may be gone by now)
+        Optional<CustomerOrder> previousOrder = orderCheckoutRepository.findById(new OrderCheckout.Key(userId, checkoutId))
+                .flatMap(checkout -> orderRepository.findByIdAndCreatedAt(checkout.getOrderId(), checkout.getCreatedAt()));
+        if (previousOrder.isPresent()) {
+            log.info("Order {} already created from checkout {} for user {}; returning it.", previousOrder.get().getId(), checkoutId, userId);
+            return orderMapper.toOrderResponse(previousOrder.get());
+        }
+
+        CartServiceClient.CheckoutSnapshot snapshot;
+        try {
+            snapshot = cartServiceClient.getCheckoutSnapshot(checkoutId);
+        } catch (FeignException.NotFound e) {
+            throw new ResourceNotFoundException("Checkout " + checkoutId + " not found or expired.");
+        } catch (FeignException e) {
+            log.error("FeignException fetching checkout snapshot {}: Status {}, Message: {}", checkoutId, e.status(), e.getMessage(), e);
+            throw new ServiceUnavailableException("Could not retrieve checkout " + checkoutId + " from cart service." + e);
+        }
+        if (snapshot == null || snapshot.items() == null || snapshot.items().isEmpty()) {
+            throw new OrderProcessingException("Checkout " + checkoutId + " contains no items.");
+        }
+        if (!userId.equals(snapshot.userId())) {
+            // cart-service already scopes snapshots to the caller; this guards against a misrouted response
+            throw new ResourceNotFoundException("Checkout " + checkoutId + " not found or expired.");
+        }
+        if (snapshot.expiresAt() != null && !snapshot.expiresAt().isAfter(Instant.now())) {
+            throw new OrderProcessingException("Checkout " + checkoutId + " has expired. Please check out again.");
+        }
+
+        // Prices and names are frozen in the snapshot, so no app-service calls are needed here.
+        CustomerOrder order = CustomerOrder.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(userId)
+                .orderStatus(OrderStatus.PENDING_PAYMENT)
+                .paymentStatus(null)
+                .currency(snapshot.currency() != null ? snapshot.currency() : "USD")
+                .checkoutId(checkoutId)
+                .build();
+
+        BigDecimal calculatedOrderTotal = BigDecimal.ZERO;
+        for (CartServiceClient.CheckoutSnapshotItem snapshotItem : snapshot.items()) {
+            BigDecimal unitPrice = snapshotItem.unitPrice() != null ? snapshotItem.unitPrice() : BigDecimal.ZERO;
+            BigDecimal itemTotalPrice = unitPrice.multiply(BigDecimal.valueOf(snapshotItem.quantity()));
+            String itemCurrency = unitPrice.compareTo(BigDecimal.ZERO) == 0 ? "USD" : snapshotItem.currency(); // Default currency if free
+            if (unitPrice.compareTo(BigDecimal.ZERO) > 0 && !order.getCurrency().equals(itemCurrency)) {
+                throw new OrderProcessingException("Items with different currencies are not supported in a single order.");
+            }
+            order.addItem(OrderItem.builder()
+                    .id(UUID.randomUUID().toString())
+                    .applicationId(snapshotItem.applicationId())
+                    .applicationName(snapshotItem.applicationName())
+                    .quantity(snapshotItem.quantity())
+                    .unitPrice(unitPrice)
+                    .totalPrice(itemTotalPrice)
+                    .currency(itemCurrency)
+                    .itemType(OrderItemType.ONE_TIME_PURCHASE) // Cart lines are one-time purchases
+                    .fulfillmentStatus(FulfillmentStatus.PENDING)
+                    .build());
+            calculatedOrderTotal = calculatedOrderTotal.add(itemTotalPrice);
+        }
+        order.setOrderTotal(calculatedOrderTotal);
+
+        CustomerOrder savedOrder = orderRepository.save(order);
+        // Primary key (user_id, checkout_id): a concurrent request for the same checkout fails here
+        orderCheckoutRepository.insert(userId, checkoutId, savedOrder.getId(), savedOrder.getCreatedAt());
+        log.info("Order {} created from checkout {} for user ID: {}. Total: {} {}",
+                savedOrder.getId(), checkoutId, userId, savedOrder.getOrderTotal(), savedOrder.getCurrency());
+
+        orderReadModelProjector.project(savedOrder);
+        publishOrderCreatedEvent(savedOrder);
+
+        return orderMapper.toOrderResponse(savedOrder);
+    }
+
     @Override
     @Transactional
     public OrderResponse processPaymentUpdate(PaymentUpdateDto paymentUpdateDto) {
+        OrderStageTimings.Clock clock = orderStageTimings.start(OrderStageTimings.PAYMENT_UPDATE);
         log.info("Processing payment update for order ID: {}, transaction ID: {}, status from DTO: {}",
                 paymentUpdateDto.orderId(), paymentUpdateDto.paymentTransactionId(), paymentUpdateDto.paymentStatus());
 
-        CustomerOrder order = orderRepository.findById(paymentUpdateDto.orderId())
+        // Locked until commit: a racing expiry sweep or duplicate update waits, then sees this update's outcome
+        CustomerOrder order = lockOrder(paymentUpdateDto.orderId())
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + paymentUpdateDto.orderId()));
+        clock.items(order.getItems().size());
+        clock.lap("load");
 
-        // Idempotency checks
-        if (List.of(OrderStatus.COMPLETED, OrderStatus.CANCELLED_BY_USER, OrderStatus.CANCELLED_BY_SYSTEM, OrderStatus.REFUNDED).contains(order.getOrderStatus())) {
-            log.warn("Order {} already in a final state ({}). Ignoring payment update.", order.getId(), order.getOrderStatus());
+        if (!applyPaymentUpdate(order, paymentUpdateDto)) {
             return orderMapper.toOrderResponse(order);
         }
+        clock.lap("transition");
+
+        CustomerOrder updatedOrder = orderRepository.saveAndFlush(order);
+        clock.lap("persist");
+        orderReadModelProjector.project(updatedOrder);
+        clock.lap("read_model");
+        return orderMapper.toOrderResponse(updatedOrder);
+    }
+
+    @Override
+    public BulkPaymentUpdateResponse processPaymentUpdates(List<PaymentUpdateDto> paymentUpdates) {
+        log.info("Processing bulk payment update of {} outcomes.", paymentUpdates.size());
+        int applied = 0;
+        int ignored = 0;
+        List<String> notFoundOrderIds = new ArrayList<>();
+        for (int from = 0; from < paymentUpdates.size(); from += bulkPaymentUpdateChunkSize) {
+            List<PaymentUpdateDto> chunk = paymentUpdates.subList(from, Math.min(from + bulkPaymentUpdateChunkSize, paymentUpdates.size()));
+            BulkPaymentUpdateResponse chunkResult = transactionTemplate.execute(status -> applyPaymentUpdateChunk(chunk));
+            applied += chunkResult.applied();
+            ignored += chunkResult.ignored();
+            notFoundOrderIds.addAll(chunkResult.notFoundOrderIds());
+        }
+        log.info("Bulk payment update done: {} applied, {} ignored, {} unknown orders.", applied, ignored, notFoundOrderIds.size());
+        return new BulkPaymentUpdateResponse(applied, ignored, notFoundOrderIds);
+    }
+
+    // One transaction: a single locking IN query (items fetched with the orders), changes flushed as batched UPDATEs,
+    // one batch of read-model upserts and one batch of outbox inserts.
+    private BulkPaymentUpdateResponse applyPaymentUpdateChunk(List<PaymentUpdateDto> chunk) {
+        Set<String> orderIds = chunk.stream().map(PaymentUpdateDto::orderId).collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, CustomerOrder> ordersById = lockOrders(orderIds).stream()
+                .collect(Collectors.toMap(CustomerOrder::getId, Function.identity()));
+
+        Map<String, CustomerOrder> changed = new LinkedHashMap<>();
+        BulkPaymentUpdateResponse result = orderOutbox.batched(() -> {
+            int applied = 0;
+            int ignored = 0;
+            Set<String> notFound = new LinkedHashSet<>();
+            for (PaymentUpdateDto update : chunk) {
+                CustomerOrder order = ordersById.get(update.orderId());
+                if (order == null) {
+                    if (notFound.add(update.orderId())) {
+                        log.warn("Bulk payment update for unknown order {}. Skipping.", update.orderId());
+                    }
+                } else if (applyPaymentUpdate(order, update)) {
+                    changed.put(order.getId(), order);
+                    applied++;
+                } else {
+                    ignored++;
+                }
+            }
+            return new BulkPaymentUpdateResponse(applied, ignored, new ArrayList<>(notFound));
+        });
+        orderReadModelProjector.projectAll(changed.values()); // Flushes the order and item UPDATEs first
+        return result;
+    }
+
+    /**
+     * Applies one payment outcome to a loaded order through the state machine.
+     *
+     * @return false if the update was ignored: the order is final, the outcome was already applied, or it is older
+     *         than the order's current state.
+     */
+    private boolean applyPaymentUpdate(CustomerOrder order, PaymentUpdateDto paymentUpdateDto) {
+        // Idempotency checks
+        if (!orderStateMachine.acceptsPaymentUpdate(order.getOrderStatus(), paymentUpdateDto.paymentStatus())) {
+            log.warn("Order {} in state {} does not accept payment status {}. Ignoring payment update.",
+                    order.getId(), order.getOrderStatus(), paymentUpdateDto.paymentStatus());
+            return false;
+        }
         // Assuming PaymentUpdateDto.paymentStatus() is now your PaymentStatus enum
         if (order.getPaymentTransactionId() != null &&
             order.getPaymentTransactionId().equals(paymentUpdateDto.paymentTransactionId()) &&
             order.getPaymentStatus() == paymentUpdateDto.paymentStatus()) { // Direct enum comparison
             log.warn("Payment update for order {} with transaction {} and status {} appears to be a duplicate. Ignoring.",
                     order.getId(), paymentUpdateDto.paymentTransactionId(), paymentUpdateDto.paymentStatus());
-            return orderMapper.toOrderResponse(order);
+            return false;
+        }
+        OrderStatus targetStatus = orderStatusForPayment(paymentUpdateDto.paymentStatus());
+        if (!orderStateMachine.canUpdatePayment(order.getPaymentStatus(), paymentUpdateDto.paymentStatus()) ||
+            (targetStatus != null && !orderStateMachine.canTransition(order.getOrderStatus(), targetStatus))) {
+            // Out-of-order gateway event (e.g. a late PENDING after SUCCEEDED): keep the newer state
+            log.warn("Order {} (status {}, payment {}) cannot apply payment status {}. Ignoring payment update.",
+                    order.getId(), order.getOrderStatus(), order.getPaymentStatus(), paymentUpdateDto.paymentStatus());
+            return false;
         }
 
         order.setPaymentTransactionId(paymentUpdateDto.paymentTransactionId());
-        order.setPaymentStatus(paymentUpdateDto.paymentStatus()); // Assign the enum directly
+        orderStateMachine.updatePayment(order, paymentUpdateDto.paymentStatus());
 
-        Instant eventTimestamp = Instant.now();
+        OrderTransitionContext context = OrderTransitionContext.now(paymentUpdateDto.failureReason());
 
         if (paymentUpdateDto.paymentStatus() == PaymentStatus.SUCCEEDED) {
-            order.setOrderStatus(OrderStatus.AWAITING_FULFILLMENT);
+            orderStateMachine.transition(order, OrderStatus.AWAITING_FULFILLMENT, context);
             log.info("Order {} payment SUCCEEDED. Status set to AWAITING_FULFILLMENT. Transaction ID: {}",
                     order.getId(), paymentUpdateDto.paymentTransactionId());
 
             // TODO: Trigger fulfillment process (e.g., publish OrderPaidEvent, call fulfillment service)
             // This is where you'd grant access to one-time purchase items or notify subscription service
             // For now, mock fulfillment:
-            boolean allFulfilled = true;
             for (OrderItem item : order.getItems()) {
-                item.setFulfillmentStatus(FulfillmentStatus.SUCCESSFUL); // Mark as fulfilled
+                orderStateMachine.updateFulfillment(order, item, FulfillmentStatus.SUCCESSFUL); // Mark as fulfilled
                 log.info("Item {} in order {} marked as FULFILLED (mock).", item.getId(), order.getId());
             }
-            if (allFulfilled) {
-                order.setOrderStatus(OrderStatus.COMPLETED);
-                order.setCompletedAt(eventTimestamp);
-                log.info("Order {} fully fulfilled (mock) and COMPLETED.", order.getId());
-            }
-            // Publish OrderPaymentSucceededEvent
-            OrderPaymentSucceededPayload succeededPayload = new OrderPaymentSucceededPayload(
-                    order.getId(), order.getUserId(), order.getPaymentTransactionId(),
-                    order.getOrderStatus(), order.getOrderTotal(), order.getCurrency(), eventTimestamp);
-            publishKafkaEvent(ORDER_EVENTS_TOPIC, order.getId(), "OrderPaymentSucceeded", succeededPayload);
+            // Guarded on every item being fulfilled; publishes OrderPaymentSucceeded through OrderEventPublishingHook
+            orderStateMachine.transition(order, OrderStatus.COMPLETED, context);
+            log.info("Order {} fully fulfilled (mock) and COMPLETED.", order.getId());
 
         } else if (paymentUpdateDto.paymentStatus() == PaymentStatus.FAILED) {
-            order.setOrderStatus(OrderStatus.PAYMENT_FAILED);
+            // Publishes OrderPaymentFailed through OrderEventPublishingHook
+            orderStateMachine.transition(order, OrderStatus.PAYMENT_FAILED, context);
             log.warn("Order {} payment FAILED. Transaction ID: {}. Reason: {}",
                     order.getId(), paymentUpdateDto.paymentTransactionId(), paymentUpdateDto.failureReason());
-            // Publish OrderPaymentFailedEvent
-            OrderPaymentFailedPayload failedPayload = new OrderPaymentFailedPayload(
-                    order.getId(), order.getUserId(), order.getPaymentTransactionId(),
-                    order.getOrderStatus(), paymentUpdateDto.failureReason(), eventTimestamp);
-            publishKafkaEvent(ORDER_EVENTS_TOPIC, order.getId(), "OrderPaymentFailed", failedPayload);
 
         } else if (paymentUpdateDto.paymentStatus() == PaymentStatus.PENDING) {
-            order.setOrderStatus(OrderStatus.PAYMENT_PROCESSING);
+            orderStateMachine.transition(order, OrderStatus.PAYMENT_PROCESSING, context);
             log.info("Order {} payment is PENDING. Status set to PAYMENT_PROCESSING. Transaction ID: {}",
                     order.getId(), paymentUpdateDto.paymentTransactionId());
             // Optionally publish an OrderPaymentPendingEvent
+        } else if (paymentUpdateDto.paymentStatus() == PaymentStatus.REFUNDED) {
+            // Takes the order back out of the revenue rollups through RevenueRollupHook
+            orderStateMachine.transition(order, OrderStatus.REFUNDED, context);
+            log.info("Order {} payment REFUNDED. Status set to REFUNDED. Transaction ID: {}",
+                    order.getId(), paymentUpdateDto.paymentTransactionId());
         } else {
             log.info("Order {} received unhandled payment status: {}. Current order status: {}",
                     order.getId(), paymentUpdateDto.paymentStatus(), order.getOrderStatus());
         }
 
-        CustomerOrder updatedOrder = orderRepository.save(order);
-        return orderMapper.toOrderResponse(updatedOrder);
+        return true;
     }
 
 
@@ -260,53 +448,101 @@ public class OrderServiceImpl implements OrderService {
     @Transactional
     public OrderResponse cancelOrder(String orderId, String userId) {
         log.info("User {} attempting to cancel order ID: {}", userId, orderId);
-        CustomerOrder order = orderRepository.findByIdAndUserId(orderId, userId)
+        // Locking read, not a cached copy: the cancellation must not be decided on a stale one
+        CustomerOrder order = lockOrder(orderId)
+                .filter(found -> userId.equals(found.getUserId()))
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId + " for user " + userId));
 
-        List<OrderStatus> cancellableStatuses = List.of(
-                OrderStatus.PENDING_PAYMENT,
-                OrderStatus.PAYMENT_PROCESSING
-        );
-
-        if (!cancellableStatuses.contains(order.getOrderStatus())) {
-            log.warn("Order {} cannot be cancelled by user. Current status: {}", orderId, order.getOrderStatus());
-            throw new InvalidOrderStatusTransitionException(
-                    "Order " + orderId + " cannot be cancelled. Current status: " + order.getOrderStatus());
-        }
-
-        order.setOrderStatus(OrderStatus.CANCELLED_BY_USER);
+        // Only PENDING_PAYMENT and PAYMENT_PROCESSING may move to CANCELLED_BY_USER; otherwise this throws.
+        // Publishes OrderCancelled through OrderEventPublishingHook.
+        orderStateMachine.transition(order, OrderStatus.CANCELLED_BY_USER, OrderTransitionContext.now("Cancelled by user"));
         // TODO: If a payment was initiated, attempt to void/cancel it with payment gateway.
         // This requires coordination with the Payment Service.
 
         CustomerOrder cancelledOrder = orderRepository.save(order);
         log.info("Order {} cancelled successfully by user {}.", orderId, userId);
-
-        // Publish OrderCancelledEvent
-        OrderCancelledPayload cancelledPayload = new OrderCancelledPayload(
-                cancelledOrder.getId(), cancelledOrder.getUserId(), cancelledOrder.getOrderStatus(),
-                "Cancelled by user", Instant.now()
-        );
-        publishKafkaEvent(ORDER_EVENTS_TOPIC, cancelledOrder.getId(), "OrderCancelled", cancelledPayload);
+        orderReadModelProjector.project(cancelledOrder);
 
         return orderMapper.toOrderResponse(cancelledOrder);
     }
 
 
-    // Helper method to publish Kafka events with logging
+    private void publishOrderCreatedEvent(CustomerOrder savedOrder) {
+        // --- Publish OrderCreatedEvent ---
+        List<OrderItemSummaryPayload> itemSummaries = savedOrder.getItems().stream()
+                .map(oi -> new OrderItemSummaryPayload(
+                        oi.getId(), oi.getApplicationId(), oi.getApplicationName(),
+                        oi.getQuantity(), oi.getUnitPrice(), oi.getTotalPrice(), oi.getItemType()))
+                .collect(Collectors.toList());
+
+        OrderCreatedPayload createdPayload = new OrderCreatedPayload(
+                savedOrder.getId(),
+                savedOrder.getUserId(),
+                savedOrder.getOrderStatus(),
+                savedOrder.getOrderTotal(),
+                savedOrder.getCurrency(),
+                itemSummaries,
+                savedOrder.getCreatedAt() // Assuming JPA Auditing populates this
+        );
+        publishKafkaEvent(ORDER_EVENTS_TOPIC, savedOrder.getId(), "OrderCreated", createdPayload);
+    }
+
+    // Helper method to publish Kafka events: recorded in the transactional outbox, so the event is sent
+    // (by OrderOutboxRelay) only if the surrounding transaction commits, and is retried until the broker acks it.
     private void publishKafkaEvent(String topic, String key, String eventType, Object payload) {
-        log.debug("Preparing to publish {} event with key {} to topic {}", eventType, key, topic);
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, key, payload);
-        future.whenComplete((result, ex) -> {
-            if (ex == null) {
-                log.info("Successfully sent {} event to topic {} for key {}: offset {}, partition {}",
-                        eventType, topic, key, result.getRecordMetadata().offset(), result.getRecordMetadata().partition());
-            } else {
-                log.error("Failed to send {} event to topic {} for key {}: {}",
-                        eventType, topic, key, ex.getMessage(), ex);
-                // Consider further error handling here if send failure is critical
+        log.debug("Queueing {} event with key {} for topic {}", eventType, key, topic);
+        orderOutbox.enqueue(topic, key, eventType, payload);
+    }
+
+    // The order status a payment outcome moves the order towards (null: the order status is unaffected)
+    private static OrderStatus orderStatusForPayment(PaymentStatus paymentStatus) {
+        if (paymentStatus == null) {
+            return null;
+        }
+        return switch (paymentStatus) {
+            case SUCCEEDED -> OrderStatus.AWAITING_FULFILLMENT;
+            case FAILED -> OrderStatus.PAYMENT_FAILED;
+            case PENDING -> OrderStatus.PAYMENT_PROCESSING;
+            case REFUNDED -> OrderStatus.REFUNDED;
+        };
+    }
+
+    // Locks an order, pruned to its partition when the read model knows its created_at (it always does once projected)
+    private Optional<CustomerOrder> lockOrder(String orderId) {
+        Optional<Instant> createdAt = orderViewRepository.findCreatedAtByOrderId(orderId);
+        return createdAt.isPresent() ? orderRepository.lockById(orderId, createdAt.get()) : orderRepository.lockById(orderId);
+    }
+
+    // Locks many orders, pruned to their partitions; those without a read-model row yet are locked by a second query
+    private List<CustomerOrder> lockOrders(Set<String> orderIds) {
+        List<OrderViewRepository.OrderCreatedAtView> known = orderViewRepository.findCreatedAtByOrderIds(orderIds);
+        List<CustomerOrder> locked = new ArrayList<>(orderIds.size());
+        if (!known.isEmpty()) {
+            Set<Instant> createdAts = known.stream().map(OrderViewRepository.OrderCreatedAtView::getCreatedAt).collect(Collectors.toSet());
+            locked.addAll(orderRepository.lockWithItemsForOrders(orderIds, createdAts));
+        }
+        if (known.size() < orderIds.size()) {
+            Set<String> unknown = new LinkedHashSet<>(orderIds);
+            known.forEach(view -> unknown.remove(view.getOrderId()));
+            locked.addAll(orderRepository.lockWithItemsForOrders(unknown));
+        }
+        return locked;
+    }
+
+    private Optional<CustomerOrder> findPreviousSubmission(String userId, String idempotencyKey, String requestFingerprint) {
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+                throw new BadRequestException("Idempotency-Key must be 1 to 255 characters.");
             }
-        });
-        log.debug("Asynchronously published {} event for key {}. Callback will log success/failure.", eventType, key);
+            Optional<CustomerOrder> keyed = orderIdempotencyKeyRepository.findById(new OrderIdempotencyKey.Key(userId, idempotencyKey))
+                    .flatMap(key -> orderRepository.findByIdAndCreatedAt(key.getOrderId(), key.getCreatedAt()));
+            if (keyed.isPresent() && !requestFingerprint.equals(keyed.get().getRequestFingerprint())) {
+                throw new BadRequestException("Idempotency-Key was already used for a different order.");
+            }
+            return keyed;
+        }
+        return orderRepository.findFirstByUserIdAndRequestFingerprintAndOrderStatusInAndCreatedAtAfterOrderByCreatedAtDesc(
+                userId, requestFingerprint, FINGERPRINT_DEDUP_STATUSES, Instant.now().minus(fingerprintDedupWindow));
     }
 
     // Helper to convert DTO enum to Model enum (as provided before)
@@ -330,11 +566,32 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<OrderResponse> getOrdersByUserId(String userId) {
-        log.debug("Fetching orders for user ID: {}", userId);
-        List<CustomerOrder> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return orders.stream()
-                .map(orderMapper::toOrderResponse)
-                .collect(Collectors.toList());
+    public OrderPageResponse getOrdersByUserId(String userId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        log.debug("Fetching up to {} orders for user ID: {} (cursor: {})", pageSize, userId, cursor);
+
+        // Fetch one extra row to know whether there is a next page without a COUNT query
+        PageRequest pageRequest = PageRequest.ofSize(pageSize + 1);
+        List<CustomerOrder> orders;
+        if (cursor == null || cursor.isBlank()) {
+            orders = orderRepository.findFirstHistoryPage(userId, pageRequest);
+        } else {
+            OrderHistoryCursor position = OrderHistoryCursor.decode(cursor);
+            orders = orderRepository.findHistoryPageBefore(userId, position.createdAt(), position.orderId(), pageRequest);
+        }
+
+        boolean hasMore = orders.size() > pageSize;
+        List<CustomerOrder> page = hasMore ? orders.subList(0, pageSize) : orders;
+        if (!page.isEmpty()) {
+            // Initializes items for the whole page in one query; the entities in 'page' are the same instances
+            orderRepository.fetchItemsForOrders(page.stream().map(CustomerOrder::getId).toList());
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            CustomerOrder last = page.get(page.size() - 1);
+            nextCursor = new OrderHistoryCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new OrderPageResponse(orderMapper.toOrderResponseList(page), nextCursor);
     }
 }
\ No newline at end of file
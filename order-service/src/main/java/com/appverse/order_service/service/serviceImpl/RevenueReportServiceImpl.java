@@ -0,0 +1,74 @@
+// === In Order Service Project ===
+package com.appverse.order_service.service.serviceImpl;
+
+import com.appverse.order_service.dto.ApplicationRevenueResponse;
+import com.appverse.order_service.dto.DailyRevenueResponse;
+import com.appverse.order_service.exception.BadRequestException;
+import com.appverse.order_service.repository.RevenueRollupRepository;
+import com.appverse.order_service.service.RevenueReportService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RevenueReportServiceImpl implements RevenueReportService {
+
+    private static final long MAX_RANGE_DAYS = 366;
+    private static final int MAX_APPLICATIONS = 1000;
+
+    private final RevenueRollupRepository revenueRollupRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyRevenueResponse> getDailyRevenue(LocalDate from, LocalDate to, String currency) {
+        validateRange(from, to);
+        return revenueRollupRepository.findDaily(from, to, blankToNull(currency)).stream()
+                .map(r -> new DailyRevenueResponse(r.getDay(), r.getCurrency(), r.getOrderCount(), r.getGrossAmount(),
+                        r.getRefundCount(), r.getRefundedAmount(), r.getGrossAmount().subtract(r.getRefundedAmount())))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ApplicationRevenueResponse> getApplicationRevenue(LocalDate from, LocalDate to, String currency, int limit) {
+        validateRange(from, to);
+        int pageSize = Math.max(1, Math.min(limit, MAX_APPLICATIONS));
+        return revenueRollupRepository.sumByApplication(from, to, blankToNull(currency), PageRequest.ofSize(pageSize)).stream()
+                .map(r -> new ApplicationRevenueResponse(r.getApplicationId(), r.getCurrency(),
+                        orZero(r.getUnitsSold()), orZero(r.getGrossAmount()),
+                        orZero(r.getUnitsRefunded()), orZero(r.getRefundedAmount()),
+                        orZero(r.getGrossAmount()).subtract(orZero(r.getRefundedAmount()))))
+                .toList();
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new BadRequestException("'from' and 'to' are required and 'from' must not be after 'to'.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new BadRequestException("Date range must not exceed " + MAX_RANGE_DAYS + " days.");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,58 @@
+// === In Order Service Project ===
+package com.appverse.order_service.statemachine;
+
+import com.appverse.order_service.enums.OrderStatus;
+import com.appverse.order_service.event.payload.OrderCancelledPayload;
+import com.appverse.order_service.event.payload.OrderPaymentFailedPayload;
+import com.appverse.order_service.event.payload.OrderPaymentSucceededPayload;
+import com.appverse.order_service.model.CustomerOrder;
+import com.appverse.order_service.outbox.OrderOutbox;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Publishes the order-events that follow from status changes (through the transactional outbox).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderEventPublishingHook implements OrderTransitionHook {
+
+    private static final String ORDER_EVENTS_TOPIC = "order-events";
+    private static final Set<OrderStatus> TARGETS = EnumSet.of(
+            OrderStatus.COMPLETED, OrderStatus.PAYMENT_FAILED,
+            OrderStatus.CANCELLED_BY_USER, OrderStatus.CANCELLED_BY_SYSTEM);
+
+    private final OrderOutbox orderOutbox;
+
+    @Override
+    public Set<OrderStatus> targets() {
+        return TARGETS;
+    }
+
+    @Override
+    public void afterTransition(CustomerOrder order, OrderStatus from, OrderStatus to, OrderTransitionContext context) {
+        switch (to) {
+            case COMPLETED -> publish(order, "OrderPaymentSucceeded", new OrderPaymentSucceededPayload(
+                    order.getId(), order.getUserId(), order.getPaymentTransactionId(),
+                    order.getOrderStatus(), order.getOrderTotal(), order.getCurrency(), context.occurredAt(),
+                    order.getCheckoutId()));
+            case PAYMENT_FAILED -> publish(order, "OrderPaymentFailed", new OrderPaymentFailedPayload(
+                    order.getId(), order.getUserId(), order.getPaymentTransactionId(),
+                    order.getOrderStatus(), context.reason(), context.occurredAt()));
+            case CANCELLED_BY_USER, CANCELLED_BY_SYSTEM -> publish(order, "OrderCancelled", new OrderCancelledPayload(
+                    order.getId(), order.getUserId(), order.getOrderStatus(), context.reason(), context.occurredAt()));
+            default -> { }
+        }
+    }
+
+    private void publish(CustomerOrder order, String eventType, Object payload) {
+        log.debug("Queueing {} event for order {}", eventType, order.getId());
+        orderOutbox.enqueue(ORDER_EVENTS_TOPIC, order.getId(), eventType, payload);
+    }
+}
@@ -0,0 +1,289 @@
+// === In Order Service Project ===
+package com.appverse.order_service.statemachine;
+
+import com.appverse.order_service.enums.FulfillmentStatus;
+import com.appverse.order_service.enums.OrderStatus;
+import com.appverse.order_service.enums.PaymentStatus;
+import com.appverse.order_service.exception.InvalidOrderStatusTransitionException;
+import com.appverse.order_service.model.CustomerOrder;
+import com.appverse.order_service.model.OrderItem;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static com.appverse.order_service.enums.OrderStatus.*;
+
+/**
+ * The single place where order, payment and fulfillment statuses change.
+ * <p>
+ * Allowed transitions are fixed EnumSet/EnumMap tables built once at class load, so checking a transition is an
+ * array lookup plus a bit test with no allocation. An order transition additionally has to pass the guards of its
+ * target status and then runs the {@link OrderTransitionHook}s registered for that target (event publishing).
+ * A transition to the current status is a no-op unless the table lists it as a re-entry. Every applied transition is counted
+ * ({@code order.state.transitions}) and timed ({@code order.state.transition.duration}, with histogram buckets),
+ * tagged by machine, from and to; rejected ones are counted in {@code order.state.transitions.rejected}.
+ */
+@Component
+@Slf4j
+public class OrderStateMachine {
+
+    private static final Map<OrderStatus, Set<OrderStatus>> ORDER_TRANSITIONS = new EnumMap<>(OrderStatus.class);
+    private static final Map<PaymentStatus, Set<PaymentStatus>> PAYMENT_TRANSITIONS = new EnumMap<>(PaymentStatus.class);
+    private static final Map<FulfillmentStatus, Set<FulfillmentStatus>> FULFILLMENT_TRANSITIONS = new EnumMap<>(FulfillmentStatus.class);
+
+    /** Statuses in which payment outcomes are no longer applied (late or duplicate gateway events). */
+    private static final Set<OrderStatus> PAYMENT_CLOSED = EnumSet.of(COMPLETED, CANCELLED_BY_USER, CANCELLED_BY_SYSTEM, REFUNDED);
+
+    /** Statuses in which a refund of the payment is still applied (all of them can move to REFUNDED). */
+    private static final Set<OrderStatus> REFUNDABLE = EnumSet.of(COMPLETED, REFUND_PENDING, PARTIALLY_REFUNDED);
+
+    private static final Map<OrderStatus, List<Guard>> GUARDS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        ORDER_TRANSITIONS.put(PENDING_PAYMENT, EnumSet.of(PAYMENT_PROCESSING, PAYMENT_FAILED, AWAITING_FULFILLMENT,
+                CANCELLED_BY_USER, CANCELLED_BY_SYSTEM));
+        // Self-transitions are re-entries for a new payment attempt (a retry that fails again publishes again)
+        ORDER_TRANSITIONS.put(PAYMENT_PROCESSING, EnumSet.of(PAYMENT_PROCESSING, PAYMENT_FAILED, AWAITING_FULFILLMENT,
+                CANCELLED_BY_USER, CANCELLED_BY_SYSTEM));
+        ORDER_TRANSITIONS.put(PAYMENT_FAILED, EnumSet.of(PAYMENT_FAILED, PAYMENT_PROCESSING, AWAITING_FULFILLMENT,
+                CANCELLED_BY_SYSTEM));
+        ORDER_TRANSITIONS.put(AWAITING_FULFILLMENT, EnumSet.of(PROCESSING, COMPLETED, REFUND_PENDING));
+        ORDER_TRANSITIONS.put(PROCESSING, EnumSet.of(COMPLETED, REFUND_PENDING));
+        ORDER_TRANSITIONS.put(COMPLETED, EnumSet.of(REFUND_PENDING, PARTIALLY_REFUNDED, REFUNDED));
+        ORDER_TRANSITIONS.put(REFUND_PENDING, EnumSet.of(PARTIALLY_REFUNDED, REFUNDED));
+        ORDER_TRANSITIONS.put(PARTIALLY_REFUNDED, EnumSet.of(REFUND_PENDING, REFUNDED));
+        ORDER_TRANSITIONS.put(CANCELLED_BY_USER, EnumSet.noneOf(OrderStatus.class));
+        ORDER_TRANSITIONS.put(CANCELLED_BY_SYSTEM, EnumSet.noneOf(OrderStatus.class));
+        ORDER_TRANSITIONS.put(REFUNDED, EnumSet.noneOf(OrderStatus.class));
+
+        // A new payment attempt may follow a failed one; a null payment status (no attempt yet) may go anywhere
+        PAYMENT_TRANSITIONS.put(PaymentStatus.PENDING, EnumSet.of(PaymentStatus.SUCCEEDED, PaymentStatus.FAILED));
+        PAYMENT_TRANSITIONS.put(PaymentStatus.FAILED, EnumSet.of(PaymentStatus.PENDING, PaymentStatus.SUCCEEDED));
+        PAYMENT_TRANSITIONS.put(PaymentStatus.SUCCEEDED, EnumSet.of(PaymentStatus.REFUNDED));
+        PAYMENT_TRANSITIONS.put(PaymentStatus.REFUNDED, EnumSet.noneOf(PaymentStatus.class));
+
+        FULFILLMENT_TRANSITIONS.put(FulfillmentStatus.PENDING, EnumSet.of(FulfillmentStatus.SUCCESSFUL, FulfillmentStatus.FAILED));
+        FULFILLMENT_TRANSITIONS.put(FulfillmentStatus.FAILED, EnumSet.of(FulfillmentStatus.PENDING, FulfillmentStatus.SUCCESSFUL));
+        FULFILLMENT_TRANSITIONS.put(FulfillmentStatus.SUCCESSFUL, EnumSet.noneOf(FulfillmentStatus.class));
+
+        GUARDS.put(PAYMENT_PROCESSING, List.of(
+                new Guard("payment is pending", order -> order.getPaymentStatus() == PaymentStatus.PENDING)));
+        GUARDS.put(PAYMENT_FAILED, List.of(
+                new Guard("payment has failed", order -> order.getPaymentStatus() == PaymentStatus.FAILED)));
+        GUARDS.put(AWAITING_FULFILLMENT, List.of(
+                new Guard("payment has succeeded", order -> order.getPaymentStatus() == PaymentStatus.SUCCEEDED)));
+        GUARDS.put(COMPLETED, List.of(
+                new Guard("payment has succeeded", order -> order.getPaymentStatus() == PaymentStatus.SUCCEEDED),
+                new Guard("all items are fulfilled", order -> order.getItems().stream()
+                        .allMatch(item -> item.getFulfillmentStatus() == FulfillmentStatus.SUCCESSFUL))));
+        GUARDS.put(REFUNDED, List.of(
+                new Guard("payment has been refunded", order -> order.getPaymentStatus() == PaymentStatus.REFUNDED)));
+    }
+
+    private record Guard(String description, Predicate<CustomerOrder> condition) {}
+
+    private final Map<OrderStatus, List<OrderTransitionHook>> hooks = new EnumMap<>(OrderStatus.class);
+    private final TransitionMeters<OrderStatus> orderMeters;
+    private final TransitionMeters<PaymentStatus> paymentMeters;
+    private final TransitionMeters<FulfillmentStatus> fulfillmentMeters;
+
+    public OrderStateMachine(List<OrderTransitionHook> transitionHooks, MeterRegistry meterRegistry) {
+        for (OrderTransitionHook hook : transitionHooks) {
+            for (OrderStatus target : hook.targets()) {
+                hooks.computeIfAbsent(target, status -> new ArrayList<>()).add(hook);
+            }
+        }
+        this.orderMeters = new TransitionMeters<>("order", OrderStatus.class, ORDER_TRANSITIONS, false, meterRegistry);
+        this.paymentMeters = new TransitionMeters<>("payment", PaymentStatus.class, PAYMENT_TRANSITIONS, true, meterRegistry);
+        this.fulfillmentMeters = new TransitionMeters<>("fulfillment", FulfillmentStatus.class, FULFILLMENT_TRANSITIONS, false, meterRegistry);
+    }
+
+    // --- Queries (no side effects) ---
+
+    public boolean canTransition(OrderStatus from, OrderStatus to) {
+        return from == to || ORDER_TRANSITIONS.get(from).contains(to);
+    }
+
+    public boolean canUpdatePayment(PaymentStatus from, PaymentStatus to) {
+        return from == null || from == to || PAYMENT_TRANSITIONS.get(from).contains(to);
+    }
+
+    /**
+     * Whether a payment outcome is still applied to an order in {@code status}: refunds only once the order is paid
+     * for and not yet fully refunded, every other outcome only until the order is closed.
+     */
+    public boolean acceptsPaymentUpdate(OrderStatus status, PaymentStatus update) {
+        return update == PaymentStatus.REFUNDED ? REFUNDABLE.contains(status) : !PAYMENT_CLOSED.contains(status);
+    }
+
+    /**
+     * The statuses from which {@code to} can be reached, for set-based updates that must respect the table.
+     */
+    public Set<OrderStatus> sourcesOf(OrderStatus to) {
+        Set<OrderStatus> sources = EnumSet.noneOf(OrderStatus.class);
+        ORDER_TRANSITIONS.forEach((from, targets) -> {
+            if (targets.contains(to)) {
+                sources.add(from);
+            }
+        });
+        return Collections.unmodifiableSet(sources);
+    }
+
+    // --- Transitions ---
+
+    /**
+     * Moves the order to {@code target}: checks the table and the target's guards, applies the status (and its entry
+     * effects), then runs the hooks registered for {@code target}.
+     *
+     * @throws InvalidOrderStatusTransitionException if the transition is not allowed or a guard fails.
+     */
+    public void transition(CustomerOrder order, OrderStatus target, OrderTransitionContext context) {
+        OrderStatus from = order.getOrderStatus();
+        Set<OrderStatus> allowed = ORDER_TRANSITIONS.get(from);
+        if (from == target && !allowed.contains(target)) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        if (!allowed.contains(target)) {
+            orderMeters.rejected(target);
+            throw new InvalidOrderStatusTransitionException(
+                    "Order " + order.getId() + " cannot move from " + from + " to " + target + ".");
+        }
+        for (Guard guard : GUARDS.getOrDefault(target, List.of())) {
+            if (!guard.condition().test(order)) {
+                orderMeters.rejected(target);
+                throw new InvalidOrderStatusTransitionException(
+                        "Order " + order.getId() + " cannot move from " + from + " to " + target + ": " + guard.description() + " is required.");
+            }
+        }
+
+        order.setOrderStatus(target);
+        if (target == COMPLETED) {
+            order.setCompletedAt(context.occurredAt());
+        }
+        for (OrderTransitionHook hook : hooks.getOrDefault(target, List.of())) {
+            hook.afterTransition(order, from, target, context);
+        }
+
+        orderMeters.applied(from, target, System.nanoTime() - startNanos);
+        log.debug("Order {} moved from {} to {}.", order.getId(), from, target);
+    }
+
+    /**
+     * @throws InvalidOrderStatusTransitionException if the payment status cannot move to {@code target}.
+     */
+    public void updatePayment(CustomerOrder order, PaymentStatus target) {
+        PaymentStatus from = order.getPaymentStatus();
+        if (from == target) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        if (!canUpdatePayment(from, target)) {
+            paymentMeters.rejected(target);
+            throw new InvalidOrderStatusTransitionException(
+                    "Payment of order " + order.getId() + " cannot move from " + from + " to " + target + ".");
+        }
+        order.setPaymentStatus(target);
+        paymentMeters.applied(from, target, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @throws InvalidOrderStatusTransitionException if the item's fulfillment status cannot move to {@code target}.
+     */
+    public void updateFulfillment(CustomerOrder order, OrderItem item, FulfillmentStatus target) {
+        FulfillmentStatus from = item.getFulfillmentStatus();
+        if (from == target) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        if (!FULFILLMENT_TRANSITIONS.get(from).contains(target)) {
+            fulfillmentMeters.rejected(target);
+            throw new InvalidOrderStatusTransitionException(
+                    "Item " + item.getId() + " of order " + order.getId() + " cannot move from " + from + " to " + target + ".");
+        }
+        item.setFulfillmentStatus(target);
+        fulfillmentMeters.applied(from, target, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records transitions applied in bulk by a set-based update (which bypasses {@link #transition}).
+     */
+    public void recordBulkTransition(OrderStatus from, OrderStatus to, long count, long elapsedNanos) {
+        orderMeters.appliedBulk(from, to, count, elapsedNanos);
+    }
+
+    /**
+     * Counter and timer for every allowed (from, to) pair, registered up front so the hot path only does EnumMap
+     * lookups. With {@code nullSource}, transitions out of "no status yet" are tracked under from=NONE.
+     */
+    private static final class TransitionMeters<S extends Enum<S>> {
+
+        private record Meters(Counter counter, Timer timer) {}
+
+        private final Map<S, Map<S, Meters>> applied;
+        private final Map<S, Meters> appliedFromNone;
+        private final Map<S, Counter> rejected;
+
+        TransitionMeters(String machine, Class<S> type, Map<S, Set<S>> table, boolean nullSource, MeterRegistry registry) {
+            this.applied = new EnumMap<>(type);
+            this.appliedFromNone = new EnumMap<>(type);
+            this.rejected = new EnumMap<>(type);
+            table.forEach((from, targets) -> {
+                Map<S, Meters> byTarget = new EnumMap<>(type);
+                targets.forEach(to -> byTarget.put(to, meters(machine, from.name(), to.name(), registry)));
+                applied.put(from, byTarget);
+            });
+            for (S to : type.getEnumConstants()) {
+                if (nullSource) {
+                    appliedFromNone.put(to, meters(machine, "NONE", to.name(), registry));
+                }
+                rejected.put(to, Counter.builder("order.state.transitions.rejected")
+                        .description("Status transitions rejected by the transition table or a guard")
+                        .tag("machine", machine).tag("to", to.name())
+                        .register(registry));
+            }
+        }
+
+        private static Meters meters(String machine, String from, String to, MeterRegistry registry) {
+            Counter counter = Counter.builder("order.state.transitions")
+                    .description("Applied status transitions")
+                    .tag("machine", machine).tag("from", from).tag("to", to)
+                    .register(registry);
+            Timer timer = Timer.builder("order.state.transition.duration")
+                    .description("Time to check and apply a status transition, including its hooks")
+                    .tag("machine", machine).tag("from", from).tag("to", to)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            return new Meters(counter, timer);
+        }
+
+        void applied(S from, S to, long elapsedNanos) {
+            Meters meters = from == null ? appliedFromNone.get(to) : applied.get(from).get(to);
+            meters.counter().increment();
+            meters.timer().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        void appliedBulk(S from, S to, long count, long elapsedNanos) {
+            Meters meters = applied.get(from).get(to);
+            meters.counter().increment(count);
+            meters.timer().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        void rejected(S to) {
+            rejected.get(to).increment();
+        }
+    }
+}
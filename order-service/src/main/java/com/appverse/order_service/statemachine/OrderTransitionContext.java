@@ -0,0 +1,18 @@
+package com.appverse.order_service.statemachine;
+
+import java.time.Instant;
+
+/**
+ * What caused a transition, handed to guards and hooks.
+ *
+ * @param reason     Human-readable cause (payment failure reason, "Cancelled by user", ...); nullable.
+ * @param occurredAt When the triggering event happened; used as the event timestamp by hooks.
+ */
+public record OrderTransitionContext(
+    String reason,
+    Instant occurredAt
+) {
+    public static OrderTransitionContext now(String reason) {
+        return new OrderTransitionContext(reason, Instant.now());
+    }
+}
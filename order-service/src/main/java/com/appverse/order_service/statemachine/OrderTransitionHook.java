@@ -0,0 +1,21 @@
+package com.appverse.order_service.statemachine;
+
+import com.appverse.order_service.enums.OrderStatus;
+import com.appverse.order_service.model.CustomerOrder;
+
+import java.util.Set;
+
+/**
+ * Side effect run by {@link OrderStateMachine} after an order has entered one of {@link #targets()}.
+ * Hooks run inside the caller's transaction, so anything they write (e.g. outbox events) commits or rolls back
+ * together with the status change. Implementations are picked up as Spring beans.
+ */
+public interface OrderTransitionHook {
+
+    /**
+     * The target statuses this hook reacts to.
+     */
+    Set<OrderStatus> targets();
+
+    void afterTransition(CustomerOrder order, OrderStatus from, OrderStatus to, OrderTransitionContext context);
+}
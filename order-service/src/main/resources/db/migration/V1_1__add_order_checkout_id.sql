@@ -0,0 +1,3 @@
+-- Orders created from a cart-service checkout snapshot remember it (OrderPaymentSucceeded carries it back to the cart).
+
+ALTER TABLE customer_orders ADD COLUMN checkout_id VARCHAR(36) AFTER notes;
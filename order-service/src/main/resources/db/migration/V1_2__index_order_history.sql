@@ -0,0 +1,3 @@
+-- Keyset pagination of a user's order history on (created_at, id), newest first.
+
+ALTER TABLE customer_orders ADD KEY idx_customer_order_user_created_id (user_id, created_at, id);
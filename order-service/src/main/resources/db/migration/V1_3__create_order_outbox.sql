@@ -0,0 +1,15 @@
+-- Transactional outbox: order events are written with the order change and published by OrderOutboxRelay.
+
+CREATE TABLE order_outbox (
+    id           BIGINT        NOT NULL AUTO_INCREMENT,
+    topic        VARCHAR(255)  NOT NULL,
+    event_key    VARCHAR(255)  NOT NULL,
+    event_type   VARCHAR(100)  NOT NULL,
+    payload      JSON          NOT NULL,
+    created_at   DATETIME(6)   NOT NULL,
+    published_at DATETIME(6),
+    attempts     INT           NOT NULL,
+    last_error   VARCHAR(1000),
+    PRIMARY KEY (id),
+    KEY idx_order_outbox_published_id (published_at, id)
+) ENGINE = InnoDB;
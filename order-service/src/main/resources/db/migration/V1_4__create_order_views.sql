@@ -0,0 +1,11 @@
+-- Denormalized read model: one JSON OrderResponse document per order, written by OrderReadModelProjector.
+
+CREATE TABLE order_views (
+    order_id   VARCHAR(36)  NOT NULL,
+    user_id    VARCHAR(255) NOT NULL,
+    created_at DATETIME(6)  NOT NULL,
+    updated_at DATETIME(6)  NOT NULL,
+    document   JSON         NOT NULL,
+    PRIMARY KEY (order_id),
+    KEY idx_order_view_user_created_id (user_id, created_at, order_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,16 @@
+-- Retried order submissions. With an Idempotency-Key, (user_id, idempotency_key) maps to the order it created; the
+-- key has its own table because customer_orders is partitioned (V2), and a partitioned table only enforces unique
+-- keys that contain created_at. Without a key, retries are matched on the request fingerprint.
+
+ALTER TABLE customer_orders
+    ADD COLUMN request_fingerprint VARCHAR(64) AFTER checkout_id,
+    ADD KEY idx_customer_order_user_fingerprint (user_id, request_fingerprint, created_at);
+
+CREATE TABLE order_idempotency_keys (
+    user_id         VARCHAR(255) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    order_id        VARCHAR(36)  NOT NULL,
+    created_at      DATETIME(6)  NOT NULL,
+    PRIMARY KEY (user_id, idempotency_key),
+    KEY idx_order_idempotency_key_order (order_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,3 @@
+-- Keyset scans of one status by age: the pending-payment expiry sweep and archival.
+
+ALTER TABLE customer_orders ADD KEY idx_customer_order_status_created_id (order_status, created_at, id);
@@ -0,0 +1,37 @@
+-- Baseline: the order-service schema as Hibernate generated it from the original entities.
+-- Databases created by ddl-auto already have these tables; run Flyway with baseline-on-migrate
+-- (baseline version 1) there so this script is skipped and migration starts at V1.1.
+
+CREATE TABLE IF NOT EXISTS customer_orders (
+    id                     VARCHAR(36)    NOT NULL,
+    user_id                VARCHAR(255)   NOT NULL,
+    order_status           VARCHAR(50)    NOT NULL,
+    order_total            DECIMAL(19, 4) NOT NULL,
+    currency               VARCHAR(10)    NOT NULL,
+    payment_transaction_id VARCHAR(255),
+    payment_status         VARCHAR(50),
+    notes                  VARCHAR(500),
+    created_at             DATETIME(6)    NOT NULL,
+    updated_at             DATETIME(6)    NOT NULL,
+    completed_at           DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id                   VARCHAR(36)    NOT NULL,
+    customer_order_id    VARCHAR(36)    NOT NULL,
+    application_id       VARCHAR(255)   NOT NULL,
+    application_name     VARCHAR(255)   NOT NULL,
+    application_version  VARCHAR(50),
+    quantity             INT            NOT NULL,
+    unit_price           DECIMAL(19, 4) NOT NULL,
+    total_price          DECIMAL(19, 4) NOT NULL,
+    currency             VARCHAR(10)    NOT NULL,
+    item_type            VARCHAR(50)    NOT NULL,
+    subscription_plan_id VARCHAR(255),
+    fulfillment_status   VARCHAR(50)    NOT NULL,
+    created_at           DATETIME(6)    NOT NULL,
+    updated_at           DATETIME(6)    NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_order_item_customer_order FOREIGN KEY (customer_order_id) REFERENCES customer_orders (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,16 @@
+-- Compact archive of old orders in a final status: one row per order, items folded into the
+-- OrderResponse JSON document, compressed pages. Written by OrderArchiver, read as a fallback
+-- by OrderQueryService.
+CREATE TABLE customer_orders_archive (
+    order_id     VARCHAR(36)    NOT NULL,
+    user_id      VARCHAR(255)   NOT NULL,
+    order_status VARCHAR(50)    NOT NULL,
+    order_total  DECIMAL(19, 4) NOT NULL,
+    currency     VARCHAR(10)    NOT NULL,
+    created_at   DATETIME(6)    NOT NULL,
+    completed_at DATETIME(6),
+    archived_at  DATETIME(6)    NOT NULL,
+    document     JSON           NOT NULL,
+    PRIMARY KEY (order_id),
+    KEY idx_order_archive_user_created_id (user_id, created_at, order_id)
+) ENGINE = InnoDB ROW_FORMAT = COMPRESSED;
@@ -0,0 +1,30 @@
+-- Revenue rollups, maintained incrementally by RevenueRollupHook when orders reach COMPLETED or REFUNDED.
+-- revenue_rollup_ledger records which (order, entry) pairs have been applied, so replays add nothing.
+
+CREATE TABLE revenue_rollup_ledger (
+    order_id   VARCHAR(36) NOT NULL,
+    entry_type VARCHAR(20) NOT NULL,
+    applied_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (order_id, entry_type)
+) ENGINE = InnoDB;
+
+CREATE TABLE revenue_daily_rollup (
+    day             DATE           NOT NULL,
+    currency        VARCHAR(10)    NOT NULL,
+    order_count     BIGINT         NOT NULL,
+    gross_amount    DECIMAL(19, 4) NOT NULL,
+    refund_count    BIGINT         NOT NULL,
+    refunded_amount DECIMAL(19, 4) NOT NULL,
+    PRIMARY KEY (day, currency)
+) ENGINE = InnoDB;
+
+CREATE TABLE revenue_daily_application_rollup (
+    day             DATE           NOT NULL,
+    application_id  VARCHAR(255)   NOT NULL,
+    currency        VARCHAR(10)    NOT NULL,
+    units_sold      BIGINT         NOT NULL,
+    gross_amount    DECIMAL(19, 4) NOT NULL,
+    units_refunded  BIGINT         NOT NULL,
+    refunded_amount DECIMAL(19, 4) NOT NULL,
+    PRIMARY KEY (day, application_id, currency)
+) ENGINE = InnoDB;
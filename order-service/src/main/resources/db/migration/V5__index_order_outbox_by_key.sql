@@ -0,0 +1,3 @@
+-- Lets OrderOutboxRelay check cheaply whether an outbox row has an earlier unpublished row for the same key.
+
+ALTER TABLE order_outbox ADD KEY idx_order_outbox_key_published_id (event_key, published_at, id);
@@ -0,0 +1,12 @@
+-- Orders created from a cart-service checkout: (user_id, checkout_id) maps to the one order it created, so a retried
+-- POST /orders/checkout/{checkoutId} returns that order instead of charging the cart twice. Like
+-- order_idempotency_keys, this is its own table because the partitioned customer_orders cannot enforce it.
+
+CREATE TABLE order_checkouts (
+    user_id     VARCHAR(255) NOT NULL,
+    checkout_id VARCHAR(36)  NOT NULL,
+    order_id    VARCHAR(36)  NOT NULL,
+    created_at  DATETIME(6)  NOT NULL,
+    PRIMARY KEY (user_id, checkout_id),
+    KEY idx_order_checkout_order (order_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,67 @@
+package com.appverse.order_service.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStageTimingsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderStageTimings timings;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        timings = new OrderStageTimings(meterRegistry);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void lapsAreRecordedOnCompletionWithTheFinalItemBucket() {
+        OrderStageTimings.Clock clock = timings.start(OrderStageTimings.CREATE_ORDER);
+        clock.lap("dedup");
+        clock.items(3);
+        clock.lap("pricing");
+
+        assertTrue(meterRegistry.getMeters().isEmpty(), "nothing is recorded before the transaction completes");
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        for (String stage : new String[] {"dedup", "pricing", "commit"}) {
+            assertEquals(1L, meterRegistry.get("order.operation.stage.duration")
+                    .tags("operation", "create_order", "stage", stage, "items", "2-5").timer().count());
+        }
+        assertEquals(1L, meterRegistry.get("order.operation.duration")
+                .tags("operation", "create_order", "items", "2-5", "outcome", "committed").timer().count());
+    }
+
+    @Test
+    void rollbackIsTaggedOnTheTotal() {
+        OrderStageTimings.Clock clock = timings.start(OrderStageTimings.PAYMENT_UPDATE);
+        clock.items(1);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(1L, meterRegistry.get("order.operation.duration")
+                .tags("operation", "payment_update", "items", "1", "outcome", "rolled_back").timer().count());
+    }
+
+    @Test
+    void itemCountsAreBucketed() {
+        assertEquals("0", OrderStageTimings.itemBucket(0));
+        assertEquals("1", OrderStageTimings.itemBucket(1));
+        assertEquals("2-5", OrderStageTimings.itemBucket(5));
+        assertEquals("6-20", OrderStageTimings.itemBucket(6));
+        assertEquals("21+", OrderStageTimings.itemBucket(21));
+    }
+}
@@ -0,0 +1,24 @@
+package com.appverse.order_service.persistence;
+
+import com.appverse.order_service.config.JdbcBatchingConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", OrderPersistenceStatementCountBenchmark.STATEMENT_COUNTER})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Each phase commits on its own
+@Import(JdbcBatchingConfig.class)
+class BatchedOrderPersistenceTest extends OrderPersistenceStatementCountBenchmark {
+
+    @Test
+    void orderAndItemsAreWrittenInOneBatchPerTable() {
+        StatementCounts counts = persistAndFulfillOrder();
+
+        assertEquals(2, counts.insertStatements()); // customer_orders + one batch for all order_items
+        assertEquals(2, counts.updateStatements()); // customer_orders + one batch for all order_items
+    }
+}
@@ -0,0 +1,119 @@
+package com.appverse.order_service.persistence;
+
+import com.appverse.order_service.client.AppServiceClient;
+import com.appverse.order_service.client.CartServiceClient;
+import com.appverse.order_service.enums.FulfillmentStatus;
+import com.appverse.order_service.enums.OrderItemType;
+import com.appverse.order_service.enums.OrderStatus;
+import com.appverse.order_service.model.CustomerOrder;
+import com.appverse.order_service.model.OrderItem;
+import com.appverse.order_service.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the JDBC statements Hibernate prepares to persist one order with {@link #ITEMS} items and to apply the
+ * fulfillment-status updates of a successful payment. Subclasses run it with and without JDBC batching and register
+ * {@link StatementCounter} (see {@link #STATEMENT_COUNTER}); a batch is prepared once, so it counts as one statement.
+ */
+@Slf4j
+abstract class OrderPersistenceStatementCountBenchmark {
+
+    static final int ITEMS = 20;
+
+    static final String STATEMENT_COUNTER =
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+            "com.appverse.order_service.persistence.OrderPersistenceStatementCountBenchmark$StatementCounter";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Registered by @EnableFeignClients on the application class; not part of the JPA slice
+    @MockBean
+    private AppServiceClient appServiceClient;
+
+    @MockBean
+    private CartServiceClient cartServiceClient;
+
+    record StatementCounts(long insertStatements, long updateStatements) {}
+
+    /**
+     * Counts the INSERT and UPDATE statements Hibernate prepares. Instantiated by Hibernate, hence the static counters.
+     */
+    public static class StatementCounter implements StatementInspector {
+
+        private static final AtomicLong inserts = new AtomicLong();
+        private static final AtomicLong updates = new AtomicLong();
+
+        @Override
+        public String inspect(String sql) {
+            String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+            if (statement.startsWith("insert")) {
+                inserts.incrementAndGet();
+            } else if (statement.startsWith("update")) {
+                updates.incrementAndGet();
+            }
+            return sql;
+        }
+
+        static void reset() {
+            inserts.set(0);
+            updates.set(0);
+        }
+    }
+
+    StatementCounts persistAndFulfillOrder() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String orderId = UUID.randomUUID().toString();
+
+        StatementCounter.reset();
+        transactionTemplate.executeWithoutResult(status -> orderRepository.save(newOrder(orderId)));
+        transactionTemplate.executeWithoutResult(status -> {
+            CustomerOrder order = orderRepository.findById(orderId).orElseThrow();
+            order.getItems().forEach(item -> item.setFulfillmentStatus(FulfillmentStatus.SUCCESSFUL));
+            order.setOrderStatus(OrderStatus.COMPLETED);
+        });
+
+        StatementCounts counts = new StatementCounts(StatementCounter.inserts.get(), StatementCounter.updates.get());
+        log.debug("{}: {}-item order -> {} statements to insert, {} statements to fulfill",
+                getClass().getSimpleName(), ITEMS, counts.insertStatements(), counts.updateStatements());
+        return counts;
+    }
+
+    private static CustomerOrder newOrder(String orderId) {
+        CustomerOrder order = CustomerOrder.builder()
+                .id(orderId)
+                .userId("user-benchmark")
+                .orderStatus(OrderStatus.PENDING_PAYMENT)
+                .currency("USD")
+                .orderTotal(BigDecimal.ZERO)
+                .build();
+        for (int i = 0; i < ITEMS; i++) {
+            order.addItem(OrderItem.builder()
+                    .id(UUID.randomUUID().toString())
+                    .applicationId("app-" + i)
+                    .applicationName("App " + i)
+                    .quantity(1)
+                    .unitPrice(new BigDecimal("4.99"))
+                    .totalPrice(new BigDecimal("4.99"))
+                    .currency("USD")
+                    .itemType(OrderItemType.ONE_TIME_PURCHASE)
+                    .fulfillmentStatus(FulfillmentStatus.PENDING)
+                    .build());
+        }
+        order.setOrderTotal(new BigDecimal("4.99").multiply(BigDecimal.valueOf(ITEMS)));
+        return order;
+    }
+}
@@ -0,0 +1,106 @@
+package com.appverse.order_service.persistence;
+
+import com.appverse.order_service.client.AppServiceClient;
+import com.appverse.order_service.client.CartServiceClient;
+import com.appverse.order_service.config.OrderCacheConfig;
+import com.appverse.order_service.enums.FulfillmentStatus;
+import com.appverse.order_service.enums.OrderItemType;
+import com.appverse.order_service.enums.OrderStatus;
+import com.appverse.order_service.model.CustomerOrder;
+import com.appverse.order_service.model.OrderCacheRegions;
+import com.appverse.order_service.model.OrderItem;
+import com.appverse.order_service.repository.OrderIdempotencyKeyRepository;
+import com.appverse.order_service.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that cached orders stay cached while native writes to other tables run, i.e. that those writes declare their
+ * query spaces instead of making Hibernate evict every region.
+ */
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "appverse.order.cache.enabled=true"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Each read and write commits on its own
+@Import(OrderCacheConfig.class)
+class OrderSecondLevelCacheTest {
+
+    private static final int WRITES = 10;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderIdempotencyKeyRepository orderIdempotencyKeyRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Registered by @EnableFeignClients on the application class; not part of the JPA slice
+    @MockBean
+    private AppServiceClient appServiceClient;
+
+    @MockBean
+    private CartServiceClient cartServiceClient;
+
+    @Test
+    void cachedOrderIsStillHitWhileNativeWritesRun() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String orderId = UUID.randomUUID().toString();
+        transactionTemplate.executeWithoutResult(status -> orderRepository.save(newOrder(orderId)));
+        transactionTemplate.executeWithoutResult(status -> orderRepository.findById(orderId).orElseThrow()); // Warm up
+
+        statistics.clear();
+        for (int i = 0; i < WRITES; i++) {
+            String idempotencyKey = "key-" + i;
+            transactionTemplate.executeWithoutResult(status ->
+                    orderIdempotencyKeyRepository.insert("user-cache", idempotencyKey, orderId, Instant.now()));
+            transactionTemplate.executeWithoutResult(status -> orderRepository.findById(orderId).orElseThrow());
+        }
+
+        CacheRegionStatistics orders = statistics.getDomainDataRegionStatistics(OrderCacheRegions.ORDERS);
+        assertEquals(WRITES, orders.getHitCount());
+        assertEquals(0, orders.getMissCount());
+    }
+
+    private static CustomerOrder newOrder(String orderId) {
+        CustomerOrder order = CustomerOrder.builder()
+                .id(orderId)
+                .userId("user-cache")
+                .orderStatus(OrderStatus.PENDING_PAYMENT)
+                .currency("USD")
+                .orderTotal(new BigDecimal("4.99"))
+                .build();
+        order.addItem(OrderItem.builder()
+                .id(UUID.randomUUID().toString())
+                .applicationId("app-1")
+                .applicationName("App 1")
+                .quantity(1)
+                .unitPrice(new BigDecimal("4.99"))
+                .totalPrice(new BigDecimal("4.99"))
+                .currency("USD")
+                .itemType(OrderItemType.ONE_TIME_PURCHASE)
+                .fulfillmentStatus(FulfillmentStatus.PENDING)
+                .build());
+        return order;
+    }
+}
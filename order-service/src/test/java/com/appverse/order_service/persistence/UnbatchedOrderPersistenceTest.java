@@ -0,0 +1,24 @@
+package com.appverse.order_service.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Baseline for {@link BatchedOrderPersistenceTest}: the same work without JdbcBatchingConfig.
+ */
+@DataJpaTest(properties = {"spring.flyway.enabled=false", OrderPersistenceStatementCountBenchmark.STATEMENT_COUNTER})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UnbatchedOrderPersistenceTest extends OrderPersistenceStatementCountBenchmark {
+
+    @Test
+    void everyRowIsItsOwnStatement() {
+        StatementCounts counts = persistAndFulfillOrder();
+
+        assertEquals(1 + ITEMS, counts.insertStatements());
+        assertEquals(1 + ITEMS, counts.updateStatements());
+    }
+}
@@ -0,0 +1,141 @@
+package com.appverse.order_service.statemachine;
+
+import com.appverse.order_service.enums.FulfillmentStatus;
+import com.appverse.order_service.enums.OrderStatus;
+import com.appverse.order_service.enums.PaymentStatus;
+import com.appverse.order_service.exception.InvalidOrderStatusTransitionException;
+import com.appverse.order_service.model.CustomerOrder;
+import com.appverse.order_service.model.OrderItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStateMachineTest {
+
+    private final List<OrderStatus> hookTargets = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private OrderStateMachine stateMachine;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        OrderTransitionHook recordingHook = new OrderTransitionHook() {
+            @Override
+            public Set<OrderStatus> targets() {
+                return EnumSet.of(OrderStatus.COMPLETED, OrderStatus.PAYMENT_FAILED, OrderStatus.CANCELLED_BY_USER,
+                        OrderStatus.REFUNDED);
+            }
+
+            @Override
+            public void afterTransition(CustomerOrder order, OrderStatus from, OrderStatus to, OrderTransitionContext context) {
+                hookTargets.add(to);
+            }
+        };
+        stateMachine = new OrderStateMachine(List.of(recordingHook), meterRegistry);
+    }
+
+    @Test
+    void successfulPaymentCompletesOrderAndRunsHook() {
+        CustomerOrder order = newOrder();
+        OrderTransitionContext context = OrderTransitionContext.now(null);
+
+        stateMachine.updatePayment(order, PaymentStatus.SUCCEEDED);
+        stateMachine.transition(order, OrderStatus.AWAITING_FULFILLMENT, context);
+        order.getItems().forEach(item -> stateMachine.updateFulfillment(order, item, FulfillmentStatus.SUCCESSFUL));
+        stateMachine.transition(order, OrderStatus.COMPLETED, context);
+
+        assertEquals(OrderStatus.COMPLETED, order.getOrderStatus());
+        assertEquals(context.occurredAt(), order.getCompletedAt());
+        assertEquals(List.of(OrderStatus.COMPLETED), hookTargets);
+        assertEquals(1.0, meterRegistry.get("order.state.transitions")
+                .tags("machine", "order", "from", "AWAITING_FULFILLMENT", "to", "COMPLETED").counter().count());
+        assertEquals(1L, meterRegistry.get("order.state.transition.duration")
+                .tags("machine", "payment", "from", "NONE", "to", "SUCCEEDED").timer().count());
+    }
+
+    @Test
+    void completionIsGuardedOnFulfillment() {
+        CustomerOrder order = newOrder();
+        stateMachine.updatePayment(order, PaymentStatus.SUCCEEDED);
+        stateMachine.transition(order, OrderStatus.AWAITING_FULFILLMENT, OrderTransitionContext.now(null));
+
+        assertThrows(InvalidOrderStatusTransitionException.class,
+                () -> stateMachine.transition(order, OrderStatus.COMPLETED, OrderTransitionContext.now(null)));
+        assertEquals(OrderStatus.AWAITING_FULFILLMENT, order.getOrderStatus());
+        assertTrue(hookTargets.isEmpty());
+    }
+
+    @Test
+    void cancelledOrderCannotBeCancelledAgainOrPaid() {
+        CustomerOrder order = newOrder();
+        stateMachine.transition(order, OrderStatus.CANCELLED_BY_USER, OrderTransitionContext.now("Cancelled by user"));
+
+        assertFalse(stateMachine.acceptsPaymentUpdate(order.getOrderStatus(), PaymentStatus.SUCCEEDED));
+        assertFalse(stateMachine.acceptsPaymentUpdate(order.getOrderStatus(), PaymentStatus.REFUNDED));
+        assertFalse(stateMachine.canTransition(order.getOrderStatus(), OrderStatus.AWAITING_FULFILLMENT));
+        assertThrows(InvalidOrderStatusTransitionException.class,
+                () -> stateMachine.transition(order, OrderStatus.PAYMENT_PROCESSING, OrderTransitionContext.now(null)));
+        assertEquals(1.0, meterRegistry.get("order.state.transitions.rejected")
+                .tags("machine", "order", "to", "PAYMENT_PROCESSING").counter().count());
+    }
+
+    @Test
+    void repeatedPaymentFailureReentersAndRunsHookAgain() {
+        CustomerOrder order = newOrder();
+        stateMachine.updatePayment(order, PaymentStatus.FAILED);
+        stateMachine.transition(order, OrderStatus.PAYMENT_FAILED, OrderTransitionContext.now("declined"));
+        stateMachine.transition(order, OrderStatus.PAYMENT_FAILED, OrderTransitionContext.now("declined again"));
+
+        assertEquals(List.of(OrderStatus.PAYMENT_FAILED, OrderStatus.PAYMENT_FAILED), hookTargets);
+    }
+
+    @Test
+    void refundOfCompletedOrderRunsHook() {
+        CustomerOrder order = newOrder();
+        OrderTransitionContext context = OrderTransitionContext.now(null);
+        stateMachine.updatePayment(order, PaymentStatus.SUCCEEDED);
+        stateMachine.transition(order, OrderStatus.AWAITING_FULFILLMENT, context);
+        order.getItems().forEach(item -> stateMachine.updateFulfillment(order, item, FulfillmentStatus.SUCCESSFUL));
+        stateMachine.transition(order, OrderStatus.COMPLETED, context);
+
+        assertFalse(stateMachine.acceptsPaymentUpdate(order.getOrderStatus(), PaymentStatus.SUCCEEDED));
+        assertTrue(stateMachine.acceptsPaymentUpdate(order.getOrderStatus(), PaymentStatus.REFUNDED));
+        assertThrows(InvalidOrderStatusTransitionException.class,
+                () -> stateMachine.transition(order, OrderStatus.REFUNDED, context)); // Payment not refunded yet
+
+        stateMachine.updatePayment(order, PaymentStatus.REFUNDED);
+        stateMachine.transition(order, OrderStatus.REFUNDED, context);
+
+        assertEquals(OrderStatus.REFUNDED, order.getOrderStatus());
+        assertEquals(List.of(OrderStatus.COMPLETED, OrderStatus.REFUNDED), hookTargets);
+        assertFalse(stateMachine.acceptsPaymentUpdate(order.getOrderStatus(), PaymentStatus.REFUNDED));
+    }
+
+    @Test
+    void latePaymentStatusCannotOverwriteSuccess() {
+        assertFalse(stateMachine.canUpdatePayment(PaymentStatus.SUCCEEDED, PaymentStatus.PENDING));
+        assertFalse(stateMachine.canUpdatePayment(PaymentStatus.SUCCEEDED, PaymentStatus.FAILED));
+        assertTrue(stateMachine.canUpdatePayment(null, PaymentStatus.FAILED));
+        assertEquals(EnumSet.of(OrderStatus.PENDING_PAYMENT, OrderStatus.PAYMENT_PROCESSING),
+                stateMachine.sourcesOf(OrderStatus.CANCELLED_BY_USER));
+    }
+
+    private static CustomerOrder newOrder() {
+        CustomerOrder order = CustomerOrder.builder()
+                .id("order-1")
+                .userId("user-1")
+                .orderStatus(OrderStatus.PENDING_PAYMENT)
+                .currency("USD")
+                .build();
+        order.addItem(OrderItem.builder().id("item-1").applicationId("app-1")
+                .fulfillmentStatus(FulfillmentStatus.PENDING).build());
+        return order;
+    }
+}
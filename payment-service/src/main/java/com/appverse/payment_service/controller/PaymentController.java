@@ -4,10 +4,12 @@ package com.appverse.payment_service.controller;
 import com.appverse.payment_service.dto.*;
 import com.appverse.payment_service.enums.PaymentGatewayType;
 import com.appverse.payment_service.services.PaymentService; // Corrected import
+import com.appverse.payment_service.webhook.GatewayWebhookIngestor;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,7 +20,6 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/payments")
@@ -27,6 +28,7 @@ import java.util.Map;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final GatewayWebhookIngestor gatewayWebhookIngestor;
 
     /**
      * Initiates a new payment process.
@@ -79,32 +81,32 @@ public class PaymentController {
     }
 
     /**
-     * Endpoint to receive payment status updates, typically from gateway webhooks.
-     * IMPORTANT: This endpoint MUST be secured robustly (e.g., by verifying webhook signatures).
-     * This is a simplified version; a real webhook handler is more complex.
+     * Receives gateway webhooks. The signature is verified and the raw event stored before answering, so a 200 means
+     * the event is durably queued (or was already received); GatewayWebhookProcessor applies it asynchronously. A bad
+     * signature or payload gets a 400 and a gateway without a configured secret a 500. Stripe retries any non-2xx
+     * response with backoff for days, so a rejected event is redelivered until it is accepted or retries run out.
      */
     @PostMapping("/webhook/{gateway}")
     public ResponseEntity<Void> handleGatewayWebhook(
             @PathVariable String gateway,
             @RequestBody String rawPayload,
-            @RequestHeader Map<String, String> headers) {
-        log.info("Received webhook from gateway: {}", gateway);
-        // 1. Verify webhook signature (CRITICAL FOR SECURITY)
-        //    - Stripe: Stripe.Event.constructEvent(rawPayload, headers.get("Stripe-Signature"), stripeWebhookSecret)
-        //    - PayPal: Verify using PayPal SDK and credentials/webhook ID.
-
-        // 2. Parse the rawPayload into a gateway-specific event object.
-
-        // 3. Extract necessary information and map to your PaymentStatusUpdateRequest DTO.
-        //    PaymentStatusUpdateRequest updateRequest = ... map from gateway event ...
-
-        // 4. Call the service to update the payment status.
-        //    paymentService.updatePaymentStatus(updateRequest);
-
-        log.warn("Webhook handling for gateway {} is a placeholder. Implement signature verification and payload processing.", gateway);
+            @RequestHeader HttpHeaders headers) {
+        gatewayWebhookIngestor.ingest(gateway, rawPayload, headers);
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Requeues the stored webhooks that failed processing max-attempts times (see the payment.webhooks.failed gauge),
+     * e.g. once the cause is fixed.
+     *
+     * @return the number of events requeued.
+     */
+    @PostMapping("/webhook/failed/requeue")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Integer> requeueFailedWebhooks() {
+        return ResponseEntity.ok(gatewayWebhookIngestor.requeueFailed());
+    }
+
     // ===================================================================================
     // == MOCK ENDPOINT FOR TESTING PAYMENT STATUS UPDATES (Development/Testing Only) ==
     // ===================================================================================
@@ -0,0 +1,45 @@
+// === In Payment Service Project ===
+package com.appverse.payment_service.controller;
+
+import com.appverse.payment_service.exception.BadRequestException;
+import com.appverse.payment_service.webhook.SimulatedGateway;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Load-test driver for the webhook pipeline; only present when appverse.payment.webhook.simulator.enabled=true.
+ */
+@RestController
+@RequestMapping("/api/v1/payments/internal/simulated-gateway")
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "appverse.payment.webhook.simulator.enabled", havingValue = "true")
+public class SimulatedGatewayController {
+
+    private final SimulatedGateway simulatedGateway;
+
+    /**
+     * Settles up to {@code payments} pending STRIPE transactions through signed webhooks, each delivered
+     * {@code deliveries} times, and reports how long the gateway side took.
+     */
+    @PostMapping("/settle")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SimulatedGateway.RunResult> settlePendingPayments(
+            @RequestParam(defaultValue = "1000") int payments,
+            @RequestParam(defaultValue = "2") int deliveries,
+            @RequestParam(defaultValue = "0.1") double failureRate) throws InterruptedException {
+        if (payments < 1 || payments > 100_000 || deliveries < 1 || deliveries > 10 || failureRate < 0 || failureRate > 1) {
+            throw new BadRequestException("payments must be 1..100000, deliveries 1..10 and failureRate 0..1.");
+        }
+        log.warn("SIMULATED GATEWAY: settling up to {} payments, {} deliveries per event.", payments, deliveries);
+        return ResponseEntity.ok(simulatedGateway.run(payments, deliveries, failureRate));
+    }
+}
@@ -0,0 +1,17 @@
+package com.appverse.payment_service.dto;
+
+/**
+ * Result of one {@link PaymentStatusUpdateRequest} in a batch: whether it changed the transaction, and why not if it
+ * did not (e.g. "already SUCCEEDED", "FAILED cannot move to SUCCEEDED").
+ */
+public record PaymentStatusUpdateOutcome(
+    boolean applied,
+    String reason // Null when applied
+) {
+
+    public static final PaymentStatusUpdateOutcome APPLIED = new PaymentStatusUpdateOutcome(true, null);
+
+    public static PaymentStatusUpdateOutcome rejected(String reason) {
+        return new PaymentStatusUpdateOutcome(false, reason);
+    }
+}
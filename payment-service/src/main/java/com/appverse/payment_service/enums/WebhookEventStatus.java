@@ -0,0 +1,8 @@
+package com.appverse.payment_service.enums;
+
+public enum WebhookEventStatus {
+    RECEIVED,   // Verified and stored, waiting to be processed
+    PROCESSED,  // Applied through PaymentService.updatePaymentStatuses
+    IGNORED,    // Not actionable (event type we do not handle, unknown payment)
+    FAILED      // Gave up after repeated processing failures
+}
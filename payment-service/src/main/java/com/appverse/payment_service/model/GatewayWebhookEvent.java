@@ -0,0 +1,68 @@
+package com.appverse.payment_service.model;
+
+import com.appverse.payment_service.enums.PaymentGatewayType;
+import com.appverse.payment_service.enums.WebhookEventStatus;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A verified gateway webhook, stored as received before it is acted on, so the gateway can be acknowledged at once and
+ * nothing is lost if processing fails. (paymentGateway, gatewayEventId) is unique: a redelivered webhook is dropped
+ * on insert.
+ */
+@Entity
+@Table(name = "gateway_webhook_events", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_gateway_webhook_event", columnNames = {"paymentGateway", "gatewayEventId"})
+}, indexes = {
+    @Index(name = "idx_gateway_webhook_status_id", columnList = "status, id"), // Processing claims, oldest first
+    @Index(name = "idx_gateway_webhook_ref_status", columnList = "transactionRef, status, id") // Per-payment ordering
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GatewayWebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY) // Arrival order
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private PaymentGatewayType paymentGateway;
+
+    @Column(nullable = false, length = 255)
+    private String gatewayEventId; // e.g. Stripe evt_...
+
+    @Column(nullable = false, length = 100)
+    private String eventType; // e.g. payment_intent.succeeded
+
+    @Column(length = 255)
+    private String transactionRef; // Gateway payment the event is about (e.g. Stripe PaymentIntent ID); events for one ref are applied in order
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String payload; // Raw body, exactly as signed
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private WebhookEventStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column
+    private Instant nextAttemptAt; // Set after a failed attempt (exponential backoff); null when due at once
+
+    @Column(nullable = false)
+    private Instant receivedAt;
+
+    @Column
+    private Instant processedAt;
+}
@@ -0,0 +1,84 @@
+package com.appverse.payment_service.repository;
+
+import com.appverse.payment_service.enums.WebhookEventStatus;
+import com.appverse.payment_service.model.GatewayWebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface GatewayWebhookEventRepository extends JpaRepository<GatewayWebhookEvent, Long> {
+
+    interface EarliestPendingView {
+        String getTransactionRef();
+        Long getEarliestId();
+    }
+
+    /**
+     * Stores a webhook unless one with the same (gateway, gateway event ID) exists (MySQL-specific). INSERT IGNORE
+     * rather than ON DUPLICATE KEY UPDATE, which reports a duplicate as 1 row under Connector/J's default found-rows
+     * setting.
+     *
+     * @return 1 if stored, 0 if it was a redelivery.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO gateway_webhook_events (payment_gateway, gateway_event_id, event_type, transaction_ref, " +
+                   "payload, status, attempts, received_at) " +
+                   "VALUES (:gateway, :gatewayEventId, :eventType, :transactionRef, :payload, 'RECEIVED', 0, :receivedAt)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("gateway") String gateway,
+                       @Param("gatewayEventId") String gatewayEventId,
+                       @Param("eventType") String eventType,
+                       @Param("transactionRef") String transactionRef,
+                       @Param("payload") String payload,
+                       @Param("receivedAt") Instant receivedAt);
+
+    /**
+     * Claims the oldest received events that are due (not backing off after a failure). An event is not claimed while
+     * an earlier event of the same ref is FAILED or backing off, so it cannot overtake it. Rows claimed by another
+     * instance are skipped, not waited for.
+     */
+    @Query(value = "SELECT * FROM gateway_webhook_events e WHERE e.status = 'RECEIVED' " +
+                   "AND (e.next_attempt_at IS NULL OR e.next_attempt_at <= :now) " +
+                   "AND NOT EXISTS (SELECT 1 FROM gateway_webhook_events p WHERE p.transaction_ref = e.transaction_ref " +
+                   "AND p.id < e.id AND (p.status = 'FAILED' OR (p.status = 'RECEIVED' AND p.next_attempt_at > :now))) " +
+                   "ORDER BY e.id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<GatewayWebhookEvent> claimReceived(@Param("limit") int limit, @Param("now") Instant now);
+
+    /**
+     * The oldest unfinished (received or failed) event of each ref, claimed or not. If it is older than the first event
+     * claimed for that ref, another instance holds an earlier event or it failed, so the ref must wait.
+     */
+    @Query("select e.transactionRef as transactionRef, min(e.id) as earliestId from GatewayWebhookEvent e " +
+           "where e.status in (com.appverse.payment_service.enums.WebhookEventStatus.RECEIVED, " +
+           "com.appverse.payment_service.enums.WebhookEventStatus.FAILED) " +
+           "and e.transactionRef in :refs group by e.transactionRef")
+    List<EarliestPendingView> findEarliestPending(@Param("refs") Collection<String> refs);
+
+    /**
+     * Puts every FAILED event back in the queue with a fresh set of attempts (e.g. once the cause is fixed). The last
+     * error is kept until the event is processed.
+     *
+     * @return the number of events requeued.
+     */
+    @Modifying
+    @Query(value = "UPDATE gateway_webhook_events SET status = 'RECEIVED', attempts = 0, next_attempt_at = NULL, " +
+                   "processed_at = NULL WHERE status = 'FAILED'",
+           nativeQuery = true)
+    int requeueFailed();
+
+    @Modifying
+    @Query(value = "DELETE FROM gateway_webhook_events WHERE status IN ('PROCESSED', 'IGNORED') AND received_at < :cutoff " +
+                   "LIMIT :limit",
+           nativeQuery = true)
+    int deleteFinishedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    long countByStatus(WebhookEventStatus status);
+}
@@ -1,15 +1,18 @@
 package com.appverse.payment_service.repository;
 
 import com.appverse.payment_service.enums.PaymentGatewayType;
+import com.appverse.payment_service.enums.PaymentTransactionStatus;
 import com.appverse.payment_service.enums.StoredPaymentMethodStatus;
 import com.appverse.payment_service.model.PaymentTransaction;
 import com.appverse.payment_service.model.StoredPaymentMethod;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +22,6 @@ public interface PaymentTransactionRepository extends JpaRepository<PaymentTrans
     List<PaymentTransaction> findByReferenceIdOrderByInitiatedAtDesc(String referenceId);
     Optional<PaymentTransaction> findByGatewayTransactionIdAndPaymentGateway(String gatewayTransactionId, PaymentGatewayType paymentGateway);
     Optional<PaymentTransaction> findByGatewayPaymentIntentIdAndPaymentGateway(String gatewayPaymentIntentId, PaymentGatewayType paymentGateway);
+    List<PaymentTransaction> findByGatewayPaymentIntentIdInAndPaymentGateway(Collection<String> gatewayPaymentIntentIds, PaymentGatewayType paymentGateway);
+    List<PaymentTransaction> findByPaymentGatewayAndStatus(PaymentGatewayType paymentGateway, PaymentTransactionStatus status, Pageable pageable);
 }
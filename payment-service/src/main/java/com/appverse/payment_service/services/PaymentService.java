@@ -21,6 +21,15 @@ public interface PaymentService {
      */
     PaymentResponse updatePaymentStatus(PaymentStatusUpdateRequest request);
 
+    /**
+     * Applies many status updates with the same rules as {@link #updatePaymentStatus}, in one transaction: the
+     * transactions are loaded with one query and saved together. Updates are applied in list order; unknown
+     * transactions are skipped.
+     *
+     * @return one outcome per request, in request order: applied, or skipped with the reason.
+     */
+    List<PaymentStatusUpdateOutcome> updatePaymentStatuses(List<PaymentStatusUpdateRequest> requests);
+
     /**
      * Retrieves a payment transaction by its internal ID.
      */
@@ -30,11 +30,16 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -49,6 +54,21 @@ public class PaymentServiceImpl implements PaymentService {
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
     private static final String PAYMENT_EVENTS_TOPIC = "payment-events";
+    // Terminal unless refunded: SUCCEEDED can still move to a refund status, the others not at all
+    private static final Set<PaymentTransactionStatus> FINAL_STATUSES = EnumSet.of(
+            PaymentTransactionStatus.SUCCEEDED, PaymentTransactionStatus.FAILED, PaymentTransactionStatus.REFUNDED);
+    private static final Set<PaymentTransactionStatus> REFUNDABLE_STATUSES = EnumSet.of(
+            PaymentTransactionStatus.SUCCEEDED, PaymentTransactionStatus.PARTIALLY_REFUNDED,
+            PaymentTransactionStatus.REFUND_REQUESTED, PaymentTransactionStatus.REFUND_PROCESSING);
+    private static final Set<PaymentTransactionStatus> REFUND_STATUSES = EnumSet.of(
+            PaymentTransactionStatus.REFUND_REQUESTED, PaymentTransactionStatus.REFUND_PROCESSING,
+            PaymentTransactionStatus.PARTIALLY_REFUNDED, PaymentTransactionStatus.REFUNDED);
+
+    // Transaction events are keyed by what was paid for (e.g. the order ID), not by transaction ID, so every event
+    // about one order (including retried payments with new transactions) lands on one partition, in order.
+    private static String transactionEventKey(PaymentTransaction transaction) {
+        return transaction.getReferenceId() != null ? transaction.getReferenceId() : transaction.getId();
+    }
 
     private <T> void logKafkaSendAttempt(CompletableFuture<SendResult<String, T>> future, String eventName, String eventKey) {
         log.debug("Submitted {} to Kafka for key {}. Awaiting async result...", eventName, eventKey);
@@ -112,7 +132,7 @@ public class PaymentServiceImpl implements PaymentService {
                 savedTransaction.getInitiatedAt()
         );
         CompletableFuture<SendResult<String, Object>> initiatedFuture = 
-            kafkaTemplate.send(PAYMENT_EVENTS_TOPIC, savedTransaction.getId(), initiatedPayload);
+            kafkaTemplate.send(PAYMENT_EVENTS_TOPIC, transactionEventKey(savedTransaction), initiatedPayload);
         logKafkaSendAttempt(initiatedFuture, "PaymentInitiatedEvent", savedTransaction.getId());
 
         String clientSecretForFrontend = null;
@@ -159,7 +179,7 @@ public class PaymentServiceImpl implements PaymentService {
                         clientSecretForFrontend, deserializeMetadata(currentTransactionState.getMetadata()), Instant.now()
                 );
                 CompletableFuture<SendResult<String, Object>> requiresActionFuture =
-                    kafkaTemplate.send(PAYMENT_EVENTS_TOPIC, currentTransactionState.getId(), requiresActionPayload);
+                    kafkaTemplate.send(PAYMENT_EVENTS_TOPIC, transactionEventKey(currentTransactionState), requiresActionPayload);
                 logKafkaSendAttempt(requiresActionFuture, "PaymentRequiresActionEvent", currentTransactionState.getId());
             } else if (currentTransactionState.getStatus() == PaymentTransactionStatus.SUCCEEDED) {
                 // If mocked success happened directly in this method
@@ -193,20 +213,73 @@ public class PaymentServiceImpl implements PaymentService {
         PaymentTransaction transaction = paymentTransactionRepository.findById(request.paymentTransactionId())
                 .orElseThrow(() -> new ResourceNotFoundException("PaymentTransaction not found with ID: " + request.paymentTransactionId()));
 
+        if (!applyStatusUpdate(transaction, request).applied()) {
+            return paymentMapper.toPaymentResponse(transaction);
+        }
+        PaymentTransaction updatedTransaction = paymentTransactionRepository.save(transaction);
+        log.info("PaymentTransaction {} status updated to {}.", updatedTransaction.getId(), updatedTransaction.getStatus());
+        publishStatusEvent(updatedTransaction, updatedTransaction.getStatus(), request);
+
+        return paymentMapper.toPaymentResponse(updatedTransaction);
+    }
+
+    @Override
+    @Transactional
+    public List<PaymentStatusUpdateOutcome> updatePaymentStatuses(List<PaymentStatusUpdateRequest> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        Set<String> ids = requests.stream().map(PaymentStatusUpdateRequest::paymentTransactionId).collect(Collectors.toSet());
+        Map<String, PaymentTransaction> transactionsById = paymentTransactionRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(PaymentTransaction::getId, Function.identity()));
+
+        // Applied in list order, so several updates for one transaction behave as if sent one after another
+        Map<String, PaymentTransaction> changed = new LinkedHashMap<>(); // By ID: @Data hashCode changes as the entity does
+        List<PaymentStatusUpdateRequest> applied = new ArrayList<>();
+        List<PaymentStatusUpdateOutcome> outcomes = new ArrayList<>(requests.size());
+        for (PaymentStatusUpdateRequest request : requests) {
+            PaymentTransaction transaction = transactionsById.get(request.paymentTransactionId());
+            if (transaction == null) {
+                log.warn("PaymentTransaction {} not found. Skipping status update to {}.", request.paymentTransactionId(), request.newStatus());
+                outcomes.add(PaymentStatusUpdateOutcome.rejected("PaymentTransaction " + request.paymentTransactionId() + " not found"));
+                continue;
+            }
+            PaymentStatusUpdateOutcome outcome = applyStatusUpdate(transaction, request);
+            if (outcome.applied()) {
+                changed.put(transaction.getId(), transaction);
+                applied.add(request);
+            }
+            outcomes.add(outcome);
+        }
+        paymentTransactionRepository.saveAll(changed.values());
+        paymentTransactionRepository.flush();
+        // One event per applied update, by the status that update set (a transaction may have moved more than once)
+        for (PaymentStatusUpdateRequest request : applied) {
+            publishStatusEvent(transactionsById.get(request.paymentTransactionId()), request.newStatus(), request);
+        }
+        log.info("Applied {} of {} payment status updates.", applied.size(), requests.size());
+        return outcomes;
+    }
+
+    /**
+     * Applies one status update to a loaded transaction.
+     *
+     * @return not applied, with the reason, if the transaction is already in that status or cannot move to it: a
+     * final state only moves on to a refund status, and only a paid (or partly refunded) transaction is refunded.
+     */
+    private PaymentStatusUpdateOutcome applyStatusUpdate(PaymentTransaction transaction, PaymentStatusUpdateRequest request) {
         // Idempotency: if status is already the target status, or if it's a final success/fail state.
         if (transaction.getStatus() == request.newStatus()) {
             log.warn("PaymentTransaction {} already in status {}. No update performed.", transaction.getId(), request.newStatus());
-            return paymentMapper.toPaymentResponse(transaction);
+            return PaymentStatusUpdateOutcome.rejected("Already " + request.newStatus());
         }
-        if (List.of(PaymentTransactionStatus.SUCCEEDED, PaymentTransactionStatus.FAILED, PaymentTransactionStatus.REFUNDED).contains(transaction.getStatus()) &&
-            transaction.getStatus() != PaymentTransactionStatus.REFUND_REQUESTED && /* allow moving from REFUND_REQUESTED */
-            transaction.getStatus() != PaymentTransactionStatus.REFUND_PROCESSING) {
+        boolean refund = REFUNDABLE_STATUSES.contains(transaction.getStatus()) && REFUND_STATUSES.contains(request.newStatus());
+        if (!refund && FINAL_STATUSES.contains(transaction.getStatus())) {
             log.warn("PaymentTransaction {} is in a final state {} and cannot be updated to {}. No update performed.",
                      transaction.getId(), transaction.getStatus(), request.newStatus());
-            return paymentMapper.toPaymentResponse(transaction);
+            return PaymentStatusUpdateOutcome.rejected(transaction.getStatus() + " cannot move to " + request.newStatus());
         }
 
-
         transaction.setStatus(request.newStatus());
         if (request.actualGatewayTransactionId() != null) {
             transaction.setGatewayTransactionId(request.actualGatewayTransactionId());
@@ -239,17 +312,16 @@ public class PaymentServiceImpl implements PaymentService {
             }
         }
 
-        PaymentTransaction updatedTransaction = paymentTransactionRepository.save(transaction);
-        log.info("PaymentTransaction {} status updated to {}.", updatedTransaction.getId(), updatedTransaction.getStatus());
+        return PaymentStatusUpdateOutcome.APPLIED;
+    }
 
-        if (updatedTransaction.getStatus() == PaymentTransactionStatus.SUCCEEDED) {
-            publishPaymentSucceededEventHelper(updatedTransaction);
-        } else if (updatedTransaction.getStatus() == PaymentTransactionStatus.FAILED) {
-            publishPaymentFailedEventHelper(updatedTransaction, request.errorMessage() != null ? request.errorMessage() : "Payment failed via status update.");
+    private void publishStatusEvent(PaymentTransaction transaction, PaymentTransactionStatus appliedStatus, PaymentStatusUpdateRequest request) {
+        if (appliedStatus == PaymentTransactionStatus.SUCCEEDED) {
+            publishPaymentSucceededEventHelper(transaction);
+        } else if (appliedStatus == PaymentTransactionStatus.FAILED) {
+            publishPaymentFailedEventHelper(transaction, request.errorMessage() != null ? request.errorMessage() : "Payment failed via status update.");
         }
         // Add other event publications for other statuses if needed
-
-        return paymentMapper.toPaymentResponse(updatedTransaction);
     }
 
     private void publishPaymentSucceededEventHelper(PaymentTransaction transaction) {
@@ -262,7 +334,7 @@ public class PaymentServiceImpl implements PaymentService {
                 transaction.getProcessedAt() != null ? transaction.getProcessedAt() : Instant.now() // Ensure processedAt is set
         );
         CompletableFuture<SendResult<String, Object>> future = 
-            kafkaTemplate.send(PAYMENT_EVENTS_TOPIC, transaction.getId(), payload);
+            kafkaTemplate.send(PAYMENT_EVENTS_TOPIC, transactionEventKey(transaction), payload);
         logKafkaSendAttempt(future, "PaymentSucceededEvent", transaction.getId());
     }
 
@@ -276,7 +348,7 @@ public class PaymentServiceImpl implements PaymentService {
                 transaction.getProcessedAt() != null ? transaction.getProcessedAt() : Instant.now() // Time of failure processing
         );
         CompletableFuture<SendResult<String, Object>> future = 
-            kafkaTemplate.send(PAYMENT_EVENTS_TOPIC, transaction.getId(), payload);
+            kafkaTemplate.send(PAYMENT_EVENTS_TOPIC, transactionEventKey(transaction), payload);
         logKafkaSendAttempt(future, "PaymentFailedEvent", transaction.getId());
     }
 
@@ -0,0 +1,34 @@
+// === In Payment Service Project ===
+package com.appverse.payment_service.webhook;
+
+import com.appverse.payment_service.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The parts of a gateway event needed to store and order it (Stripe event shape: {@code id}, {@code type},
+ * {@code data.object}). {@code transactionRef} is the gateway payment the event is about: the PaymentIntent itself,
+ * or the PaymentIntent of a charge or refund.
+ */
+record GatewayWebhookEnvelope(String gatewayEventId, String eventType, String transactionRef, JsonNode object) {
+
+    static GatewayWebhookEnvelope parse(ObjectMapper objectMapper, String payload) {
+        JsonNode event;
+        try {
+            event = objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Webhook payload is not valid JSON.");
+        }
+        String id = event.path("id").asText(null);
+        String type = event.path("type").asText(null);
+        if (id == null || id.isBlank() || type == null || type.isBlank()) {
+            throw new BadRequestException("Webhook payload has no event id or type.");
+        }
+        JsonNode object = event.path("data").path("object");
+        String transactionRef = "payment_intent".equals(object.path("object").asText(null))
+                ? object.path("id").asText(null)
+                : object.path("payment_intent").asText(object.path("id").asText(null));
+        return new GatewayWebhookEnvelope(id, type, transactionRef, object);
+    }
+}
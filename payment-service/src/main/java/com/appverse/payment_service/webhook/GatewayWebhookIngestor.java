@@ -0,0 +1,104 @@
+// === In Payment Service Project ===
+package com.appverse.payment_service.webhook;
+
+import com.appverse.payment_service.enums.PaymentGatewayType;
+import com.appverse.payment_service.exception.BadRequestException;
+import com.appverse.payment_service.repository.GatewayWebhookEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Receiving half of the webhook pipeline: verifies the signature and stores the raw event with one INSERT, so the
+ * gateway is acknowledged in milliseconds even during a burst. Redeliveries of an event already stored are dropped by
+ * the (gateway, event id) unique key. GatewayWebhookProcessor applies the stored events asynchronously.
+ */
+@Component
+@Slf4j
+public class GatewayWebhookIngestor {
+
+    private final GatewayWebhookEventRepository webhookEventRepository;
+    private final WebhookSignatureVerifier signatureVerifier;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${appverse.payment.webhook.max-payload-bytes:262144}")
+    private int maxPayloadBytes;
+
+    public GatewayWebhookIngestor(GatewayWebhookEventRepository webhookEventRepository,
+                                  WebhookSignatureVerifier signatureVerifier,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.signatureVerifier = signatureVerifier;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param gatewayName The {gateway} path segment, e.g. "stripe".
+     * @return true if the event was stored, false if it had been received before.
+     * @throws BadRequestException for an unknown gateway, an oversized or malformed payload, or a bad signature.
+     */
+    @Transactional
+    public boolean ingest(String gatewayName, String payload, HttpHeaders headers) {
+        PaymentGatewayType gateway = parseGateway(gatewayName);
+        GatewayWebhookEnvelope envelope;
+        try {
+            if (payload == null || payload.getBytes(StandardCharsets.UTF_8).length > maxPayloadBytes) {
+                throw new BadRequestException("Webhook payload is empty or larger than " + maxPayloadBytes + " bytes.");
+            }
+            signatureVerifier.verify(gateway, payload, headers);
+            envelope = GatewayWebhookEnvelope.parse(objectMapper, payload);
+        } catch (BadRequestException e) {
+            counter(gateway, "rejected").increment();
+            log.warn("Rejected {} webhook: {}", gateway, e.getMessage());
+            throw e;
+        }
+
+        boolean stored = webhookEventRepository.insertIfAbsent(gateway.name(), envelope.gatewayEventId(),
+                envelope.eventType(), envelope.transactionRef(), payload, Instant.now()) == 1;
+        counter(gateway, stored ? "stored" : "duplicate").increment();
+        log.debug("{} webhook {} ({}) for {}: {}.", gateway, envelope.gatewayEventId(), envelope.eventType(),
+                envelope.transactionRef(), stored ? "stored" : "duplicate, dropped");
+        return stored;
+    }
+
+    /**
+     * Puts the events GatewayWebhookProcessor gave up on back in the queue, with a fresh set of attempts. Later events
+     * of the same payments, held back behind them, follow once they are processed.
+     *
+     * @return the number of events requeued.
+     */
+    @Transactional
+    public int requeueFailed() {
+        int requeued = webhookEventRepository.requeueFailed();
+        log.info("Requeued {} failed webhook events.", requeued);
+        return requeued;
+    }
+
+    private static PaymentGatewayType parseGateway(String gatewayName) {
+        try {
+            return PaymentGatewayType.valueOf(gatewayName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown payment gateway: " + gatewayName);
+        }
+    }
+
+    private Counter counter(PaymentGatewayType gateway, String result) {
+        return Counter.builder("payment.webhooks.received")
+                .description("Gateway webhooks received, by outcome (stored, duplicate, rejected)")
+                .tag("gateway", gateway.name()).tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,350 @@
+// === In Payment Service Project ===
+package com.appverse.payment_service.webhook;
+
+import com.appverse.payment_service.dto.PaymentStatusUpdateOutcome;
+import com.appverse.payment_service.dto.PaymentStatusUpdateRequest;
+import com.appverse.payment_service.enums.PaymentGatewayType;
+import com.appverse.payment_service.enums.PaymentTransactionStatus;
+import com.appverse.payment_service.enums.WebhookEventStatus;
+import com.appverse.payment_service.model.GatewayWebhookEvent;
+import com.appverse.payment_service.model.PaymentTransaction;
+import com.appverse.payment_service.repository.GatewayWebhookEventRepository;
+import com.appverse.payment_service.repository.PaymentTransactionRepository;
+import com.appverse.payment_service.services.PaymentService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Applying half of the webhook pipeline: turns stored gateway events into payment status updates.
+ * <p>
+ * Each pass claims a batch of received events, oldest first, with SELECT ... FOR UPDATE SKIP LOCKED, so several
+ * instances can share the work. The whole batch goes through one {@link PaymentService#updatePaymentStatuses} call and
+ * the events are marked in the same transaction, so an event is applied exactly once. An event is PROCESSED only if
+ * its update changed the payment; one the payment cannot take (e.g. already in that status) is IGNORED with the reason.
+ * <p>
+ * Events for one gateway payment are applied in arrival order: a payment whose earlier event is still pending
+ * elsewhere (claimed by another instance, backing off, or FAILED) is skipped until that event is done. If a batch
+ * fails it is retried one event at a time to find the failing event, which is retried with exponential backoff
+ * (retry-backoff doubling up to max-backoff) and marked FAILED after max-attempts. FAILED events are counted by the
+ * payment.webhooks.failed gauge and keep the later events of their payment waiting until they are requeued
+ * (POST /api/v1/payments/webhook/failed/requeue).
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "appverse.payment.webhook.processor.enabled", havingValue = "true", matchIfMissing = true)
+public class GatewayWebhookProcessor {
+
+    private final GatewayWebhookEventRepository webhookEventRepository;
+    private final PaymentTransactionRepository paymentTransactionRepository;
+    private final PaymentService paymentService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter processedCounter;
+    private final Counter ignoredCounter;
+    private final Counter failedCounter;
+
+    @Value("${appverse.payment.webhook.processor.batch-size:200}")
+    private int batchSize;
+
+    @Value("${appverse.payment.webhook.processor.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Value("${appverse.payment.webhook.processor.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${appverse.payment.webhook.processor.retry-backoff:PT1S}")
+    private Duration retryBackoff;
+
+    @Value("${appverse.payment.webhook.processor.max-backoff:PT10M}")
+    private Duration maxBackoff;
+
+    @Value("${appverse.payment.webhook.retention:P7D}")
+    private Duration retention;
+
+    public GatewayWebhookProcessor(GatewayWebhookEventRepository webhookEventRepository,
+                                   PaymentTransactionRepository paymentTransactionRepository,
+                                   PaymentService paymentService,
+                                   TransactionTemplate transactionTemplate,
+                                   ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.paymentTransactionRepository = paymentTransactionRepository;
+        this.paymentService = paymentService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.processedCounter = processedCounter(meterRegistry, "processed");
+        this.ignoredCounter = processedCounter(meterRegistry, "ignored");
+        this.failedCounter = processedCounter(meterRegistry, "failed");
+        Gauge.builder("payment.webhooks.pending", webhookEventRepository,
+                        repository -> repository.countByStatus(WebhookEventStatus.RECEIVED))
+                .description("Stored gateway webhooks not yet processed")
+                .register(meterRegistry);
+        Gauge.builder("payment.webhooks.failed", webhookEventRepository,
+                        repository -> repository.countByStatus(WebhookEventStatus.FAILED))
+                .description("Stored gateway webhooks given up on after max-attempts, waiting to be requeued")
+                .register(meterRegistry);
+    }
+
+    private static Counter processedCounter(MeterRegistry registry, String result) {
+        return Counter.builder("payment.webhooks.processed")
+                .description("Stored gateway webhooks processed, by outcome (processed, ignored, failed)")
+                .tag("result", result).register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${appverse.payment.webhook.processor.fixed-delay-ms:200}")
+    public void process() {
+        for (int batches = 0; batches < maxBatchesPerRun; batches++) {
+            Integer done;
+            try {
+                done = transactionTemplate.execute(status -> processBatch(batchSize, new Long[1]));
+            } catch (RuntimeException e) {
+                log.warn("Webhook batch failed ({}); retrying its events one at a time.", e.getMessage());
+                isolateFailure();
+                return;
+            }
+            if (done == null || done < batchSize) {
+                return; // Drained, or the rest is waiting on earlier events
+            }
+        }
+    }
+
+    @Scheduled(cron = "${appverse.payment.webhook.cleanup-cron:0 15 * * * *}")
+    public void deleteFinishedEvents() {
+        Instant cutoff = Instant.now().minus(retention);
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> webhookEventRepository.deleteFinishedBefore(cutoff, 1000));
+            if (deleted > 0) {
+                log.debug("Deleted {} processed webhook events received before {}.", deleted, cutoff);
+            }
+        } while (deleted == 1000);
+    }
+
+    // One event per transaction until the failing one is found; it gets an attempt recorded and the run ends
+    private void isolateFailure() {
+        for (int i = 0; i < batchSize; i++) {
+            Long[] claimedId = new Long[1];
+            try {
+                Integer done = transactionTemplate.execute(status -> processBatch(1, claimedId));
+                if (claimedId[0] == null || done == null || done == 0) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                if (claimedId[0] != null) {
+                    recordFailure(claimedId[0], e);
+                }
+                return;
+            }
+        }
+    }
+
+    private void recordFailure(Long eventId, RuntimeException error) {
+        transactionTemplate.executeWithoutResult(status -> webhookEventRepository.findById(eventId).ifPresent(event -> {
+            event.setAttempts(event.getAttempts() + 1);
+            event.setLastError(truncate(error.getMessage()));
+            if (event.getAttempts() >= maxAttempts) {
+                event.setStatus(WebhookEventStatus.FAILED);
+                event.setNextAttemptAt(null);
+                event.setProcessedAt(Instant.now());
+                failedCounter.increment();
+                log.error("Giving up on {} webhook {} after {} attempts: {}", event.getPaymentGateway(),
+                        event.getGatewayEventId(), event.getAttempts(), error.getMessage(), error);
+            } else {
+                Duration backoff = backoff(event.getAttempts());
+                event.setNextAttemptAt(Instant.now().plus(backoff));
+                log.warn("{} webhook {} failed (attempt {} of {}), retrying in {}: {}", event.getPaymentGateway(),
+                        event.getGatewayEventId(), event.getAttempts(), maxAttempts, backoff, error.getMessage());
+            }
+        }));
+    }
+
+    // retry-backoff, doubled per further attempt, capped at max-backoff
+    private Duration backoff(int attempts) {
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    /**
+     * Claims up to {@code limit} events and applies those whose payment has no earlier pending event.
+     *
+     * @param firstClaimedId Receives the id of the oldest claimed event (for failure isolation).
+     * @return the number of events completed (processed or ignored).
+     */
+    private int processBatch(int limit, Long[] firstClaimedId) {
+        Instant now = Instant.now();
+        List<GatewayWebhookEvent> claimed = webhookEventRepository.claimReceived(limit, now);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        firstClaimedId[0] = claimed.get(0).getId();
+        List<GatewayWebhookEvent> ready = withoutEarlierPending(claimed);
+
+        Map<Long, GatewayWebhookEnvelope> envelopes = new HashMap<>();
+        for (GatewayWebhookEvent event : ready) {
+            envelopes.put(event.getId(), GatewayWebhookEnvelope.parse(objectMapper, event.getPayload()));
+        }
+        Map<String, String> transactionIds = resolveTransactionIds(ready, envelopes);
+
+        List<PaymentStatusUpdateRequest> updates = new ArrayList<>();
+        List<GatewayWebhookEvent> updateEvents = new ArrayList<>(); // updates.get(i) comes from updateEvents.get(i)
+        for (GatewayWebhookEvent event : ready) {
+            GatewayWebhookEnvelope envelope = envelopes.get(event.getId());
+            PaymentTransactionStatus newStatus = statusFor(envelope);
+            String transactionId = transactionIds.get(key(event.getPaymentGateway(), event.getTransactionRef()));
+            event.setAttempts(event.getAttempts() + 1);
+            event.setNextAttemptAt(null);
+            event.setProcessedAt(now);
+            if (newStatus == null || transactionId == null) {
+                markIgnored(event, newStatus == null ? "Event type not handled" : "No payment transaction for " + event.getTransactionRef());
+                continue;
+            }
+            updates.add(toStatusUpdate(envelope, transactionId, newStatus));
+            updateEvents.add(event);
+        }
+        // Same transaction: events are marked only if this commits
+        List<PaymentStatusUpdateOutcome> outcomes = paymentService.updatePaymentStatuses(updates);
+        for (int i = 0; i < updateEvents.size(); i++) {
+            GatewayWebhookEvent event = updateEvents.get(i);
+            PaymentStatusUpdateOutcome outcome = outcomes.get(i);
+            if (outcome.applied()) {
+                event.setStatus(WebhookEventStatus.PROCESSED);
+                processedCounter.increment();
+            } else {
+                markIgnored(event, outcome.reason());
+            }
+        }
+        if (ready.size() < claimed.size()) {
+            log.debug("Deferred {} webhook events behind earlier events of the same payment.", claimed.size() - ready.size());
+        }
+        return ready.size();
+    }
+
+    private void markIgnored(GatewayWebhookEvent event, String reason) {
+        event.setStatus(WebhookEventStatus.IGNORED);
+        event.setLastError(truncate(reason));
+        ignoredCounter.increment();
+    }
+
+    // Drops events of any payment that has an older unfinished event than the ones claimed here
+    private List<GatewayWebhookEvent> withoutEarlierPending(List<GatewayWebhookEvent> claimed) {
+        Map<String, Long> firstClaimedByRef = new HashMap<>();
+        for (GatewayWebhookEvent event : claimed) {
+            if (event.getTransactionRef() != null) {
+                firstClaimedByRef.putIfAbsent(event.getTransactionRef(), event.getId()); // Claimed in id order
+            }
+        }
+        if (firstClaimedByRef.isEmpty()) {
+            return claimed;
+        }
+        Set<String> waiting = new HashSet<>();
+        for (GatewayWebhookEventRepository.EarliestPendingView earliest : webhookEventRepository.findEarliestPending(firstClaimedByRef.keySet())) {
+            if (earliest.getEarliestId() < firstClaimedByRef.get(earliest.getTransactionRef())) {
+                waiting.add(earliest.getTransactionRef());
+            }
+        }
+        if (waiting.isEmpty()) {
+            return claimed;
+        }
+        return claimed.stream().filter(event -> !waiting.contains(event.getTransactionRef())).toList();
+    }
+
+    /**
+     * Maps (gateway, transactionRef) to the internal payment transaction ID: from the payment's metadata when the
+     * gateway echoes it, otherwise by PaymentIntent ID. One query per gateway plus one for the echoed IDs.
+     */
+    private Map<String, String> resolveTransactionIds(List<GatewayWebhookEvent> events, Map<Long, GatewayWebhookEnvelope> envelopes) {
+        Map<String, String> resolved = new HashMap<>();
+        Map<String, String> echoedIdsByKey = new HashMap<>();
+        Map<PaymentGatewayType, Set<String>> refsByGateway = new HashMap<>();
+        for (GatewayWebhookEvent event : events) {
+            if (event.getTransactionRef() == null) {
+                continue;
+            }
+            String echoedId = envelopes.get(event.getId()).object().path("metadata").path("paymentTransactionId").asText(null);
+            if (echoedId != null) {
+                echoedIdsByKey.put(key(event.getPaymentGateway(), event.getTransactionRef()), echoedId);
+            } else {
+                refsByGateway.computeIfAbsent(event.getPaymentGateway(), gateway -> new HashSet<>()).add(event.getTransactionRef());
+            }
+        }
+        if (!echoedIdsByKey.isEmpty()) {
+            Set<String> existing = paymentTransactionRepository.findAllById(echoedIdsByKey.values()).stream()
+                    .map(PaymentTransaction::getId).collect(Collectors.toSet());
+            echoedIdsByKey.forEach((key, id) -> {
+                if (existing.contains(id)) {
+                    resolved.put(key, id);
+                }
+            });
+        }
+        refsByGateway.forEach((gateway, refs) -> lookUpByIntent(gateway, refs).forEach(transaction ->
+                resolved.put(key(gateway, transaction.getGatewayPaymentIntentId()), transaction.getId())));
+        return resolved;
+    }
+
+    private Collection<PaymentTransaction> lookUpByIntent(PaymentGatewayType gateway, Set<String> refs) {
+        return paymentTransactionRepository.findByGatewayPaymentIntentIdInAndPaymentGateway(refs, gateway);
+    }
+
+    /**
+     * The payment status a Stripe-style event moves the payment to, or null for event types that are not acted on.
+     */
+    static PaymentTransactionStatus statusFor(GatewayWebhookEnvelope envelope) {
+        return switch (envelope.eventType()) {
+            case "payment_intent.succeeded" -> PaymentTransactionStatus.SUCCEEDED;
+            case "payment_intent.payment_failed" -> PaymentTransactionStatus.FAILED;
+            case "payment_intent.processing" -> PaymentTransactionStatus.PROCESSING;
+            case "payment_intent.requires_action" -> PaymentTransactionStatus.REQUIRES_ACTION;
+            case "payment_intent.canceled" -> PaymentTransactionStatus.CANCELLED;
+            case "charge.refunded" -> envelope.object().path("refunded").asBoolean(false)
+                    ? PaymentTransactionStatus.REFUNDED : PaymentTransactionStatus.PARTIALLY_REFUNDED;
+            default -> null;
+        };
+    }
+
+    private static PaymentStatusUpdateRequest toStatusUpdate(GatewayWebhookEnvelope envelope, String transactionId,
+                                                             PaymentTransactionStatus newStatus) {
+        JsonNode object = envelope.object();
+        JsonNode error = object.path("last_payment_error");
+        return new PaymentStatusUpdateRequest(
+                transactionId,
+                newStatus,
+                object.path("latest_charge").asText(null),
+                null,
+                null,
+                error.path("code").asText(null),
+                error.path("message").asText(null),
+                Map.of("eventId", envelope.gatewayEventId(), "type", envelope.eventType()));
+    }
+
+    private static String key(PaymentGatewayType gateway, String transactionRef) {
+        return gateway.name() + ':' + transactionRef;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
@@ -0,0 +1,165 @@
+// === In Payment Service Project ===
+package com.appverse.payment_service.webhook;
+
+import com.appverse.payment_service.enums.PaymentGatewayType;
+import com.appverse.payment_service.enums.PaymentTransactionStatus;
+import com.appverse.payment_service.model.PaymentTransaction;
+import com.appverse.payment_service.repository.PaymentTransactionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for Stripe, for load-testing the webhook pipeline (enable with
+ * appverse.payment.webhook.simulator.enabled=true; never in production).
+ * <p>
+ * For each STRIPE transaction waiting on the gateway it builds the events Stripe would send (processing, then succeeded
+ * or failed), signs them with the configured Stripe secret and posts them to the webhook endpoint from a thread pool,
+ * redelivering each event a few times the way Stripe retries. Events for one payment are sent in order, as Stripe
+ * mostly does; all payments are sent concurrently.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "appverse.payment.webhook.simulator.enabled", havingValue = "true")
+public class SimulatedGateway {
+
+    public record RunResult(int payments, int sent, int accepted, int rejected, long durationMs) {}
+
+    private final PaymentTransactionRepository paymentTransactionRepository;
+    private final WebhookSignatureVerifier signatureVerifier;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Value("${appverse.payment.webhook.simulator.target-url:http://localhost:${server.port:8080}/api/v1/payments/webhook/stripe}")
+    private String targetUrl;
+
+    @Value("${appverse.payment.webhook.simulator.concurrency:32}")
+    private int concurrency;
+
+    public SimulatedGateway(PaymentTransactionRepository paymentTransactionRepository,
+                            WebhookSignatureVerifier signatureVerifier,
+                            ObjectMapper objectMapper) {
+        this.paymentTransactionRepository = paymentTransactionRepository;
+        this.signatureVerifier = signatureVerifier;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param maxPayments  How many pending STRIPE transactions to settle.
+     * @param deliveries   How many times each event is delivered (1 = no duplicates).
+     * @param failureRate  Share of payments, 0..1, that end in payment_failed instead of succeeded.
+     */
+    public RunResult run(int maxPayments, int deliveries, double failureRate) throws InterruptedException {
+        List<PaymentTransaction> pending = paymentTransactionRepository.findByPaymentGatewayAndStatus(
+                PaymentGatewayType.STRIPE, PaymentTransactionStatus.PENDING_GATEWAY_ACTION,
+                PageRequest.of(0, maxPayments, Sort.by("initiatedAt")));
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        long startedAt = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> futures = new ArrayList<>(pending.size());
+            for (PaymentTransaction transaction : pending) {
+                boolean fails = ThreadLocalRandom.current().nextDouble() < failureRate;
+                List<String> events = List.of(
+                        event(transaction, "payment_intent.processing", false),
+                        event(transaction, fails ? "payment_intent.payment_failed" : "payment_intent.succeeded", fails));
+                futures.add(executor.submit(() -> {
+                    for (String payload : events) {
+                        for (int i = 0; i < deliveries; i++) {
+                            sent.incrementAndGet();
+                            (deliver(payload) ? accepted : rejected).incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.warn("Simulated delivery failed: {}", e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long durationMs = Duration.ofNanos(System.nanoTime() - startedAt).toMillis();
+        log.info("Simulated gateway sent {} webhooks for {} payments in {} ms ({} accepted, {} rejected).",
+                sent.get(), pending.size(), durationMs, accepted.get(), rejected.get());
+        return new RunResult(pending.size(), sent.get(), accepted.get(), rejected.get(), durationMs);
+    }
+
+    private boolean deliver(String payload) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(targetUrl))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .header(WebhookSignatureVerifier.STRIPE_SIGNATURE_HEADER,
+                        signatureVerifier.sign(PaymentGatewayType.STRIPE, payload, Instant.now().getEpochSecond()))
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2;
+        } catch (IOException e) {
+            log.debug("Simulated webhook delivery to {} failed: {}", targetUrl, e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private String event(PaymentTransaction transaction, String type, boolean failed) {
+        Map<String, Object> object = new LinkedHashMap<>();
+        String intentId = transaction.getGatewayPaymentIntentId();
+        object.put("id", intentId != null ? intentId : "pi_sim_" + transaction.getId()); // Resolved through the metadata
+        object.put("object", "payment_intent");
+        object.put("amount", transaction.getAmount().movePointRight(2).longValue());
+        object.put("currency", transaction.getCurrency().toLowerCase(Locale.ROOT));
+        object.put("metadata", Map.of("paymentTransactionId", transaction.getId()));
+        if ("payment_intent.succeeded".equals(type)) {
+            object.put("latest_charge", "ch_sim_" + UUID.randomUUID().toString().replace("-", ""));
+        }
+        if (failed) {
+            object.put("last_payment_error", Map.of("code", "card_declined", "message", "Your card was declined."));
+        }
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("id", "evt_sim_" + UUID.randomUUID().toString().replace("-", ""));
+        event.put("object", "event");
+        event.put("type", type);
+        event.put("created", Instant.now().getEpochSecond());
+        event.put("data", Map.of("object", object));
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize simulated event.", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+// === In Payment Service Project ===
+package com.appverse.payment_service.webhook;
+
+import com.appverse.payment_service.enums.PaymentGatewayType;
+import com.appverse.payment_service.exception.BadRequestException;
+import com.appverse.payment_service.exception.PaymentProcessingException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Verifies webhook signatures in the Stripe scheme: the signature header carries {@code t=<unix seconds>} and one or
+ * more {@code v1=<hex HMAC-SHA256 of "t.payload">} entries (several during secret rotation). The timestamp must be
+ * within the tolerance, which bounds replays of a captured request.
+ * <p>
+ * The secret of each gateway comes from {@code appverse.payment.webhook.secrets.<gateway>}, e.g.
+ * {@code appverse.payment.webhook.secrets.stripe}. A gateway without a secret is a configuration error: its webhooks
+ * get a 500, so the gateway keeps retrying them until the secret is set. The header is
+ * Stripe-Signature for Stripe and Webhook-Signature for the other gateways (e.g. the simulated gateway).
+ */
+@Component
+public class WebhookSignatureVerifier {
+
+    public static final String STRIPE_SIGNATURE_HEADER = "Stripe-Signature";
+    public static final String DEFAULT_SIGNATURE_HEADER = "Webhook-Signature";
+
+    private final Environment environment;
+    private final Duration tolerance;
+
+    public WebhookSignatureVerifier(Environment environment,
+                                    @Value("${appverse.payment.webhook.signature-tolerance:PT5M}") Duration tolerance) {
+        this.environment = environment;
+        this.tolerance = tolerance;
+    }
+
+    public static String signatureHeader(PaymentGatewayType gateway) {
+        return gateway == PaymentGatewayType.STRIPE ? STRIPE_SIGNATURE_HEADER : DEFAULT_SIGNATURE_HEADER;
+    }
+
+    /**
+     * @throws BadRequestException if the signature is missing, malformed, stale or does not match.
+     * @throws PaymentProcessingException if no secret is configured for the gateway.
+     */
+    public void verify(PaymentGatewayType gateway, String payload, HttpHeaders headers) {
+        String secret = secretFor(gateway);
+        String header = headers.getFirst(signatureHeader(gateway));
+        if (header == null || header.isBlank()) {
+            throw new BadRequestException("Missing " + signatureHeader(gateway) + " header.");
+        }
+        Long timestamp = null;
+        for (String part : header.split(",")) {
+            String[] keyValue = part.trim().split("=", 2);
+            if (keyValue.length == 2 && keyValue[0].equals("t")) {
+                try {
+                    timestamp = Long.parseLong(keyValue[1]);
+                } catch (NumberFormatException e) {
+                    throw new BadRequestException("Malformed webhook signature timestamp.");
+                }
+            }
+        }
+        if (timestamp == null) {
+            throw new BadRequestException("Webhook signature has no timestamp.");
+        }
+        Duration age = Duration.between(Instant.ofEpochSecond(timestamp), Instant.now()).abs();
+        if (age.compareTo(tolerance) > 0) {
+            throw new BadRequestException("Webhook signature timestamp is outside the tolerance.");
+        }
+
+        byte[] expected = hmac(secret, timestamp + "." + payload);
+        for (String part : header.split(",")) {
+            String[] keyValue = part.trim().split("=", 2);
+            if (keyValue.length == 2 && keyValue[0].equals("v1") && matches(expected, keyValue[1])) {
+                return;
+            }
+        }
+        throw new BadRequestException("Webhook signature does not match.");
+    }
+
+    /**
+     * Signature header value for {@code payload} at {@code timestamp}, as the gateway would send it.
+     */
+    public String sign(PaymentGatewayType gateway, String payload, long timestamp) {
+        return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(hmac(secretFor(gateway), timestamp + "." + payload));
+    }
+
+    private String secretFor(PaymentGatewayType gateway) {
+        String secret = environment.getProperty("appverse.payment.webhook.secrets." + gateway.name().toLowerCase(Locale.ROOT));
+        if (secret == null || secret.isBlank()) {
+            throw new PaymentProcessingException("Webhooks are not configured for gateway " + gateway + ".");
+        }
+        return secret;
+    }
+
+    private static boolean matches(byte[] expected, String hexSignature) {
+        byte[] actual;
+        try {
+            actual = HexFormat.of().parseHex(hexSignature);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected, actual); // Constant time
+    }
+
+    private static byte[] hmac(String secret, String signedPayload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(signedPayload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available.", e);
+        }
+    }
+}
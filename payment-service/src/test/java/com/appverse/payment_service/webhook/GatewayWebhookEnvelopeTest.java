@@ -0,0 +1,45 @@
+package com.appverse.payment_service.webhook;
+
+import com.appverse.payment_service.exception.BadRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GatewayWebhookEnvelopeTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void paymentIntentEventRefersToTheIntent() {
+        GatewayWebhookEnvelope envelope = GatewayWebhookEnvelope.parse(objectMapper, """
+                {"id": "evt_1", "type": "payment_intent.succeeded",
+                 "data": {"object": {"object": "payment_intent", "id": "pi_1", "latest_charge": "ch_1"}}}
+                """);
+
+        assertEquals("evt_1", envelope.gatewayEventId());
+        assertEquals("payment_intent.succeeded", envelope.eventType());
+        assertEquals("pi_1", envelope.transactionRef());
+        assertEquals("ch_1", envelope.object().path("latest_charge").asText());
+    }
+
+    @Test
+    void chargeEventRefersToItsPaymentIntent() {
+        GatewayWebhookEnvelope envelope = GatewayWebhookEnvelope.parse(objectMapper, """
+                {"id": "evt_2", "type": "charge.refunded",
+                 "data": {"object": {"object": "charge", "id": "ch_1", "payment_intent": "pi_1", "refunded": true}}}
+                """);
+
+        assertEquals("pi_1", envelope.transactionRef());
+    }
+
+    @Test
+    void rejectsInvalidJson() {
+        assertThrows(BadRequestException.class, () -> GatewayWebhookEnvelope.parse(objectMapper, "{not json"));
+    }
+
+    @Test
+    void rejectsEventWithoutType() {
+        assertThrows(BadRequestException.class, () -> GatewayWebhookEnvelope.parse(objectMapper, "{\"id\": \"evt_3\"}"));
+    }
+}
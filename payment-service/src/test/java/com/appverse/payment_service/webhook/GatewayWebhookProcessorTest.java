@@ -0,0 +1,40 @@
+package com.appverse.payment_service.webhook;
+
+import com.appverse.payment_service.enums.PaymentTransactionStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GatewayWebhookProcessorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void mapsPaymentIntentEvents() {
+        assertEquals(PaymentTransactionStatus.SUCCEEDED, statusFor("payment_intent.succeeded", "{\"object\": \"payment_intent\", \"id\": \"pi_1\"}"));
+        assertEquals(PaymentTransactionStatus.FAILED, statusFor("payment_intent.payment_failed", "{\"object\": \"payment_intent\", \"id\": \"pi_1\"}"));
+    }
+
+    @Test
+    void fullRefundMapsToRefunded() {
+        assertEquals(PaymentTransactionStatus.REFUNDED,
+                statusFor("charge.refunded", "{\"object\": \"charge\", \"payment_intent\": \"pi_1\", \"refunded\": true}"));
+    }
+
+    @Test
+    void partialRefundMapsToPartiallyRefunded() {
+        assertEquals(PaymentTransactionStatus.PARTIALLY_REFUNDED,
+                statusFor("charge.refunded", "{\"object\": \"charge\", \"payment_intent\": \"pi_1\", \"refunded\": false}"));
+    }
+
+    @Test
+    void unhandledEventTypeMapsToNull() {
+        assertNull(statusFor("customer.created", "{\"object\": \"customer\", \"id\": \"cus_1\"}"));
+    }
+
+    private PaymentTransactionStatus statusFor(String type, String object) {
+        String payload = "{\"id\": \"evt_1\", \"type\": \"" + type + "\", \"data\": {\"object\": " + object + "}}";
+        return GatewayWebhookProcessor.statusFor(GatewayWebhookEnvelope.parse(objectMapper, payload));
+    }
+}
@@ -0,0 +1,78 @@
+package com.appverse.payment_service.webhook;
+
+import com.appverse.payment_service.enums.PaymentGatewayType;
+import com.appverse.payment_service.exception.BadRequestException;
+import com.appverse.payment_service.exception.PaymentProcessingException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebhookSignatureVerifierTest {
+
+    private static final String PAYLOAD = "{\"id\":\"evt_1\",\"type\":\"payment_intent.succeeded\"}";
+
+    private final WebhookSignatureVerifier verifier = new WebhookSignatureVerifier(
+            new MockEnvironment().withProperty("appverse.payment.webhook.secrets.stripe", "whsec_test"),
+            Duration.ofMinutes(5));
+
+    @Test
+    void acceptsValidSignature() {
+        String signature = verifier.sign(PaymentGatewayType.STRIPE, PAYLOAD, now());
+
+        assertDoesNotThrow(() -> verifier.verify(PaymentGatewayType.STRIPE, PAYLOAD, headers(signature)));
+    }
+
+    @Test
+    void acceptsAnyMatchingV1AmongSeveral() {
+        long timestamp = now();
+        String valid = verifier.sign(PaymentGatewayType.STRIPE, PAYLOAD, timestamp);
+        String validV1 = valid.substring(valid.indexOf("v1="));
+        String signature = "t=" + timestamp + ",v1=" + "00".repeat(32) + "," + validV1; // Old secret's first, as during rotation
+
+        assertDoesNotThrow(() -> verifier.verify(PaymentGatewayType.STRIPE, PAYLOAD, headers(signature)));
+    }
+
+    @Test
+    void rejectsStaleTimestamp() {
+        String signature = verifier.sign(PaymentGatewayType.STRIPE, PAYLOAD, now() - Duration.ofMinutes(6).toSeconds());
+
+        assertThrows(BadRequestException.class, () -> verifier.verify(PaymentGatewayType.STRIPE, PAYLOAD, headers(signature)));
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String signature = verifier.sign(PaymentGatewayType.STRIPE, PAYLOAD, now());
+        String tampered = PAYLOAD.replace("succeeded", "canceled");
+
+        assertThrows(BadRequestException.class, () -> verifier.verify(PaymentGatewayType.STRIPE, tampered, headers(signature)));
+    }
+
+    @Test
+    void rejectsMissingHeader() {
+        assertThrows(BadRequestException.class, () -> verifier.verify(PaymentGatewayType.STRIPE, PAYLOAD, new HttpHeaders()));
+    }
+
+    @Test
+    void missingSecretIsAServerError() {
+        WebhookSignatureVerifier unconfigured = new WebhookSignatureVerifier(new MockEnvironment(), Duration.ofMinutes(5));
+        String signature = verifier.sign(PaymentGatewayType.STRIPE, PAYLOAD, now());
+
+        assertThrows(PaymentProcessingException.class,
+                () -> unconfigured.verify(PaymentGatewayType.STRIPE, PAYLOAD, headers(signature)));
+    }
+
+    private static HttpHeaders headers(String signature) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(WebhookSignatureVerifier.STRIPE_SIGNATURE_HEADER, signature);
+        return headers;
+    }
+
+    private static long now() {
+        return Instant.now().getEpochSecond();
+    }
+}